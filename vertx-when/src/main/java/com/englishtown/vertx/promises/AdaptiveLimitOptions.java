@@ -0,0 +1,96 @@
+package com.englishtown.vertx.promises;
+
+/**
+ * Options for tuning a bulkhead's concurrency limit from observed latency and errors, see
+ * {@link BulkheadOptions#setAdaptiveLimit(AdaptiveLimitOptions)}.
+ * <p>
+ * The limit follows a gradient: the ratio of the long term baseline latency to the recent latency.  While recent
+ * latency stays within the tolerance of the baseline the limit grows by about its square root per sample; as requests
+ * start queueing at the host and latency rises the limit shrinks toward the in-flight count the host can serve without
+ * queueing.  Failed requests and 5xx responses cut the limit by the backoff ratio.
+ */
+public class AdaptiveLimitOptions {
+
+    public static final int DEFAULT_MIN_LIMIT = 1;
+    public static final int DEFAULT_MAX_LIMIT = 1000;
+    public static final double DEFAULT_TOLERANCE = 1.5;
+    public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+    private int minLimit = DEFAULT_MIN_LIMIT;
+    private int maxLimit = DEFAULT_MAX_LIMIT;
+    private double tolerance = DEFAULT_TOLERANCE;
+    private double backoffRatio = DEFAULT_BACKOFF_RATIO;
+
+    /**
+     * The lowest the limit is reduced to
+     *
+     * @param minLimit
+     * @return
+     */
+    public AdaptiveLimitOptions setMinLimit(int minLimit) {
+        if (minLimit <= 0) {
+            throw new IllegalArgumentException("minLimit must be greater than 0");
+        }
+        this.minLimit = minLimit;
+        return this;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    /**
+     * The highest the limit is raised to
+     *
+     * @param maxLimit
+     * @return
+     */
+    public AdaptiveLimitOptions setMaxLimit(int maxLimit) {
+        if (maxLimit <= 0) {
+            throw new IllegalArgumentException("maxLimit must be greater than 0");
+        }
+        this.maxLimit = maxLimit;
+        return this;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * How much recent latency may exceed the baseline before the limit is reduced, 1.5 allows 50% more
+     *
+     * @param tolerance
+     * @return
+     */
+    public AdaptiveLimitOptions setTolerance(double tolerance) {
+        if (tolerance < 1) {
+            throw new IllegalArgumentException("tolerance must be at least 1");
+        }
+        this.tolerance = tolerance;
+        return this;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * The factor the limit is multiplied by when a request fails
+     *
+     * @param backoffRatio
+     * @return
+     */
+    public AdaptiveLimitOptions setBackoffRatio(double backoffRatio) {
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+        }
+        this.backoffRatio = backoffRatio;
+        return this;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+}
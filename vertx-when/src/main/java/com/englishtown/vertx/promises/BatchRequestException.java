@@ -0,0 +1,26 @@
+package com.englishtown.vertx.promises;
+
+import com.englishtown.promises.State;
+
+import java.util.List;
+
+/**
+ * Thrown when one or more requests in a batch fail and the batch was not run fail fast.  The cause is the first failure.
+ */
+public class BatchRequestException extends RuntimeException {
+
+    private final List<State<HttpClientResponseAndBody>> results;
+
+    public BatchRequestException(List<State<HttpClientResponseAndBody>> results, Throwable cause) {
+        super("One or more batch requests failed", cause);
+        this.results = results;
+    }
+
+    /**
+     * @return the settled state of every request, in the same order as the requests
+     */
+    public List<State<HttpClientResponseAndBody>> getResults() {
+        return results;
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.englishtown.vertx.promises;
+
+/**
+ * Thrown when an http response body exceeds {@link RequestOptions#getMaxBodyBytes()}
+ */
+public class BodyTooLargeException extends RuntimeException {
+
+    private final long maxBodyBytes;
+    private final long bodyBytes;
+
+    /**
+     * @param maxBodyBytes the configured limit
+     * @param bodyBytes    the declared content length, or the bytes received when the limit was crossed
+     */
+    public BodyTooLargeException(long maxBodyBytes, long bodyBytes) {
+        super("Response body of at least " + bodyBytes + " bytes exceeds the limit of " + maxBodyBytes + " bytes");
+        this.maxBodyBytes = maxBodyBytes;
+        this.bodyBytes = bodyBytes;
+    }
+
+    public long getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    public long getBodyBytes() {
+        return bodyBytes;
+    }
+
+}
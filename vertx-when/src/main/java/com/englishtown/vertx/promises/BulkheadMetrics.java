@@ -0,0 +1,45 @@
+package com.englishtown.vertx.promises;
+
+/**
+ * Point in time view of a host:port bulkhead
+ */
+public interface BulkheadMetrics {
+
+    /**
+     * @return the concurrency limit, tuned over time for an adaptive bulkhead
+     */
+    int getMaxConcurrent();
+
+    /**
+     * @return the number of requests currently holding a slot
+     */
+    int getInFlight();
+
+    /**
+     * @return the number of requests waiting for a slot
+     */
+    int getQueueDepth();
+
+    /**
+     * @return the number of requests rejected because the queue was full
+     */
+    long getRejectedCount();
+
+    /**
+     * @return the number of requests rejected because they waited longer than the queue timeout
+     */
+    long getTimedOutCount();
+
+    /**
+     * @return the long term latency, in nanoseconds, an adaptive bulkhead compares recent latency with, or -1 for a
+     * fixed bulkhead or before the first response
+     */
+    long getBaselineLatency();
+
+    /**
+     * @return the recent moving average latency, in nanoseconds, of an adaptive bulkhead, or -1 for a fixed bulkhead
+     * or before the first response
+     */
+    long getRecentLatency();
+
+}
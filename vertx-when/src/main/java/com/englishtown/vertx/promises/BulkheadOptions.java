@@ -0,0 +1,86 @@
+package com.englishtown.vertx.promises;
+
+/**
+ * Options for the per host:port bulkhead applied by {@link WhenHttpClient}.  The bulkhead for a host is created with the
+ * options of the first request to that host that sets them.
+ */
+public class BulkheadOptions {
+
+    public static final int DEFAULT_MAX_CONCURRENT = 32;
+    public static final int DEFAULT_MAX_QUEUED = 128;
+    public static final long DEFAULT_QUEUE_TIMEOUT_MS = 5000;
+
+    private int maxConcurrent = DEFAULT_MAX_CONCURRENT;
+    private int maxQueued = DEFAULT_MAX_QUEUED;
+    private long queueTimeoutMs = DEFAULT_QUEUE_TIMEOUT_MS;
+    private AdaptiveLimitOptions adaptiveLimit;
+
+    /**
+     * Maximum number of requests to the host in flight at once, or the initial limit of an adaptive bulkhead
+     *
+     * @param maxConcurrent
+     * @return
+     */
+    public BulkheadOptions setMaxConcurrent(int maxConcurrent) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent must be greater than 0");
+        }
+        this.maxConcurrent = maxConcurrent;
+        return this;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * Maximum number of requests waiting for a slot.  Requests beyond this are rejected immediately.
+     *
+     * @param maxQueued
+     * @return
+     */
+    public BulkheadOptions setMaxQueued(int maxQueued) {
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("maxQueued must not be negative");
+        }
+        this.maxQueued = maxQueued;
+        return this;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    /**
+     * How long a request may wait for a slot before it is rejected.  0 or less waits indefinitely.
+     *
+     * @param queueTimeoutMs
+     * @return
+     */
+    public BulkheadOptions setQueueTimeout(long queueTimeoutMs) {
+        this.queueTimeoutMs = queueTimeoutMs;
+        return this;
+    }
+
+    public long getQueueTimeout() {
+        return queueTimeoutMs;
+    }
+
+    /**
+     * Tunes the concurrency limit from the latency and errors of the requests to the host instead of using a fixed
+     * {@link #getMaxConcurrent()}.  Requests over the limit are queued or rejected as for a fixed limit, so set
+     * maxQueued to 0 to shed them.
+     *
+     * @param adaptiveLimit
+     * @return
+     */
+    public BulkheadOptions setAdaptiveLimit(AdaptiveLimitOptions adaptiveLimit) {
+        this.adaptiveLimit = adaptiveLimit;
+        return this;
+    }
+
+    public AdaptiveLimitOptions getAdaptiveLimit() {
+        return adaptiveLimit;
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.englishtown.vertx.promises;
+
+/**
+ * Thrown when a request is rejected by a host bulkhead, either because the wait queue is full or because it waited
+ * longer than {@link BulkheadOptions#getQueueTimeout()}
+ */
+public class BulkheadRejectedException extends RuntimeException {
+
+    private final String host;
+    private final boolean timedOut;
+
+    public BulkheadRejectedException(String host, boolean timedOut) {
+        super(timedOut
+                ? "Timed out waiting for a request slot for " + host
+                : "Request queue is full for " + host);
+        this.host = host;
+        this.timedOut = timedOut;
+    }
+
+    /**
+     * @return the host:port of the bulkhead
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * @return true if the request timed out in the queue, false if the queue was full
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+}
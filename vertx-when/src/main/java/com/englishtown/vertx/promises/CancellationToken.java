@@ -0,0 +1,63 @@
+package com.englishtown.vertx.promises;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cancels in flight http requests.  Set on the {@link RequestOptions} of one or more requests and call
+ * {@link #cancel()} to reset them, release their connections and reject their promises with a
+ * {@link RequestCancelledException}.  Requests waiting for a retry backoff, a rate limit permit or a bulkhead slot
+ * stop waiting and are rejected straight away, and requests started after cancellation are rejected immediately.  May
+ * be cancelled from any thread.
+ */
+public class CancellationToken {
+
+    private List<Runnable> handlers = new ArrayList<>();
+    private boolean cancelled;
+
+    /**
+     * Cancels the token, running the registered handlers.  Only the first call has any effect.
+     */
+    public void cancel() {
+        List<Runnable> toRun;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            toRun = handlers;
+            handlers = null;
+        }
+        toRun.forEach(Runnable::run);
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Registers a handler to run when the token is cancelled.  The handler is run immediately if the token is
+     * already cancelled.
+     *
+     * @param handler the cancellation handler
+     * @return a runnable that unregisters the handler
+     */
+    public Runnable register(Runnable handler) {
+        synchronized (this) {
+            if (!cancelled) {
+                handlers.add(handler);
+                return () -> unregister(handler);
+            }
+        }
+        handler.run();
+        return () -> {
+        };
+    }
+
+    private synchronized void unregister(Runnable handler) {
+        if (handlers != null) {
+            handlers.remove(handler);
+        }
+    }
+
+}
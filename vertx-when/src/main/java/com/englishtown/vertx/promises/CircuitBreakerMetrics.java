@@ -0,0 +1,37 @@
+package com.englishtown.vertx.promises;
+
+/**
+ * Point in time view of a host:port circuit breaker
+ */
+public interface CircuitBreakerMetrics {
+
+    /**
+     * @return the host:port of the circuit breaker
+     */
+    String getHost();
+
+    CircuitBreakerState getState();
+
+    /**
+     * @return the percentage of failed calls in the sliding window, or -1 if fewer than the minimum number of calls
+     * have been recorded
+     */
+    float getFailureRate();
+
+    /**
+     * @return the percentage of slow calls in the sliding window, or -1 if fewer than the minimum number of calls have
+     * been recorded
+     */
+    float getSlowCallRate();
+
+    /**
+     * @return the number of calls in the sliding window
+     */
+    int getBufferedCalls();
+
+    /**
+     * @return the number of requests rejected because the circuit was open
+     */
+    long getRejectedCount();
+
+}
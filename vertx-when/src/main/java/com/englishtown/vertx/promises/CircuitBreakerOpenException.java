@@ -0,0 +1,22 @@
+package com.englishtown.vertx.promises;
+
+/**
+ * Thrown when a request is rejected without being sent because the circuit breaker for the host is open
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    private final String host;
+
+    public CircuitBreakerOpenException(String host) {
+        super("Circuit breaker is open for " + host);
+        this.host = host;
+    }
+
+    /**
+     * @return the host:port of the circuit breaker
+     */
+    public String getHost() {
+        return host;
+    }
+
+}
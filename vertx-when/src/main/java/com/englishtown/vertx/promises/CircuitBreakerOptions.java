@@ -0,0 +1,174 @@
+package com.englishtown.vertx.promises;
+
+import io.vertx.core.Handler;
+
+/**
+ * Options for the per host:port circuit breaker applied by {@link WhenHttpClient}.  The circuit breaker for a host is
+ * created with the options of the first request to that host that sets them.
+ * <p>
+ * A call fails if the request fails or the response status code is 5xx, and is slow if the response headers take
+ * longer than the slow call duration.  The circuit opens when either rate over the sliding window reaches its
+ * threshold.  After the open duration a number of probe requests are let through, the circuit closes if they all
+ * succeed and opens again otherwise.
+ */
+public class CircuitBreakerOptions {
+
+    public static final float DEFAULT_FAILURE_RATE_THRESHOLD = 50;
+    public static final float DEFAULT_SLOW_CALL_RATE_THRESHOLD = 100;
+    public static final long DEFAULT_SLOW_CALL_DURATION_MS = 5000;
+    public static final int DEFAULT_WINDOW_SIZE = 100;
+    public static final int DEFAULT_MINIMUM_CALLS = 20;
+    public static final long DEFAULT_OPEN_DURATION_MS = 30_000;
+    public static final int DEFAULT_HALF_OPEN_PROBES = 3;
+
+    private float failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+    private float slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+    private long slowCallDurationMs = DEFAULT_SLOW_CALL_DURATION_MS;
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+    private int minimumCalls = DEFAULT_MINIMUM_CALLS;
+    private long openDurationMs = DEFAULT_OPEN_DURATION_MS;
+    private int halfOpenProbes = DEFAULT_HALF_OPEN_PROBES;
+    private Handler<CircuitBreakerMetrics> stateHandler;
+
+    /**
+     * Percentage of failed calls in the sliding window that opens the circuit.  Defaults to 50.
+     *
+     * @param failureRateThreshold
+     * @return
+     */
+    public CircuitBreakerOptions setFailureRateThreshold(float failureRateThreshold) {
+        if (failureRateThreshold <= 0 || failureRateThreshold > 100) {
+            throw new IllegalArgumentException("failureRateThreshold must be greater than 0 and at most 100");
+        }
+        this.failureRateThreshold = failureRateThreshold;
+        return this;
+    }
+
+    public float getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    /**
+     * Percentage of slow calls in the sliding window that opens the circuit.  Defaults to 100.
+     *
+     * @param slowCallRateThreshold
+     * @return
+     */
+    public CircuitBreakerOptions setSlowCallRateThreshold(float slowCallRateThreshold) {
+        if (slowCallRateThreshold <= 0 || slowCallRateThreshold > 100) {
+            throw new IllegalArgumentException("slowCallRateThreshold must be greater than 0 and at most 100");
+        }
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        return this;
+    }
+
+    public float getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    /**
+     * Calls whose response headers take longer than this are slow.  Defaults to 5s.
+     *
+     * @param slowCallDurationMs
+     * @return
+     */
+    public CircuitBreakerOptions setSlowCallDuration(long slowCallDurationMs) {
+        if (slowCallDurationMs <= 0) {
+            throw new IllegalArgumentException("slowCallDuration must be greater than 0");
+        }
+        this.slowCallDurationMs = slowCallDurationMs;
+        return this;
+    }
+
+    public long getSlowCallDuration() {
+        return slowCallDurationMs;
+    }
+
+    /**
+     * Number of most recent calls the rates are computed over.  Defaults to 100.
+     *
+     * @param windowSize
+     * @return
+     */
+    public CircuitBreakerOptions setWindowSize(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize must be greater than 0");
+        }
+        this.windowSize = windowSize;
+        return this;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Minimum number of calls in the sliding window before the rates are evaluated.  Defaults to 20.
+     *
+     * @param minimumCalls
+     * @return
+     */
+    public CircuitBreakerOptions setMinimumCalls(int minimumCalls) {
+        if (minimumCalls <= 0) {
+            throw new IllegalArgumentException("minimumCalls must be greater than 0");
+        }
+        this.minimumCalls = minimumCalls;
+        return this;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    /**
+     * How long the circuit stays open before probe requests are let through.  Defaults to 30s.
+     *
+     * @param openDurationMs
+     * @return
+     */
+    public CircuitBreakerOptions setOpenDuration(long openDurationMs) {
+        if (openDurationMs < 0) {
+            throw new IllegalArgumentException("openDuration must not be negative");
+        }
+        this.openDurationMs = openDurationMs;
+        return this;
+    }
+
+    public long getOpenDuration() {
+        return openDurationMs;
+    }
+
+    /**
+     * Number of probe requests let through while half open.  Defaults to 3.
+     *
+     * @param halfOpenProbes
+     * @return
+     */
+    public CircuitBreakerOptions setHalfOpenProbes(int halfOpenProbes) {
+        if (halfOpenProbes <= 0) {
+            throw new IllegalArgumentException("halfOpenProbes must be greater than 0");
+        }
+        this.halfOpenProbes = halfOpenProbes;
+        return this;
+    }
+
+    public int getHalfOpenProbes() {
+        return halfOpenProbes;
+    }
+
+    /**
+     * Optional handler called with the circuit breaker after each state change
+     *
+     * @param stateHandler
+     * @return
+     */
+    public CircuitBreakerOptions setStateHandler(Handler<CircuitBreakerMetrics> stateHandler) {
+        this.stateHandler = stateHandler;
+        return this;
+    }
+
+    public Handler<CircuitBreakerMetrics> getStateHandler() {
+        return stateHandler;
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.englishtown.vertx.promises;
+
+/**
+ * States of a host:port circuit breaker
+ */
+public enum CircuitBreakerState {
+
+    /**
+     * Requests are sent and their outcomes recorded
+     */
+    CLOSED,
+
+    /**
+     * Requests are rejected without being sent
+     */
+    OPEN,
+
+    /**
+     * A limited number of probe requests are sent to decide whether to close or reopen the circuit
+     */
+    HALF_OPEN
+
+}
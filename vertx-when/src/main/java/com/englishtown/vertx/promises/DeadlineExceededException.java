@@ -0,0 +1,22 @@
+package com.englishtown.vertx.promises;
+
+/**
+ * Thrown when an http request does not complete before {@link RequestOptions#getDeadline()}
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private final long deadline;
+
+    /**
+     * @param deadline the deadline in epoch milliseconds
+     */
+    public DeadlineExceededException(long deadline) {
+        super("Request deadline of " + deadline + " exceeded");
+        this.deadline = deadline;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+}
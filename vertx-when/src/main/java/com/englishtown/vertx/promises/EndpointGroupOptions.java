@@ -0,0 +1,126 @@
+package com.englishtown.vertx.promises;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Options for a named group of endpoints that {@link WhenHttpClient} balances requests across, see
+ * {@link RequestDescriptor#requestGroup(io.vertx.core.http.HttpMethod, String, String, RequestOptions)}.
+ * <p>
+ * An endpoint is ejected after a number of consecutive failures, where a failure is a request error, a deadline or a
+ * 5xx response, and is reinstated once the ejection duration has passed.  If every endpoint is ejected requests are
+ * spread across all of them.
+ */
+public class EndpointGroupOptions {
+
+    public static final LoadBalancingStrategy DEFAULT_STRATEGY = LoadBalancingStrategy.POWER_OF_TWO_CHOICES;
+    public static final int DEFAULT_CONSECUTIVE_FAILURES = 5;
+    public static final long DEFAULT_EJECTION_DURATION_MS = 30_000;
+    public static final int DEFAULT_MAX_EJECTION_PERCENT = 50;
+
+    private final List<String> endpoints = new ArrayList<>();
+    private LoadBalancingStrategy strategy = DEFAULT_STRATEGY;
+    private int consecutiveFailures = DEFAULT_CONSECUTIVE_FAILURES;
+    private long ejectionDurationMs = DEFAULT_EJECTION_DURATION_MS;
+    private int maxEjectionPercent = DEFAULT_MAX_EJECTION_PERCENT;
+
+    /**
+     * Adds an endpoint to the group
+     *
+     * @param host
+     * @param port
+     * @return
+     */
+    public EndpointGroupOptions addEndpoint(String host, int port) {
+        if (host == null || host.isEmpty()) {
+            throw new IllegalArgumentException("host must be set");
+        }
+        if (port <= 0 || port > 65535) {
+            throw new IllegalArgumentException("port must be between 1 and 65535");
+        }
+        endpoints.add(host + ":" + port);
+        return this;
+    }
+
+    /**
+     * @return the endpoints as host:port
+     */
+    public List<String> getEndpoints() {
+        return Collections.unmodifiableList(endpoints);
+    }
+
+    /**
+     * The balancing strategy.  Defaults to {@link LoadBalancingStrategy#POWER_OF_TWO_CHOICES}.
+     *
+     * @param strategy
+     * @return
+     */
+    public EndpointGroupOptions setStrategy(LoadBalancingStrategy strategy) {
+        if (strategy == null) {
+            throw new IllegalArgumentException("strategy must be set");
+        }
+        this.strategy = strategy;
+        return this;
+    }
+
+    public LoadBalancingStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Number of consecutive failures that ejects an endpoint, or 0 to never eject.  Defaults to 5.
+     *
+     * @param consecutiveFailures
+     * @return
+     */
+    public EndpointGroupOptions setConsecutiveFailures(int consecutiveFailures) {
+        if (consecutiveFailures < 0) {
+            throw new IllegalArgumentException("consecutiveFailures must not be negative");
+        }
+        this.consecutiveFailures = consecutiveFailures;
+        return this;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * How long an ejected endpoint receives no requests.  Defaults to 30s.
+     *
+     * @param ejectionDurationMs
+     * @return
+     */
+    public EndpointGroupOptions setEjectionDuration(long ejectionDurationMs) {
+        if (ejectionDurationMs <= 0) {
+            throw new IllegalArgumentException("ejectionDuration must be greater than 0");
+        }
+        this.ejectionDurationMs = ejectionDurationMs;
+        return this;
+    }
+
+    public long getEjectionDuration() {
+        return ejectionDurationMs;
+    }
+
+    /**
+     * Maximum percentage of the endpoints ejected at once.  Unless 0, at least one endpoint can always be ejected.
+     * Defaults to 50.
+     *
+     * @param maxEjectionPercent
+     * @return
+     */
+    public EndpointGroupOptions setMaxEjectionPercent(int maxEjectionPercent) {
+        if (maxEjectionPercent < 0 || maxEjectionPercent > 100) {
+            throw new IllegalArgumentException("maxEjectionPercent must be between 0 and 100");
+        }
+        this.maxEjectionPercent = maxEjectionPercent;
+        return this;
+    }
+
+    public int getMaxEjectionPercent() {
+        return maxEjectionPercent;
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.englishtown.vertx.promises;
+
+import io.vertx.core.http.HttpClientResponse;
+
+/**
+ * Result of {@link WhenHttpClient#download}: the response metadata and where the body was written
+ */
+public interface FileDownload {
+
+    /**
+     * @return the response, its body has already been consumed
+     */
+    HttpClientResponse getResponse();
+
+    /**
+     * @return the path of the file the body was written to
+     */
+    String getPath();
+
+    /**
+     * @return the number of body bytes written
+     */
+    long getBytesWritten();
+
+}
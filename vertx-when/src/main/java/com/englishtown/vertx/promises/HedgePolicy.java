@@ -0,0 +1,64 @@
+package com.englishtown.vertx.promises;
+
+import io.vertx.core.http.HttpMethod;
+
+/**
+ * Hedging policy for http client requests.  If no response has arrived after the hedge delay a second identical request
+ * is sent, the first response wins and the other request is reset.  Only safe methods (GET, HEAD and OPTIONS) are
+ * hedged.
+ */
+public class HedgePolicy {
+
+    public static final long DEFAULT_DELAY_MS = 100;
+    public static final double DEFAULT_PERCENTILE = 95;
+
+    private long delayMs = DEFAULT_DELAY_MS;
+    private double percentile = DEFAULT_PERCENTILE;
+
+    /**
+     * The hedge delay used until enough responses from the host have been tracked, or always if the percentile is
+     * disabled.  Defaults to 100ms.
+     *
+     * @param delayMs
+     * @return
+     */
+    public HedgePolicy setDelay(long delayMs) {
+        if (delayMs <= 0) {
+            throw new IllegalArgumentException("delay must be greater than 0");
+        }
+        this.delayMs = delayMs;
+        return this;
+    }
+
+    public long getDelay() {
+        return delayMs;
+    }
+
+    /**
+     * Uses this percentile of the tracked response latency for the host:port as the hedge delay.  A value of 0 disables
+     * tracking and the fixed delay is always used.  Defaults to 95.
+     *
+     * @param percentile
+     * @return
+     */
+    public HedgePolicy setPercentile(double percentile) {
+        if (percentile < 0 || percentile >= 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+        this.percentile = percentile;
+        return this;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * @param method the request method
+     * @return true if requests with this method may be hedged
+     */
+    public boolean canHedge(HttpMethod method) {
+        return method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS;
+    }
+
+}
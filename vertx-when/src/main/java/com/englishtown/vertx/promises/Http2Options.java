@@ -0,0 +1,94 @@
+package com.englishtown.vertx.promises;
+
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpVersion;
+
+/**
+ * HTTP/2 options for the shared clients used by {@link WhenHttpClient}.  Requests to a host are multiplexed as streams
+ * over a small pool of connections, and a further connection is opened when every connection has reached the maximum
+ * number of concurrent streams.
+ * <p>
+ * Plain text connections use h2c with prior knowledge unless {@link #setClearTextUpgrade(boolean)} is set, TLS
+ * connections negotiate HTTP/2 with ALPN.
+ */
+public class Http2Options {
+
+    public static final int DEFAULT_MAX_CONCURRENT_STREAMS = 100;
+    public static final int DEFAULT_MAX_CONNECTIONS = 4;
+
+    private int maxConcurrentStreams = DEFAULT_MAX_CONCURRENT_STREAMS;
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+    private boolean clearTextUpgrade;
+
+    /**
+     * Maximum number of concurrent streams on each connection.  The server's own limit still applies if it is lower.
+     * -1 uses the server's limit.  Defaults to 100.
+     *
+     * @param maxConcurrentStreams
+     * @return
+     */
+    public Http2Options setMaxConcurrentStreams(int maxConcurrentStreams) {
+        if (maxConcurrentStreams == 0 || maxConcurrentStreams < -1) {
+            throw new IllegalArgumentException("maxConcurrentStreams must be greater than 0 or -1");
+        }
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        return this;
+    }
+
+    public int getMaxConcurrentStreams() {
+        return maxConcurrentStreams;
+    }
+
+    /**
+     * Maximum number of connections to each host.  Defaults to 4.
+     *
+     * @param maxConnections
+     * @return
+     */
+    public Http2Options setMaxConnections(int maxConnections) {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("maxConnections must be greater than 0");
+        }
+        this.maxConnections = maxConnections;
+        return this;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * If true plain text connections start as HTTP/1.1 and upgrade to h2c, otherwise they use h2c with prior knowledge.
+     * Defaults to false.
+     *
+     * @param clearTextUpgrade
+     * @return
+     */
+    public Http2Options setClearTextUpgrade(boolean clearTextUpgrade) {
+        this.clearTextUpgrade = clearTextUpgrade;
+        return this;
+    }
+
+    public boolean getClearTextUpgrade() {
+        return clearTextUpgrade;
+    }
+
+    /**
+     * Returns a copy of the client options configured for HTTP/2
+     *
+     * @param clientOptions the base client options, may be null
+     * @return the HTTP/2 client options
+     */
+    public HttpClientOptions toClientOptions(HttpClientOptions clientOptions) {
+        HttpClientOptions options = clientOptions == null ? new HttpClientOptions() : new HttpClientOptions(clientOptions);
+        options.setProtocolVersion(HttpVersion.HTTP_2)
+                .setHttp2ClearTextUpgrade(clearTextUpgrade)
+                .setHttp2MultiplexingLimit(maxConcurrentStreams)
+                .setHttp2MaxPoolSize(maxConnections);
+        if (options.isSsl()) {
+            options.setUseAlpn(true);
+        }
+        return options;
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.englishtown.vertx.promises;
+
+import io.vertx.core.http.HttpClientResponse;
+
+/**
+ * Facade for an {@link HttpClientResponse} and its decoded json body.  The raw body is not kept once it has been
+ * decoded.
+ *
+ * @param <T> the decoded type
+ */
+public interface HttpClientResponseAndJson<T> {
+
+    HttpClientResponse getResponse();
+
+    /**
+     * @return the decoded body, or null if the body was empty
+     */
+    T getJson();
+
+}
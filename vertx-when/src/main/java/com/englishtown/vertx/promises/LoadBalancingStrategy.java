@@ -0,0 +1,20 @@
+package com.englishtown.vertx.promises;
+
+/**
+ * How requests to an endpoint group are spread across its endpoints
+ */
+public enum LoadBalancingStrategy {
+    /**
+     * Each endpoint in turn
+     */
+    ROUND_ROBIN,
+    /**
+     * The endpoint with the fewest requests in flight
+     */
+    LEAST_OUTSTANDING,
+    /**
+     * The cheaper of two random endpoints, where the cost is the moving average latency weighted by the requests in
+     * flight
+     */
+    POWER_OF_TWO_CHOICES
+}
@@ -0,0 +1,278 @@
+package com.englishtown.vertx.promises;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Builds a multipart/form-data request body from fields, in memory parts and streamed file parts, see
+ * {@link RequestOptions#setMultipartBody(MultipartBody)}.
+ * <p>
+ * The body is a paused {@link ReadStream} that writes the boundaries and part headers between the parts as it goes, so
+ * file parts are read one at a time and the payload is never assembled in memory.  If the length of every streamed part
+ * is known the request is sent with a Content-Length, otherwise it is chunked.  Like any body stream it can only be
+ * sent once.
+ * <p>
+ * Part names, filenames and content types are written into the part headers, so values containing CR or LF are
+ * rejected with an {@link IllegalArgumentException}.
+ */
+public class MultipartBody implements ReadStream<Buffer> {
+
+    private static final String CRLF = "\r\n";
+    private static final char[] BOUNDARY_CHARS = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    private final String boundary;
+    private final List<Object> segments = new ArrayList<>();
+    private long length;
+
+    private Handler<Buffer> handler;
+    private Handler<Throwable> exceptionHandler;
+    private Handler<Void> endHandler;
+    private ReadStream<Buffer> current;
+    private int next;
+    private boolean started;
+    private boolean paused = true;
+    private boolean emitting;
+    private boolean done;
+
+    public MultipartBody() {
+        StringBuilder sb = new StringBuilder("----vertx-when-");
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 24; i++) {
+            sb.append(BOUNDARY_CHARS[random.nextInt(BOUNDARY_CHARS.length)]);
+        }
+        this.boundary = sb.toString();
+    }
+
+    /**
+     * @param boundary the boundary between parts, must not appear in any part
+     */
+    public MultipartBody(String boundary) {
+        if (boundary == null || boundary.isEmpty() || boundary.length() > 70) {
+            throw new IllegalArgumentException("boundary must be 1 to 70 characters");
+        }
+        this.boundary = boundary;
+    }
+
+    /**
+     * Adds a text field
+     *
+     * @param name
+     * @param value
+     * @return
+     */
+    public MultipartBody addField(String name, String value) {
+        return addPart(name, null, null, Buffer.buffer(value, StandardCharsets.UTF_8.name()));
+    }
+
+    /**
+     * Adds a part held in memory
+     *
+     * @param name        the form field name
+     * @param filename    the filename, or null
+     * @param contentType the part content type, or null
+     * @param content     the part content
+     * @return
+     */
+    public MultipartBody addPart(String name, String filename, String contentType, Buffer content) {
+        addHeader(name, filename, contentType);
+        addSegment(content);
+        addSegment(Buffer.buffer(CRLF));
+        return this;
+    }
+
+    /**
+     * Adds a part streamed from a {@link ReadStream}, such as an {@link io.vertx.core.file.AsyncFile}.  The stream
+     * should be paused, it is resumed once the earlier parts have been written and is not closed.
+     *
+     * @param name        the form field name
+     * @param filename    the filename, or null
+     * @param contentType the part content type, or null
+     * @param file        the part content
+     * @param fileLength  the number of bytes the stream will produce, or -1 if unknown
+     * @return
+     */
+    public MultipartBody addFile(String name, String filename, String contentType, ReadStream<Buffer> file, long fileLength) {
+        addHeader(name, filename, contentType);
+        segments.add(file);
+        length = (length < 0 || fileLength < 0) ? -1 : length + fileLength;
+        addSegment(Buffer.buffer(CRLF));
+        return this;
+    }
+
+    /**
+     * Adds a part streamed from a {@link ReadStream} of unknown length, the request is chunked
+     *
+     * @param name        the form field name
+     * @param filename    the filename, or null
+     * @param contentType the part content type, or null
+     * @param file        the part content
+     * @return
+     */
+    public MultipartBody addFile(String name, String filename, String contentType, ReadStream<Buffer> file) {
+        return addFile(name, filename, contentType, file, -1);
+    }
+
+    public String getBoundary() {
+        return boundary;
+    }
+
+    /**
+     * @return the Content-Type header value, including the boundary
+     */
+    public String getContentType() {
+        return "multipart/form-data; boundary=" + boundary;
+    }
+
+    /**
+     * @return the total body length in bytes, or -1 if a streamed part has an unknown length
+     */
+    public long getLength() {
+        return length < 0 ? -1 : length + closingDelimiter().length();
+    }
+
+    private void addHeader(String name, String filename, String contentType) {
+        if (started) {
+            throw new IllegalStateException("Parts cannot be added once the body is being sent");
+        }
+        if (name == null) {
+            throw new IllegalArgumentException("name must not be null");
+        }
+        checkHeaderValue("name", name);
+        checkHeaderValue("filename", filename);
+        checkHeaderValue("contentType", contentType);
+
+        StringBuilder sb = new StringBuilder("--").append(boundary).append(CRLF)
+                .append("Content-Disposition: form-data; name=\"").append(escape(name)).append('"');
+        if (filename != null) {
+            sb.append("; filename=\"").append(escape(filename)).append('"');
+        }
+        sb.append(CRLF);
+        if (contentType != null) {
+            sb.append("Content-Type: ").append(contentType).append(CRLF);
+        }
+        sb.append(CRLF);
+
+        addSegment(Buffer.buffer(sb.toString(), StandardCharsets.UTF_8.name()));
+    }
+
+    private void addSegment(Buffer buffer) {
+        segments.add(buffer);
+        if (length >= 0) {
+            length += buffer.length();
+        }
+    }
+
+    private String closingDelimiter() {
+        return "--" + boundary + "--" + CRLF;
+    }
+
+    // A line break would end the header line and let the value inject headers or a part of its own
+    private static void checkHeaderValue(String field, String value) {
+        if (value != null && (value.indexOf('\r') >= 0 || value.indexOf('\n') >= 0)) {
+            throw new IllegalArgumentException(field + " must not contain CR or LF");
+        }
+    }
+
+    // Percent encode the quote that would end the quoted string
+    private static String escape(String value) {
+        return value.replace("\"", "%22");
+    }
+
+    @Override
+    public MultipartBody exceptionHandler(Handler<Throwable> handler) {
+        this.exceptionHandler = handler;
+        return this;
+    }
+
+    @Override
+    public MultipartBody handler(Handler<Buffer> handler) {
+        this.handler = handler;
+        return this;
+    }
+
+    @Override
+    public MultipartBody pause() {
+        paused = true;
+        if (current != null) {
+            current.pause();
+        }
+        return this;
+    }
+
+    @Override
+    public MultipartBody resume() {
+        paused = false;
+        if (current != null) {
+            current.resume();
+        } else {
+            emit();
+        }
+        return this;
+    }
+
+    @Override
+    public MultipartBody endHandler(Handler<Void> endHandler) {
+        this.endHandler = endHandler;
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void emit() {
+        // Handlers may pause or resume synchronously, the loop picks up the new state
+        if (emitting) {
+            return;
+        }
+        emitting = true;
+        started = true;
+
+        try {
+            while (!paused && !done && current == null && handler != null) {
+                if (next == segments.size()) {
+                    done = true;
+                    handler.handle(Buffer.buffer(closingDelimiter()));
+                    if (endHandler != null) {
+                        endHandler.handle(null);
+                    }
+                    return;
+                }
+
+                Object segment = segments.get(next++);
+                if (segment instanceof Buffer) {
+                    handler.handle((Buffer) segment);
+                } else {
+                    startStream((ReadStream<Buffer>) segment);
+                }
+            }
+        } finally {
+            emitting = false;
+        }
+    }
+
+    private void startStream(ReadStream<Buffer> stream) {
+        current = stream;
+        // Pause first so the stream can't emit before the body is ready or while the body is paused
+        stream.pause();
+        stream.handler(chunk -> handler.handle(chunk))
+                .exceptionHandler(t -> {
+                    done = true;
+                    if (exceptionHandler != null) {
+                        exceptionHandler.handle(t);
+                    }
+                })
+                .endHandler(aVoid -> {
+                    current = null;
+                    emit();
+                });
+
+        if (!paused) {
+            stream.resume();
+        }
+    }
+
+}
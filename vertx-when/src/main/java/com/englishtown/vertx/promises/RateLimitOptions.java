@@ -0,0 +1,82 @@
+package com.englishtown.vertx.promises;
+
+/**
+ * Options for the token bucket rate limiter applied by {@link WhenHttpClient} per host:port, or per endpoint group for
+ * requests made with {@link RequestDescriptor#requestGroup(io.vertx.core.http.HttpMethod, String, String, RequestOptions)}.
+ * The limiter for a host is created with the options of the first request to that host that sets them.
+ * <p>
+ * Every attempt, including retries and hedges, takes a permit.  With a max wait of 0 requests over the rate are
+ * rejected straight away with a {@link RateLimitedException}, otherwise they are delayed with a vert.x timer until a
+ * permit is available and only rejected if that would take longer than the max wait.
+ */
+public class RateLimitOptions {
+
+    public static final long DEFAULT_MAX_WAIT_MS = 0;
+
+    private double permitsPerSecond;
+    private int burst = 1;
+    private long maxWaitMs = DEFAULT_MAX_WAIT_MS;
+
+    /**
+     * @param permitsPerSecond the sustained request rate
+     */
+    public RateLimitOptions(double permitsPerSecond) {
+        setPermitsPerSecond(permitsPerSecond);
+    }
+
+    /**
+     * The sustained request rate
+     *
+     * @param permitsPerSecond
+     * @return
+     */
+    public RateLimitOptions setPermitsPerSecond(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be greater than 0");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        return this;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    /**
+     * The bucket size, the number of requests that can be sent at once after a quiet period.  Defaults to 1.
+     *
+     * @param burst
+     * @return
+     */
+    public RateLimitOptions setBurst(int burst) {
+        if (burst <= 0) {
+            throw new IllegalArgumentException("burst must be greater than 0");
+        }
+        this.burst = burst;
+        return this;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    /**
+     * Longest a request is delayed waiting for a permit, or 0 to reject requests over the rate straight away.
+     * Defaults to 0.
+     *
+     * @param maxWaitMs
+     * @return
+     */
+    public RateLimitOptions setMaxWait(long maxWaitMs) {
+        if (maxWaitMs < 0) {
+            throw new IllegalArgumentException("maxWait must not be negative");
+        }
+        this.maxWaitMs = maxWaitMs;
+        return this;
+    }
+
+    public long getMaxWait() {
+        return maxWaitMs;
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.englishtown.vertx.promises;
+
+/**
+ * Thrown when a request is rejected by a rate limiter because no permit is available within
+ * {@link RateLimitOptions#getMaxWait()}
+ */
+public class RateLimitedException extends RuntimeException {
+
+    private final String host;
+    private final long retryAfterMs;
+
+    /**
+     * @param host         the host:port or endpoint group of the rate limiter
+     * @param retryAfterMs how long until a permit would be available
+     */
+    public RateLimitedException(String host, long retryAfterMs) {
+        super("Rate limit exceeded for " + host + ", retry after " + retryAfterMs + "ms");
+        this.host = host;
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.englishtown.vertx.promises;
+
+/**
+ * Thrown when an http request is cancelled with its {@link CancellationToken}
+ */
+public class RequestCancelledException extends RuntimeException {
+
+    public RequestCancelledException() {
+        super("Request cancelled");
+    }
+
+}
@@ -0,0 +1,227 @@
+package com.englishtown.vertx.promises;
+
+import io.vertx.core.http.HttpMethod;
+
+import java.util.Objects;
+
+/**
+ * Describes an http client request: the method, where to send it and the {@link RequestOptions} to use.
+ */
+public class RequestDescriptor {
+
+    private final HttpMethod method;
+    private final int port;
+    private final String host;
+    private final String requestURI;
+    private final String absoluteURI;
+    private final String group;
+    private final RequestOptions options;
+
+    private RequestDescriptor(HttpMethod method, int port, String host, String requestURI, String absoluteURI, RequestOptions options) {
+        this(method, port, host, requestURI, absoluteURI, null, options);
+    }
+
+    private RequestDescriptor(HttpMethod method, int port, String host, String requestURI, String absoluteURI, String group, RequestOptions options) {
+        this.method = Objects.requireNonNull(method);
+        this.port = port;
+        this.host = host;
+        this.requestURI = requestURI;
+        this.absoluteURI = absoluteURI;
+        this.group = group;
+        this.options = options;
+    }
+
+    /**
+     * A request to the server at the specified host and port
+     *
+     * @param method     the HTTP method
+     * @param port       the port
+     * @param host       the host
+     * @param requestURI the relative URI
+     * @return the request descriptor
+     */
+    public static RequestDescriptor request(HttpMethod method, int port, String host, String requestURI) {
+        return request(method, port, host, requestURI, null);
+    }
+
+    /**
+     * A request to the server at the specified host and port
+     *
+     * @param method     the HTTP method
+     * @param port       the port
+     * @param host       the host
+     * @param requestURI the relative URI
+     * @param options    the additional request options
+     * @return the request descriptor
+     */
+    public static RequestDescriptor request(HttpMethod method, int port, String host, String requestURI, RequestOptions options) {
+        return new RequestDescriptor(method, port, Objects.requireNonNull(host), requestURI, null, options);
+    }
+
+    /**
+     * A request to the server at the specified host and default port
+     *
+     * @param method     the HTTP method
+     * @param host       the host
+     * @param requestURI the relative URI
+     * @return the request descriptor
+     */
+    public static RequestDescriptor request(HttpMethod method, String host, String requestURI) {
+        return request(method, host, requestURI, null);
+    }
+
+    /**
+     * A request to the server at the specified host and default port
+     *
+     * @param method     the HTTP method
+     * @param host       the host
+     * @param requestURI the relative URI
+     * @param options    the additional request options
+     * @return the request descriptor
+     */
+    public static RequestDescriptor request(HttpMethod method, String host, String requestURI, RequestOptions options) {
+        return new RequestDescriptor(method, -1, Objects.requireNonNull(host), requestURI, null, options);
+    }
+
+    /**
+     * A request to the server at the default host and port
+     *
+     * @param method     the HTTP method
+     * @param requestURI the relative URI
+     * @return the request descriptor
+     */
+    public static RequestDescriptor request(HttpMethod method, String requestURI) {
+        return request(method, requestURI, (RequestOptions) null);
+    }
+
+    /**
+     * A request to the server at the default host and port
+     *
+     * @param method     the HTTP method
+     * @param requestURI the relative URI
+     * @param options    the additional request options
+     * @return the request descriptor
+     */
+    public static RequestDescriptor request(HttpMethod method, String requestURI, RequestOptions options) {
+        return new RequestDescriptor(method, -1, null, requestURI, null, options);
+    }
+
+    /**
+     * A request to the server using an absolute URI
+     *
+     * @param method      the HTTP method
+     * @param absoluteURI the absolute URI
+     * @return the request descriptor
+     */
+    public static RequestDescriptor requestAbs(HttpMethod method, String absoluteURI) {
+        return requestAbs(method, absoluteURI, null);
+    }
+
+    /**
+     * A request to the server using an absolute URI
+     *
+     * @param method      the HTTP method
+     * @param absoluteURI the absolute URI
+     * @param options     the additional request options
+     * @return the request descriptor
+     */
+    public static RequestDescriptor requestAbs(HttpMethod method, String absoluteURI, RequestOptions options) {
+        return new RequestDescriptor(method, -1, null, null, Objects.requireNonNull(absoluteURI), options);
+    }
+
+    /**
+     * A request to an endpoint of a group registered with
+     * {@link WhenHttpClient#addEndpointGroup(String, EndpointGroupOptions)}.  The endpoint is chosen for each attempt,
+     * so retries and hedges may go to different endpoints.
+     *
+     * @param method     the HTTP method
+     * @param group      the endpoint group name
+     * @param requestURI the relative URI
+     * @return the request descriptor
+     */
+    public static RequestDescriptor requestGroup(HttpMethod method, String group, String requestURI) {
+        return requestGroup(method, group, requestURI, null);
+    }
+
+    /**
+     * A request to an endpoint of a group registered with
+     * {@link WhenHttpClient#addEndpointGroup(String, EndpointGroupOptions)}
+     *
+     * @param method     the HTTP method
+     * @param group      the endpoint group name
+     * @param requestURI the relative URI
+     * @param options    the additional request options
+     * @return the request descriptor
+     */
+    public static RequestDescriptor requestGroup(HttpMethod method, String group, String requestURI, RequestOptions options) {
+        return new RequestDescriptor(method, -1, null, requestURI, null, Objects.requireNonNull(group), options);
+    }
+
+    /**
+     * Returns a copy of this group request sent to a single endpoint of the group
+     *
+     * @param host the endpoint host
+     * @param port the endpoint port
+     * @return the request descriptor
+     */
+    public RequestDescriptor toEndpoint(String host, int port) {
+        return new RequestDescriptor(method, port, Objects.requireNonNull(host), requestURI, null, options);
+    }
+
+    /**
+     * Returns a copy of this request with different options
+     *
+     * @param options the request options
+     * @return the request descriptor
+     */
+    public RequestDescriptor withOptions(RequestOptions options) {
+        return new RequestDescriptor(method, port, host, requestURI, absoluteURI, group, options);
+    }
+
+    public HttpMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * @return the port, or -1 to use the client default
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @return the host, or null to use the client default
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * @return the relative URI, or null for an absolute request
+     */
+    public String getRequestURI() {
+        return requestURI;
+    }
+
+    /**
+     * @return the absolute URI, or null for a relative request
+     */
+    public String getAbsoluteURI() {
+        return absoluteURI;
+    }
+
+    /**
+     * @return the endpoint group name, or null if the request is not to a group
+     */
+    public String getGroup() {
+        return group;
+    }
+
+    /**
+     * @return the request options, may be null
+     */
+    public RequestOptions getOptions() {
+        return options;
+    }
+
+}
@@ -0,0 +1,15 @@
+package com.englishtown.vertx.promises;
+
+/**
+ * Listener for http client request timings.  Called once for each request attempt that was sent, on the event loop
+ * that handled it, so implementations must be fast and thread safe.
+ */
+@FunctionalInterface
+public interface RequestListener {
+
+    /**
+     * @param timings the phase timings of the completed request
+     */
+    void onComplete(RequestTimings timings);
+
+}
@@ -7,7 +7,10 @@ import io.vertx.core.http.CaseInsensitiveHeaders;
 import io.vertx.core.http.HttpClient;
 import io.vertx.core.http.HttpClientOptions;
 import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.streams.ReadStream;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
@@ -17,17 +20,129 @@ import java.util.function.Function;
  */
 public class RequestOptions {
 
+    public static final long DEFAULT_JSON_WORKER_THRESHOLD = 64 * 1024;
+
     private HttpClient client;
     private HttpClientOptions clientOptions;
+    private Http2Options http2;
+    private HttpClientOptions http2ClientOptions;
     private Buffer data;
+    private ReadStream<Buffer> bodyStream;
     private MultiMap headers;
     private boolean chunked;
     private long timeoutMs = -1;
+    private long deadline = -1;
+    private String deadlineHeader;
+    private CancellationToken cancellationToken;
     private int writeQueueMaxSize = -1;
     private boolean pauseResponse;
+    private long maxBodyBytes = -1;
+    private long jsonWorkerThreshold = DEFAULT_JSON_WORKER_THRESHOLD;
+    private BulkheadOptions bulkhead;
+    private RateLimitOptions rateLimit;
+    private CircuitBreakerOptions circuitBreaker;
+    private RetryPolicy retryPolicy;
+    private HedgePolicy hedgePolicy;
+    private ResponseCacheOptions responseCache;
+    private boolean coalesce;
     private Function<HttpClientRequest, Promise<Void>> setupHandler;
+    private CharSequence[] templateHeaders;
+    private boolean frozen;
+
+    public RequestOptions() {
+    }
+
+    /**
+     * Copy constructor.  The headers are copied, other values are shared with the original options.  A copy of a
+     * {@link #freeze() frozen} template is not frozen and shares the template's precompiled headers, so headers added
+     * to the copy only allocate for the additions.
+     *
+     * @param other
+     */
+    public RequestOptions(RequestOptions other) {
+        this.client = other.client;
+        this.clientOptions = other.clientOptions;
+        this.http2 = other.http2;
+        this.http2ClientOptions = other.http2ClientOptions;
+        this.data = other.data;
+        this.bodyStream = other.bodyStream;
+        if (other.headers != null) {
+            this.headers = new CaseInsensitiveHeaders().addAll(other.headers);
+        }
+        this.chunked = other.chunked;
+        this.timeoutMs = other.timeoutMs;
+        this.deadline = other.deadline;
+        this.deadlineHeader = other.deadlineHeader;
+        this.cancellationToken = other.cancellationToken;
+        this.writeQueueMaxSize = other.writeQueueMaxSize;
+        this.pauseResponse = other.pauseResponse;
+        this.maxBodyBytes = other.maxBodyBytes;
+        this.jsonWorkerThreshold = other.jsonWorkerThreshold;
+        this.bulkhead = other.bulkhead;
+        this.rateLimit = other.rateLimit;
+        this.circuitBreaker = other.circuitBreaker;
+        this.retryPolicy = other.retryPolicy;
+        this.hedgePolicy = other.hedgePolicy;
+        this.responseCache = other.responseCache;
+        this.coalesce = other.coalesce;
+        this.setupHandler = other.setupHandler;
+        this.templateHeaders = other.templateHeaders;
+    }
+
+    /**
+     * Returns a frozen copy of these options to use as a template shared across requests, threads and event loops.
+     * The header names and values are precompiled to optimized {@link CharSequence}s and added to each request without
+     * building a new {@link MultiMap}.  The setters of a frozen template throw {@link UnsupportedOperationException};
+     * use {@link #RequestOptions(RequestOptions)} for per-request overrides.  Publish the template safely, for example
+     * in a final field.
+     *
+     * @return
+     */
+    public RequestOptions freeze() {
+        if (frozen) {
+            return this;
+        }
+
+        RequestOptions template = new RequestOptions(this);
+        template.templateHeaders = compileHeaders();
+        template.headers = null;
+        template.frozen = true;
+        return template;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private CharSequence[] compileHeaders() {
+        int templateSize = templateHeaders == null ? 0 : templateHeaders.length;
+        if (headers == null || headers.isEmpty()) {
+            return templateHeaders;
+        }
+
+        CharSequence[] compiled = new CharSequence[templateSize + headers.size() * 2];
+        int i = 0;
+        for (int t = 0; t < templateSize; t += 2) {
+            if (!headers.contains(templateHeaders[t])) {
+                compiled[i++] = templateHeaders[t];
+                compiled[i++] = templateHeaders[t + 1];
+            }
+        }
+        for (Map.Entry<String, String> header : headers) {
+            compiled[i++] = HttpHeaders.createOptimized(header.getKey());
+            compiled[i++] = HttpHeaders.createOptimized(header.getValue());
+        }
+        return i == compiled.length ? compiled : Arrays.copyOf(compiled, i);
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("RequestOptions template is frozen, use new RequestOptions(template) to override values");
+        }
+    }
 
     public RequestOptions setClient(HttpClient client) {
+        checkNotFrozen();
         this.client = client;
         return this;
     }
@@ -37,7 +152,9 @@ public class RequestOptions {
     }
 
     public RequestOptions setClientOptions(HttpClientOptions options) {
+        checkNotFrozen();
         this.clientOptions = options;
+        this.http2ClientOptions = http2 == null ? null : http2.toClientOptions(options);
         return this;
     }
 
@@ -45,12 +162,40 @@ public class RequestOptions {
         return clientOptions;
     }
 
+    /**
+     * Sends requests over HTTP/2 using a shared client created from the client options with the HTTP/2 settings applied.
+     * Ignored when a client is set with {@link #setClient(HttpClient)}.  The HTTP/2 client options are built when the
+     * options are set, later changes to the {@link Http2Options} are not applied.
+     *
+     * @param http2
+     * @return
+     */
+    public RequestOptions setHttp2(Http2Options http2) {
+        checkNotFrozen();
+        this.http2 = http2;
+        this.http2ClientOptions = http2 == null ? null : http2.toClientOptions(clientOptions);
+        return this;
+    }
+
+    public Http2Options getHttp2() {
+        return http2;
+    }
+
+    /**
+     * @return the client options with the HTTP/2 settings applied, or the client options if HTTP/2 is not set
+     */
+    public HttpClientOptions getEffectiveClientOptions() {
+        return http2 == null ? clientOptions : http2ClientOptions;
+    }
+
     public RequestOptions setData(Buffer data) {
+        checkNotFrozen();
         this.data = data;
         return this;
     }
 
     public RequestOptions setData(String data) {
+        checkNotFrozen();
         this.data = data == null ? null : Buffer.buffer(data);
         return this;
     }
@@ -59,6 +204,42 @@ public class RequestOptions {
         return data;
     }
 
+    /**
+     * Streams the request body from a {@link ReadStream}, such as an {@link io.vertx.core.file.AsyncFile}, instead of
+     * {@link #setData(Buffer)}.  The request is chunked unless a Content-Length header is set, and the stream is paused
+     * while the request write queue is full (see {@link #setWriteQueueMaxSize(int)}).  If the stream fails the request
+     * is reset and the promise rejected.  A stream can only be read once so these requests are never retried, hedged or
+     * coalesced.  The stream should be paused until the request is sent.
+     *
+     * @param bodyStream
+     * @return
+     */
+    public RequestOptions setBodyStream(ReadStream<Buffer> bodyStream) {
+        checkNotFrozen();
+        this.bodyStream = bodyStream;
+        return this;
+    }
+
+    public ReadStream<Buffer> getBodyStream() {
+        return bodyStream;
+    }
+
+    /**
+     * Streams a multipart/form-data body built from fields and file parts.  The body is sent as the
+     * {@link #setBodyStream(ReadStream) body stream}, with a Content-Type header carrying the boundary and a
+     * Content-Length when the length of every part is known.
+     *
+     * @param multipartBody
+     * @return
+     */
+    public RequestOptions setMultipartBody(MultipartBody multipartBody) {
+        return setBodyStream(multipartBody);
+    }
+
+    public MultipartBody getMultipartBody() {
+        return bodyStream instanceof MultipartBody ? (MultipartBody) bodyStream : null;
+    }
+
     /**
      * Add a header to the request.  Can be called multiple times to add multiple headers
      *
@@ -67,6 +248,7 @@ public class RequestOptions {
      * @return
      */
     public RequestOptions addHeader(String name, String value) {
+        checkNotFrozen();
         if (headers == null) {
             headers = new CaseInsensitiveHeaders();
         }
@@ -80,17 +262,50 @@ public class RequestOptions {
      */
     @Deprecated
     public RequestOptions setHeaders(Map<String, String> headers) {
+        checkNotFrozen();
         headers.forEach((k, v) -> this.headers.add(k, v));
         return this;
     }
 
     public RequestOptions setHeaders(MultiMap headers) {
+        checkNotFrozen();
         this.headers = headers;
         return this;
     }
 
+    /**
+     * Returns the request headers.  For options created from a {@link #freeze() frozen} template this is a new map
+     * merging the template headers with the overrides, and changes to it are not reflected in the options.
+     *
+     * @return
+     */
     public MultiMap getMultiMapHeaders() {
-        return this.headers;
+        if (templateHeaders == null) {
+            return this.headers;
+        }
+
+        MultiMap merged = new CaseInsensitiveHeaders();
+        addHeadersTo(merged);
+        return merged;
+    }
+
+    /**
+     * Adds the request headers to a request's headers.  Headers set on a copy of a {@link #freeze() frozen} template
+     * replace template headers with the same name.
+     *
+     * @param target the headers to add to
+     */
+    public void addHeadersTo(MultiMap target) {
+        if (templateHeaders != null) {
+            for (int i = 0; i < templateHeaders.length; i += 2) {
+                if (headers == null || !headers.contains(templateHeaders[i])) {
+                    target.add(templateHeaders[i], templateHeaders[i + 1]);
+                }
+            }
+        }
+        if (headers != null) {
+            target.addAll(headers);
+        }
     }
 
     /**
@@ -98,18 +313,20 @@ public class RequestOptions {
      */
     @Deprecated
     public Map<String, String> getHeaders() {
-        if (this.headers == null) {
+        MultiMap headers = getMultiMapHeaders();
+        if (headers == null) {
             return null;
         }
 
         Map<String, String> map = new HashMap<>();
-        this.headers.entries()
+        headers.entries()
                 .forEach(entry -> map.putIfAbsent(entry.getKey(), entry.getValue()));
 
         return map;
     }
 
     public RequestOptions setChunked(boolean chunked) {
+        checkNotFrozen();
         this.chunked = chunked;
         return this;
     }
@@ -119,6 +336,7 @@ public class RequestOptions {
     }
 
     public RequestOptions setTimeout(long timeoutMs) {
+        checkNotFrozen();
         this.timeoutMs = timeoutMs;
         return this;
     }
@@ -127,7 +345,87 @@ public class RequestOptions {
         return this.timeoutMs;
     }
 
+    /**
+     * Absolute deadline, in epoch milliseconds, for the whole request including bulkhead queueing, the setup handler,
+     * connecting, the response headers and reading the body, across every retry and hedge.  Unlike
+     * {@link #setTimeout(long)}, which is reset by every chunk received, a slow upstream cannot hold the request open
+     * past the deadline.  When it passes the request is reset, its connection released and the promise rejected with
+     * a {@link DeadlineExceededException}.  A retry backoff or rate limit wait that would end past the deadline fails
+     * straight away instead of waiting.  Defaults to -1 for no deadline.
+     * <p>
+     * The deadline is absolute so it can be passed unchanged to the options of downstream calls made while handling
+     * the request.
+     *
+     * @param deadline
+     * @return
+     */
+    public RequestOptions setDeadline(long deadline) {
+        checkNotFrozen();
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * Sets the deadline to the given number of milliseconds from now
+     *
+     * @param deadlineMs
+     * @return
+     */
+    public RequestOptions setDeadlineIn(long deadlineMs) {
+        return setDeadline(System.currentTimeMillis() + deadlineMs);
+    }
+
+    public long getDeadline() {
+        return this.deadline;
+    }
+
+    /**
+     * @return the milliseconds left before the deadline, 0 if it has passed, or -1 if there is no deadline
+     */
+    public long getRemainingTime() {
+        if (deadline < 0) {
+            return -1;
+        }
+        return Math.max(0, deadline - System.currentTimeMillis());
+    }
+
+    /**
+     * Name of a request header, such as X-Request-Timeout, set to the milliseconds remaining before the deadline when
+     * each attempt is sent so the upstream service can pass the budget on to its own calls.  Only sent when a deadline
+     * is set.
+     *
+     * @param deadlineHeader
+     * @return
+     */
+    public RequestOptions setDeadlineHeader(String deadlineHeader) {
+        checkNotFrozen();
+        this.deadlineHeader = deadlineHeader;
+        return this;
+    }
+
+    public String getDeadlineHeader() {
+        return this.deadlineHeader;
+    }
+
+    /**
+     * Token that cancels the request, including any retries, hedges and the body read.  Requests with a token are
+     * never coalesced so cancelling one caller does not affect another.
+     *
+     * @param cancellationToken
+     * @return
+     */
+    public RequestOptions setCancellationToken(CancellationToken cancellationToken) {
+        checkNotFrozen();
+        this.cancellationToken = cancellationToken;
+        return this;
+    }
+
+    public CancellationToken getCancellationToken() {
+        return this.cancellationToken;
+    }
+
     public RequestOptions setWriteQueueMaxSize(int maxSize) {
+        checkNotFrozen();
         this.writeQueueMaxSize = maxSize;
         return this;
     }
@@ -142,6 +440,7 @@ public class RequestOptions {
      * @return
      */
     public RequestOptions setPauseResponse(boolean pause) {
+        checkNotFrozen();
         this.pauseResponse = pause;
         return this;
     }
@@ -150,13 +449,175 @@ public class RequestOptions {
         return this.pauseResponse;
     }
 
+    /**
+     * Maximum number of response body bytes read by {@link WhenHttpClient#requestAndReadBody} and {@link WhenHttpClient#body}.
+     * A larger Content-Length, or a body that grows past the limit, resets the request and rejects the promise with a
+     * {@link BodyTooLargeException}.  Defaults to -1 for no limit.
+     *
+     * @param maxBodyBytes
+     * @return
+     */
+    public RequestOptions setMaxBodyBytes(long maxBodyBytes) {
+        checkNotFrozen();
+        this.maxBodyBytes = maxBodyBytes;
+        return this;
+    }
+
+    public long getMaxBodyBytes() {
+        return this.maxBodyBytes;
+    }
+
+    /**
+     * Bodies read by {@link WhenHttpClient#requestAndReadJson} with more bytes than this are decoded on a worker thread
+     * with executeBlocking, smaller bodies are decoded on the event loop.  -1 always decodes on the event loop.  Defaults
+     * to 64KB.
+     *
+     * @param jsonWorkerThreshold
+     * @return
+     */
+    public RequestOptions setJsonWorkerThreshold(long jsonWorkerThreshold) {
+        checkNotFrozen();
+        this.jsonWorkerThreshold = jsonWorkerThreshold;
+        return this;
+    }
+
+    public long getJsonWorkerThreshold() {
+        return this.jsonWorkerThreshold;
+    }
+
+    /**
+     * Limits concurrent requests to the target host:port, queueing requests over the limit.  Requests that can't be
+     * queued, or wait too long, are rejected with a {@link BulkheadRejectedException}.
+     *
+     * @param bulkhead
+     * @return
+     */
+    public RequestOptions setBulkhead(BulkheadOptions bulkhead) {
+        checkNotFrozen();
+        this.bulkhead = bulkhead;
+        return this;
+    }
+
+    public BulkheadOptions getBulkhead() {
+        return this.bulkhead;
+    }
+
+    /**
+     * Limits the rate of requests to the target host:port, or endpoint group, with a token bucket.  Requests over the
+     * rate are delayed or rejected with a {@link RateLimitedException}.  A request that is not sent, for example
+     * because the circuit breaker is open, gives its permit back.
+     *
+     * @param rateLimit
+     * @return
+     */
+    public RequestOptions setRateLimit(RateLimitOptions rateLimit) {
+        checkNotFrozen();
+        this.rateLimit = rateLimit;
+        return this;
+    }
+
+    public RateLimitOptions getRateLimit() {
+        return this.rateLimit;
+    }
+
+    /**
+     * Applies a circuit breaker to requests to the host:port.  While the circuit is open requests are rejected with a
+     * {@link CircuitBreakerOpenException} before a connection is used.
+     *
+     * @param circuitBreaker
+     * @return
+     */
+    public RequestOptions setCircuitBreaker(CircuitBreakerOptions circuitBreaker) {
+        checkNotFrozen();
+        this.circuitBreaker = circuitBreaker;
+        return this;
+    }
+
+    public CircuitBreakerOptions getCircuitBreaker() {
+        return this.circuitBreaker;
+    }
+
+    /**
+     * Retries failed requests according to the policy.  Only idempotent methods are retried unless the policy allows
+     * otherwise.  The data is resent and the setup handler is called again for every attempt.
+     *
+     * @param retryPolicy
+     * @return
+     */
+    public RequestOptions setRetryPolicy(RetryPolicy retryPolicy) {
+        checkNotFrozen();
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return this.retryPolicy;
+    }
+
+    /**
+     * Hedges slow requests by sending a second identical request once the policy delay has passed without a response.
+     * Only GET, HEAD and OPTIONS requests are hedged.
+     *
+     * @param hedgePolicy
+     * @return
+     */
+    public RequestOptions setHedgePolicy(HedgePolicy hedgePolicy) {
+        checkNotFrozen();
+        this.hedgePolicy = hedgePolicy;
+        return this;
+    }
+
+    public HedgePolicy getHedgePolicy() {
+        return this.hedgePolicy;
+    }
+
+    /**
+     * Caches GET responses read with {@link WhenHttpClient#requestAndReadBody} according to their Cache-Control, Vary,
+     * ETag and Last-Modified headers.  The client has a single cache, created with the options of the first request
+     * that sets them.  Responses served from the cache have read only bodies.
+     *
+     * @param responseCache
+     * @return
+     */
+    public RequestOptions setResponseCache(ResponseCacheOptions responseCache) {
+        checkNotFrozen();
+        this.responseCache = responseCache;
+        return this;
+    }
+
+    public ResponseCacheOptions getResponseCache() {
+        return this.responseCache;
+    }
+
+    /**
+     * Shares one upstream request between concurrent {@link WhenHttpClient#requestAndReadBody} GET and HEAD calls for
+     * the same URI and headers.  Every caller receives its own read only view of the shared body.  Requests with data,
+     * a setup handler, a deadline or a cancellation token are never coalesced, and calls only share a request if they
+     * are made on the same context and use the same client, equal client options, the same retry and hedge policies,
+     * timeout and max body bytes.  Defaults to false.
+     *
+     * @param coalesce
+     * @return
+     */
+    public RequestOptions setCoalesce(boolean coalesce) {
+        checkNotFrozen();
+        this.coalesce = coalesce;
+        return this;
+    }
+
+    public boolean getCoalesce() {
+        return this.coalesce;
+    }
+
     /**
      * Optional additional setupHandler function.  The client request is provided to allow additional initialization or writes.
+     * Called once for each attempt when a {@link RetryPolicy} is set.
      *
      * @param setup
      * @return
      */
     public RequestOptions setSetupHandler(Function<HttpClientRequest, Promise<Void>> setup) {
+        checkNotFrozen();
         this.setupHandler = setup;
         return this;
     }
@@ -0,0 +1,78 @@
+package com.englishtown.vertx.promises;
+
+import io.vertx.core.http.HttpMethod;
+
+/**
+ * Phase timestamps and sizes of a completed http client request.  Timestamps are {@link System#nanoTime()} values, or
+ * -1 if the request did not reach that phase.
+ */
+public interface RequestTimings {
+
+    /**
+     * @return the host:port of the request
+     */
+    String getHost();
+
+    HttpMethod getMethod();
+
+    /**
+     * @return the response status code, or -1 if no response was received
+     */
+    int getStatusCode();
+
+    /**
+     * @return the failure, or null if the request succeeded or was reset
+     */
+    Throwable getFailure();
+
+    /**
+     * @return true if the request was reset before it completed, for example a hedged request that lost
+     */
+    boolean isReset();
+
+    /**
+     * @return the number of request body bytes written
+     */
+    long getBytesWritten();
+
+    /**
+     * @return the number of response body bytes read
+     */
+    long getBytesRead();
+
+    /**
+     * @return when the request was queued, before waiting for a rate limit token or a bulkhead slot
+     */
+    long getQueuedTime();
+
+    /**
+     * @return when the request was created after any rate limit or bulkhead wait
+     */
+    long getCreatedTime();
+
+    /**
+     * @return when a new or pooled connection was assigned to the request
+     */
+    long getConnectedTime();
+
+    /**
+     * @return when the request was fully written to its connection
+     */
+    long getWrittenTime();
+
+    /**
+     * @return when the response headers were received
+     */
+    long getHeadersTime();
+
+    /**
+     * @return when the first response body bytes were received, if the body was read as a stream
+     */
+    long getFirstByteTime();
+
+    /**
+     * @return when the response body was complete or the request failed or was reset
+     */
+    long getCompleteTime();
+
+}
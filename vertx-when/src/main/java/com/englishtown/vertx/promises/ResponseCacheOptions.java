@@ -0,0 +1,36 @@
+package com.englishtown.vertx.promises;
+
+/**
+ * Options for the in-memory response cache used by {@link WhenHttpClient#requestAndReadBody}.
+ * <p>
+ * Only GET responses with status 200 are stored, and only if they are not marked no-store, do not Vary on *, and have
+ * either a Cache-Control max-age or an ETag or Last-Modified validator.  Fresh responses are returned without a request.
+ * Stale responses are revalidated with If-None-Match or If-Modified-Since and a 304 response returns the cached body.
+ * Cached bodies are shared between callers and must not be modified.
+ */
+public class ResponseCacheOptions {
+
+    public static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+
+    private long maxBytes = DEFAULT_MAX_BYTES;
+
+    /**
+     * Maximum total size of the cached bodies and headers.  The least recently used responses are evicted once the cache
+     * grows past this.  Defaults to 16MB.
+     *
+     * @param maxBytes
+     * @return
+     */
+    public ResponseCacheOptions setMaxBytes(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be greater than 0");
+        }
+        this.maxBytes = maxBytes;
+        return this;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+}
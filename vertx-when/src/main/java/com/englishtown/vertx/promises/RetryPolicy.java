@@ -0,0 +1,192 @@
+package com.englishtown.vertx.promises;
+
+import io.vertx.core.http.HttpMethod;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Retry policy for http client requests.  Failed attempts are retried after an exponential backoff with optional full
+ * jitter, scheduled with vert.x timers.  The request data is resent and the setup handler is called again for each
+ * attempt.
+ */
+public class RetryPolicy {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_BACKOFF_BASE_MS = 100;
+    public static final long DEFAULT_BACKOFF_MAX_MS = 10_000;
+    public static final double DEFAULT_RETRY_BUDGET_RATIO = 0.2;
+
+    private static final Set<HttpMethod> IDEMPOTENT_METHODS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS, HttpMethod.PUT, HttpMethod.DELETE, HttpMethod.TRACE)));
+
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private Set<Integer> retryStatusCodes = new HashSet<>(Arrays.asList(502, 503, 504));
+    private Set<Class<? extends Throwable>> retryExceptions = new HashSet<>(Arrays.asList(IOException.class, TimeoutException.class));
+    private long backoffBaseMs = DEFAULT_BACKOFF_BASE_MS;
+    private long backoffMaxMs = DEFAULT_BACKOFF_MAX_MS;
+    private boolean jitter = true;
+    private double retryBudgetRatio = DEFAULT_RETRY_BUDGET_RATIO;
+    private boolean retryNonIdempotent;
+
+    /**
+     * Maximum number of attempts including the first.  Defaults to 3.
+     *
+     * @param maxAttempts
+     * @return
+     */
+    public RetryPolicy setMaxAttempts(int maxAttempts) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("maxAttempts must be greater than 0");
+        }
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Response status codes that are retried.  Defaults to 502, 503 and 504.
+     *
+     * @param statusCodes
+     * @return
+     */
+    public RetryPolicy setRetryStatusCodes(Set<Integer> statusCodes) {
+        this.retryStatusCodes = statusCodes;
+        return this;
+    }
+
+    public Set<Integer> getRetryStatusCodes() {
+        return retryStatusCodes;
+    }
+
+    /**
+     * Exception types, including subclasses, that are retried.  Defaults to {@link IOException} and {@link TimeoutException}.
+     *
+     * @param exceptions
+     * @return
+     */
+    public RetryPolicy setRetryExceptions(Set<Class<? extends Throwable>> exceptions) {
+        this.retryExceptions = exceptions;
+        return this;
+    }
+
+    public Set<Class<? extends Throwable>> getRetryExceptions() {
+        return retryExceptions;
+    }
+
+    /**
+     * The backoff before the first retry, doubled for each further retry.  Defaults to 100ms.
+     *
+     * @param backoffBaseMs
+     * @return
+     */
+    public RetryPolicy setBackoffBase(long backoffBaseMs) {
+        this.backoffBaseMs = backoffBaseMs;
+        return this;
+    }
+
+    public long getBackoffBase() {
+        return backoffBaseMs;
+    }
+
+    /**
+     * The maximum backoff between attempts.  Defaults to 10s.
+     *
+     * @param backoffMaxMs
+     * @return
+     */
+    public RetryPolicy setBackoffMax(long backoffMaxMs) {
+        this.backoffMaxMs = backoffMaxMs;
+        return this;
+    }
+
+    public long getBackoffMax() {
+        return backoffMaxMs;
+    }
+
+    /**
+     * If true (the default) each backoff is a random delay between 0 and the exponential backoff
+     *
+     * @param jitter
+     * @return
+     */
+    public RetryPolicy setJitter(boolean jitter) {
+        this.jitter = jitter;
+        return this;
+    }
+
+    public boolean getJitter() {
+        return jitter;
+    }
+
+    /**
+     * Limits retries to host:port to this fraction of requests, so retries can't multiply load on an upstream that is
+     * already failing.  A negative ratio disables the budget.  Defaults to 0.2.
+     *
+     * @param ratio
+     * @return
+     */
+    public RetryPolicy setRetryBudgetRatio(double ratio) {
+        this.retryBudgetRatio = ratio;
+        return this;
+    }
+
+    public double getRetryBudgetRatio() {
+        return retryBudgetRatio;
+    }
+
+    /**
+     * Allow retrying non-idempotent methods such as POST and PATCH.  Defaults to false.
+     *
+     * @param retryNonIdempotent
+     * @return
+     */
+    public RetryPolicy setRetryNonIdempotent(boolean retryNonIdempotent) {
+        this.retryNonIdempotent = retryNonIdempotent;
+        return this;
+    }
+
+    public boolean getRetryNonIdempotent() {
+        return retryNonIdempotent;
+    }
+
+    /**
+     * @param method the request method
+     * @return true if requests with this method may be retried
+     */
+    public boolean canRetry(HttpMethod method) {
+        return maxAttempts > 1 && (retryNonIdempotent || IDEMPOTENT_METHODS.contains(method));
+    }
+
+    /**
+     * @param statusCode the response status code
+     * @return true if the status code is retryable
+     */
+    public boolean isRetryable(int statusCode) {
+        return retryStatusCodes != null && retryStatusCodes.contains(statusCode);
+    }
+
+    /**
+     * @param t the request failure
+     * @return true if the failure is an instance of one of the retryable exception types
+     */
+    public boolean isRetryable(Throwable t) {
+        if (retryExceptions == null) {
+            return false;
+        }
+        for (Class<? extends Throwable> type : retryExceptions) {
+            if (type.isInstance(t)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -2,12 +2,21 @@ package com.englishtown.vertx.promises;
 
 import com.englishtown.promises.Promise;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.OpenOptions;
 import io.vertx.core.http.HttpClient;
 import io.vertx.core.http.HttpClientResponse;
 import io.vertx.core.http.HttpMethod;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
 /**
  * When.java wrapper for vert.x {@link HttpClient} methods
+ * <p>
+ * Methods added since the original request methods have default implementations where they can be built from other
+ * methods, the rest are abstract so an implementation that lacks them fails to compile rather than at runtime.
  */
 public interface WhenHttpClient {
 
@@ -179,6 +188,73 @@ public interface WhenHttpClient {
      */
     Promise<HttpClientResponseAndBody> requestAbsAndReadBody(HttpMethod method, String absoluteURI, RequestOptions options);
 
+    /**
+     * Sends a request
+     *
+     * @param request the request to send
+     * @return a promise for the response
+     */
+    Promise<HttpClientResponse> request(RequestDescriptor request);
+
+    /**
+     * Sends a request and reads the body
+     *
+     * @param request the request to send
+     * @return a promise for the response and body
+     */
+    Promise<HttpClientResponseAndBody> requestAndReadBody(RequestDescriptor request);
+
+    /**
+     * Sends a request, reads the body and decodes it as json.  Large bodies are decoded on a worker thread, see
+     * {@link RequestOptions#setJsonWorkerThreshold(long)}.  The body is decoded whatever the response status code.
+     *
+     * @param request the request to send
+     * @param type    {@link io.vertx.core.json.JsonObject}, {@link io.vertx.core.json.JsonArray} or a class to decode
+     *                with {@link io.vertx.core.json.Json#decodeValue(String, Class)}
+     * @return a promise for the response and decoded json, rejected with a
+     * {@link io.vertx.core.json.DecodeException} if the body is not valid json
+     */
+    <T> Promise<HttpClientResponseAndJson<T>> requestAndReadJson(RequestDescriptor request, Class<T> type);
+
+    /**
+     * Create an HTTP request to send to the server using an absolute URI, reads the body and decodes it as json
+     *
+     * @param method      the HTTP method
+     * @param absoluteURI the absolute URI
+     * @param type        the type to decode to
+     * @return a promise for the response and decoded json
+     * @see #requestAndReadJson(RequestDescriptor, Class)
+     */
+    default <T> Promise<HttpClientResponseAndJson<T>> requestAbsAndReadJson(HttpMethod method, String absoluteURI, Class<T> type) {
+        return requestAndReadJson(RequestDescriptor.requestAbs(method, absoluteURI), type);
+    }
+
+    /**
+     * Create an HTTP request to send to the server using an absolute URI, reads the body and decodes it as json
+     *
+     * @param method      the HTTP method
+     * @param absoluteURI the absolute URI
+     * @param options     the additional request options
+     * @param type        the type to decode to
+     * @return a promise for the response and decoded json
+     * @see #requestAndReadJson(RequestDescriptor, Class)
+     */
+    default <T> Promise<HttpClientResponseAndJson<T>> requestAbsAndReadJson(HttpMethod method, String absoluteURI, RequestOptions options, Class<T> type) {
+        return requestAndReadJson(RequestDescriptor.requestAbs(method, absoluteURI, options), type);
+    }
+
+    /**
+     * Sends a batch of requests and reads their bodies, with at most {@code maxInFlight} requests outstanding at once.
+     *
+     * @param requests    the requests to send
+     * @param maxInFlight the maximum number of requests in flight at any time
+     * @param failFast    if true the promise rejects with the first failure and no further requests are started,
+     *                    otherwise every request is sent and a {@link BatchRequestException} with all results is
+     *                    rejected if any failed
+     * @return a promise for the responses and bodies, in the same order as the requests
+     */
+    Promise<List<HttpClientResponseAndBody>> requestAllAndReadBody(List<RequestDescriptor> requests, int maxInFlight, boolean failFast);
+
     /**
      * Takes a {@link io.vertx.core.http.HttpClientResponse} and returns a promise for the body.
      * NOTE: Make sure you use {@link com.englishtown.vertx.promises.RequestOptions} to pause the response
@@ -188,4 +264,110 @@ public interface WhenHttpClient {
      */
     Promise<Buffer> body(HttpClientResponse response);
 
+    /**
+     * Takes a {@link io.vertx.core.http.HttpClientResponse} and streams the body to a chunk handler without buffering
+     * the whole body in memory.  The response is paused while the promise returned for a chunk is pending and resumed
+     * once it resolves.  If a chunk promise rejects, the request is reset and the returned promise rejects.
+     * NOTE: Make sure you use {@link com.englishtown.vertx.promises.RequestOptions} to pause the response
+     *
+     * @param response     the paused HTTP client response object
+     * @param chunkHandler handles each body chunk, may return null to continue immediately
+     * @return a promise for the total number of body bytes received
+     */
+    Promise<Long> streamBody(HttpClientResponse response, Function<Buffer, Promise<Void>> chunkHandler);
+
+    /**
+     * Sends a request and streams the response body into a file without buffering it in memory.  The response is
+     * paused while the file write queue is full.  If the file can't be opened or written the request is reset and the
+     * promise rejects, a partially written file is left in place.
+     * <p>
+     * The body is written whatever the status code, so an error response is saved to the file and the promise still
+     * resolves.  Check {@link FileDownload#getResponse()} for the status before using the file.
+     *
+     * @param request     the request to send
+     * @param path        the path of the file to write
+     * @param openOptions the options used to open the file, for example to truncate an existing file
+     * @param fsync       if true the file is flushed to storage before the promise resolves
+     * @return a promise for the response and the number of bytes written
+     */
+    Promise<FileDownload> download(RequestDescriptor request, String path, OpenOptions openOptions, boolean fsync);
+
+    /**
+     * Opens connections to a server ahead of traffic by sending {@code connections} concurrent OPTIONS * requests with
+     * the shared client for the default options.  OPTIONS * asks about the server rather than a resource, so it
+     * doesn't reach application handlers.  Use {@link #warmUp(RequestDescriptor, int)} to choose another method and
+     * path.
+     *
+     * @param host        the host
+     * @param port        the port
+     * @param connections the number of connections to open
+     * @return a promise for the number of new connections opened
+     * @see #warmUp(RequestDescriptor, int)
+     */
+    default Promise<Integer> warmUp(String host, int port, int connections) {
+        return warmUp(RequestDescriptor.request(HttpMethod.OPTIONS, port, host, "*"), connections);
+    }
+
+    /**
+     * Opens connections ahead of traffic by sending the request {@code connections} times concurrently, so the TCP
+     * and TLS handshakes happen before the first real request.  The request sets the method and path, so pick one
+     * without side effects on the server.  Each response body is read so the connection is idle in the pool once the
+     * promise resolves.  The request options select the client, so use the same client options as the real requests.
+     * Shared clients are per vert.x context, so warm up from the context that will send the requests.  Over HTTP/2 a
+     * new connection is only opened once the streams exceed the multiplexing limit.
+     * <p>
+     * The retry policy, circuit breaker, rate limit and bulkhead of the request options are not applied to the
+     * warm-up requests.
+     *
+     * @param request     the warm-up request, any response status counts as success
+     * @param connections the number of concurrent requests to send, at most the client's max pool size
+     * @return a promise for the number of new connections opened once every warm-up request has completed, rejected
+     * with the first failure if any of them failed
+     * @throws IllegalArgumentException if connections is not positive or is greater than the max pool size
+     */
+    Promise<Integer> warmUp(RequestDescriptor request, int connections);
+
+    /**
+     * Returns the bulkheads created for requests that set {@link RequestOptions#setBulkhead(BulkheadOptions)}
+     *
+     * @return a live view of the bulkhead metrics keyed by host:port
+     */
+    default Map<String, BulkheadMetrics> getBulkheadMetrics() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Returns the circuit breakers created for requests that set
+     * {@link RequestOptions#setCircuitBreaker(CircuitBreakerOptions)}
+     *
+     * @return a live view of the circuit breaker state keyed by host:port
+     */
+    default Map<String, CircuitBreakerMetrics> getCircuitBreakerMetrics() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Registers a named group of endpoints for requests made with
+     * {@link RequestDescriptor#requestGroup(HttpMethod, String, String, RequestOptions)}, replacing any group with the
+     * same name
+     *
+     * @param name    the group name
+     * @param options the group endpoints and balancing options
+     */
+    void addEndpointGroup(String name, EndpointGroupOptions options);
+
+    /**
+     * Removes an endpoint group.  Requests already sent to it are not affected.
+     *
+     * @param name the group name
+     */
+    void removeEndpointGroup(String name);
+
+    /**
+     * Closes the shared {@link HttpClient} instances used for requests that do not provide their own client
+     * via {@link RequestOptions#setClient(HttpClient)}
+     */
+    default void close() {
+    }
+
 }
@@ -0,0 +1,104 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.vertx.promises.AdaptiveLimitOptions;
+
+/**
+ * Gradient concurrency limit.  Compares a short term moving average of request latency with a long term baseline and
+ * scales the limit by their ratio, adding the square root of the limit so it keeps probing for more capacity.  Not
+ * thread safe, the owning {@link Bulkhead} guards updates with its monitor.
+ */
+class AdaptiveLimit {
+
+    /**
+     * Weight of the latest sample in the recent latency
+     */
+    private static final double RECENT_WEIGHT = 0.2;
+
+    /**
+     * Weight of the latest sample in the baseline latency, roughly a window of the last 500 samples
+     */
+    private static final double BASELINE_WEIGHT = 0.002;
+
+    /**
+     * Weight of a new limit estimate in the limit
+     */
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double backoffRatio;
+
+    private double estimate;
+    private double recentNanos = -1;
+    private double baselineNanos = -1;
+
+    AdaptiveLimit(int initialLimit, AdaptiveLimitOptions options) {
+        this.minLimit = options.getMinLimit();
+        this.maxLimit = Math.max(minLimit, options.getMaxLimit());
+        this.tolerance = options.getTolerance();
+        this.backoffRatio = options.getBackoffRatio();
+        this.estimate = clamp(initialLimit);
+    }
+
+    int getLimit() {
+        return (int) estimate;
+    }
+
+    /**
+     * @return the long term latency the recent latency is compared with, or -1 before the first sample
+     */
+    long getBaselineNanos() {
+        return (long) baselineNanos;
+    }
+
+    /**
+     * @return the short term moving average latency, or -1 before the first sample
+     */
+    long getRecentNanos() {
+        return (long) recentNanos;
+    }
+
+    /**
+     * Updates the limit with the outcome of a request
+     *
+     * @param failed        true if the request failed or the response status code is 5xx
+     * @param durationNanos the time until the response headers arrived or the request failed
+     * @param inFlight      the number of requests in flight when the request completed, including it
+     * @return the new limit
+     */
+    int update(boolean failed, long durationNanos, int inFlight) {
+        if (failed) {
+            estimate = clamp(estimate * backoffRatio);
+            return getLimit();
+        }
+
+        if (recentNanos < 0) {
+            recentNanos = durationNanos;
+            baselineNanos = durationNanos;
+        } else {
+            recentNanos += RECENT_WEIGHT * (durationNanos - recentNanos);
+            baselineNanos += BASELINE_WEIGHT * (durationNanos - baselineNanos);
+        }
+
+        // Once latency has fallen well below the baseline, such as after a host recovers, let the baseline catch up
+        if (baselineNanos > 2 * recentNanos) {
+            baselineNanos *= 0.95;
+        }
+
+        // Too few requests to tell whether the limit is too low
+        if (inFlight * 2 < estimate) {
+            return getLimit();
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baselineNanos / Math.max(1, recentNanos)));
+        double next = estimate * gradient + Math.sqrt(estimate);
+        estimate = clamp(estimate * (1 - SMOOTHING) + next * SMOOTHING);
+        return getLimit();
+    }
+
+    private double clamp(double limit) {
+        return Math.max(minLimit, Math.min(maxLimit, limit));
+    }
+
+}
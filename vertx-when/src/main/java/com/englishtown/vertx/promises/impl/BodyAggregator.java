@@ -0,0 +1,89 @@
+package com.englishtown.vertx.promises.impl;
+
+import io.vertx.core.buffer.Buffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Aggregates response body chunks so each byte is copied at most once.  When the Content-Length is known the body
+ * buffer is presized up front and grows if more data arrives, otherwise the chunks are held until the end and copied
+ * into a buffer of the exact total size.  A single chunk body is returned without copying.
+ * <p>
+ * The Content-Length is not trusted beyond the body size limit, or {@link #MAX_PRESIZE} when there is no limit, so a
+ * server can't make the client allocate memory for data it never sends.  Larger bodies are held as chunks rather than
+ * presized to the cap, which would regrow the buffer by doubling once the cap was passed.
+ */
+class BodyAggregator {
+
+    /**
+     * Largest presized buffer when there is no body size limit
+     */
+    static final int MAX_PRESIZE = 64 * 1024;
+
+    private Buffer body;
+    private List<Buffer> chunks;
+    private Buffer first;
+    private int length;
+
+    /**
+     * @param contentLength the declared Content-Length header, or null
+     * @param maxBodyBytes  the body size limit, or -1 for no limit
+     */
+    BodyAggregator(String contentLength, long maxBodyBytes) {
+        long expected = parseLength(contentLength);
+        long max = maxBodyBytes >= 0 ? Math.min(maxBodyBytes, Integer.MAX_VALUE) : MAX_PRESIZE;
+        if (expected > 0 && expected <= max) {
+            body = Buffer.buffer((int) expected);
+        }
+    }
+
+    private static long parseLength(String contentLength) {
+        if (contentLength == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(contentLength);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    void append(Buffer chunk) {
+        length += chunk.length();
+
+        if (body != null) {
+            body.appendBuffer(chunk);
+        } else if (first == null) {
+            first = chunk;
+        } else {
+            if (chunks == null) {
+                chunks = new ArrayList<>();
+                chunks.add(first);
+            }
+            chunks.add(chunk);
+        }
+    }
+
+    int length() {
+        return length;
+    }
+
+    /**
+     * @return the aggregated body
+     */
+    Buffer toBuffer() {
+        if (body != null) {
+            return body;
+        }
+        if (chunks == null) {
+            return first == null ? Buffer.buffer(0) : first;
+        }
+
+        Buffer buffer = Buffer.buffer(length);
+        chunks.forEach(buffer::appendBuffer);
+        chunks = null;
+        return buffer;
+    }
+
+}
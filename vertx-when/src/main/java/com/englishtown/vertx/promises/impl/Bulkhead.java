@@ -0,0 +1,254 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.promises.Deferred;
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.When;
+import com.englishtown.vertx.promises.AdaptiveLimitOptions;
+import com.englishtown.vertx.promises.BulkheadMetrics;
+import com.englishtown.vertx.promises.BulkheadOptions;
+import com.englishtown.vertx.promises.BulkheadRejectedException;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Limits the number of concurrent requests to a single host:port, queueing a bounded number of waiters.  The limit is
+ * fixed, or tuned by an {@link AdaptiveLimit} from request outcomes.  Shared across event loops, so all state is guarded
+ * by the instance monitor.
+ */
+public class Bulkhead implements BulkheadMetrics {
+
+    private final Vertx vertx;
+    private final When when;
+    private final String host;
+    private final int maxQueued;
+    private final long queueTimeoutMs;
+    private final AdaptiveLimit adaptiveLimit;
+
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private int maxConcurrent;
+    private int inFlight;
+    private long rejectedCount;
+    private long timedOutCount;
+
+    public Bulkhead(Vertx vertx, When when, String host, BulkheadOptions options) {
+        this.vertx = vertx;
+        this.when = when;
+        this.host = host;
+        this.maxQueued = options.getMaxQueued();
+        this.queueTimeoutMs = options.getQueueTimeout();
+
+        AdaptiveLimitOptions adaptiveOptions = options.getAdaptiveLimit();
+        this.adaptiveLimit = adaptiveOptions == null ? null : new AdaptiveLimit(options.getMaxConcurrent(), adaptiveOptions);
+        this.maxConcurrent = adaptiveLimit == null ? options.getMaxConcurrent() : adaptiveLimit.getLimit();
+    }
+
+    /**
+     * Acquires a slot.  Returns null if a slot was available immediately, otherwise a promise that resolves once a slot
+     * is handed over or rejects with a {@link BulkheadRejectedException}.  Every successful acquire must be matched by
+     * a call to {@link #release()}.
+     *
+     * @return null or a promise for a queued slot
+     */
+    public Promise<Void> acquire() {
+        Waiter waiter;
+
+        synchronized (this) {
+            if (inFlight < maxConcurrent) {
+                inFlight++;
+                return null;
+            }
+            if (waiters.size() >= maxQueued) {
+                rejectedCount++;
+                return when.reject(new BulkheadRejectedException(host, false));
+            }
+            waiter = new Waiter(Vertx.currentContext(), when.defer());
+            waiters.addLast(waiter);
+        }
+
+        if (queueTimeoutMs > 0) {
+            waiter.timerId = vertx.setTimer(queueTimeoutMs, id -> timeout(waiter));
+        }
+
+        return waiter.d.getPromise();
+    }
+
+    /**
+     * Removes a waiter from the queue, for example when its request is cancelled or its deadline passes, so it no
+     * longer counts toward the queue depth.  The queued promise rejects with a {@link CancellationException}.  Has no
+     * effect if the slot was already handed over or the waiter timed out.
+     *
+     * @param queued the promise returned by {@link #acquire()}
+     */
+    public void cancel(Promise<Void> queued) {
+        Waiter waiter = null;
+
+        synchronized (this) {
+            for (Waiter w : waiters) {
+                if (w.d.getPromise() == queued) {
+                    waiter = w;
+                    break;
+                }
+            }
+            if (waiter == null) {
+                return;
+            }
+            waiter.done = true;
+            waiters.remove(waiter);
+        }
+
+        if (waiter.timerId != -1) {
+            vertx.cancelTimer(waiter.timerId);
+        }
+        waiter.d.reject(new CancellationException());
+    }
+
+    /**
+     * Releases a slot, handing it to the next waiter if there is one
+     */
+    public void release() {
+        Waiter waiter;
+
+        synchronized (this) {
+            // When an adaptive limit has dropped below the in-flight count the slot is retired instead
+            waiter = inFlight > maxConcurrent ? null : waiters.pollFirst();
+            if (waiter == null) {
+                inFlight--;
+                return;
+            }
+            // The slot passes straight to the waiter so inFlight is unchanged
+            waiter.done = true;
+        }
+
+        admit(waiter);
+    }
+
+    /**
+     * Returns an outcome that tunes the limit of an adaptive bulkhead, or null for a fixed bulkhead.  Call once a slot
+     * has been acquired.
+     *
+     * @return the outcome or null
+     */
+    RequestOutcome startOutcome() {
+        if (adaptiveLimit == null) {
+            return null;
+        }
+        return new RequestOutcome() {
+            private boolean done;
+
+            @Override
+            public void complete(boolean failed, long durationNanos) {
+                if (!done) {
+                    done = true;
+                    update(failed, durationNanos);
+                }
+            }
+        };
+    }
+
+    private void update(boolean failed, long durationNanos) {
+        List<Waiter> admitted = null;
+
+        synchronized (this) {
+            maxConcurrent = adaptiveLimit.update(failed, durationNanos, inFlight);
+
+            // Hand out the slots a raised limit made available
+            while (inFlight < maxConcurrent && !waiters.isEmpty()) {
+                Waiter waiter = waiters.pollFirst();
+                waiter.done = true;
+                inFlight++;
+                if (admitted == null) {
+                    admitted = new ArrayList<>();
+                }
+                admitted.add(waiter);
+            }
+        }
+
+        if (admitted != null) {
+            admitted.forEach(this::admit);
+        }
+    }
+
+    private void admit(Waiter waiter) {
+        if (waiter.timerId != -1) {
+            vertx.cancelTimer(waiter.timerId);
+        }
+        waiter.resolve();
+    }
+
+    private void timeout(Waiter waiter) {
+        synchronized (this) {
+            if (waiter.done) {
+                return;
+            }
+            waiter.done = true;
+            waiters.remove(waiter);
+            timedOutCount++;
+        }
+        waiter.d.reject(new BulkheadRejectedException(host, true));
+    }
+
+    @Override
+    public synchronized int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    @Override
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    @Override
+    public synchronized int getQueueDepth() {
+        return waiters.size();
+    }
+
+    @Override
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    @Override
+    public synchronized long getTimedOutCount() {
+        return timedOutCount;
+    }
+
+    @Override
+    public synchronized long getBaselineLatency() {
+        return adaptiveLimit == null ? -1 : adaptiveLimit.getBaselineNanos();
+    }
+
+    @Override
+    public synchronized long getRecentLatency() {
+        return adaptiveLimit == null ? -1 : adaptiveLimit.getRecentNanos();
+    }
+
+    private static class Waiter {
+
+        private final Context context;
+        private final Deferred<Void> d;
+        private long timerId = -1;
+        private boolean done;
+
+        private Waiter(Context context, Deferred<Void> d) {
+            this.context = context;
+            this.d = d;
+        }
+
+        // Resume on the waiter's own context so the request runs on the event loop that queued it
+        private void resolve() {
+            if (context == null || context == Vertx.currentContext()) {
+                d.resolve((Void) null);
+            } else {
+                context.runOnContext(aVoid -> d.resolve((Void) null));
+            }
+        }
+
+    }
+
+}
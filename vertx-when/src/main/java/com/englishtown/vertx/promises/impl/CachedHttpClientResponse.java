@@ -0,0 +1,122 @@
+package com.englishtown.vertx.promises.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.CaseInsensitiveHeaders;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpFrame;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.net.NetSocket;
+
+import java.util.List;
+
+/**
+ * {@link HttpClientResponse} returned for a response served from the {@link ResponseCache}.  The body has already been
+ * read, so the stream handlers are never called and {@link #bodyHandler(Handler)} is called straight away.
+ */
+class CachedHttpClientResponse implements HttpClientResponse {
+
+    private static final MultiMap EMPTY_TRAILERS = new ReadOnlyMultiMap(new CaseInsensitiveHeaders());
+
+    private final int statusCode;
+    private final String statusMessage;
+    private final MultiMap headers;
+    private final Buffer body;
+
+    CachedHttpClientResponse(int statusCode, String statusMessage, MultiMap headers, Buffer body) {
+        this.statusCode = statusCode;
+        this.statusMessage = statusMessage;
+        // Callers share the cached entry, so they get a read only view of its headers
+        this.headers = new ReadOnlyMultiMap(headers);
+        this.body = body;
+    }
+
+    @Override
+    public HttpClientResponse exceptionHandler(Handler<Throwable> handler) {
+        return this;
+    }
+
+    @Override
+    public HttpClientResponse handler(Handler<Buffer> handler) {
+        return this;
+    }
+
+    @Override
+    public HttpClientResponse pause() {
+        return this;
+    }
+
+    @Override
+    public HttpClientResponse resume() {
+        return this;
+    }
+
+    @Override
+    public HttpClientResponse endHandler(Handler<Void> endHandler) {
+        return this;
+    }
+
+    @Override
+    public HttpVersion version() {
+        return HttpVersion.HTTP_1_1;
+    }
+
+    @Override
+    public int statusCode() {
+        return statusCode;
+    }
+
+    @Override
+    public String statusMessage() {
+        return statusMessage;
+    }
+
+    @Override
+    public MultiMap headers() {
+        return headers;
+    }
+
+    @Override
+    public String getHeader(String headerName) {
+        return headers.get(headerName);
+    }
+
+    @Override
+    public String getHeader(CharSequence headerName) {
+        return headers.get(headerName);
+    }
+
+    @Override
+    public String getTrailer(String trailerName) {
+        return null;
+    }
+
+    @Override
+    public MultiMap trailers() {
+        return EMPTY_TRAILERS;
+    }
+
+    @Override
+    public List<String> cookies() {
+        return headers.getAll(HttpHeaders.SET_COOKIE);
+    }
+
+    @Override
+    public HttpClientResponse bodyHandler(Handler<Buffer> bodyHandler) {
+        bodyHandler.handle(body);
+        return this;
+    }
+
+    @Override
+    public HttpClientResponse customFrameHandler(Handler<HttpFrame> handler) {
+        return this;
+    }
+
+    @Override
+    public NetSocket netSocket() {
+        throw new IllegalStateException("Cached responses have no connection");
+    }
+
+}
@@ -0,0 +1,254 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.vertx.promises.CircuitBreakerMetrics;
+import com.englishtown.vertx.promises.CircuitBreakerOptions;
+import com.englishtown.vertx.promises.CircuitBreakerState;
+import io.vertx.core.Handler;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker for a single host:port with a count based sliding window of call outcomes.  Shared across event
+ * loops, so all state is guarded by the instance monitor.
+ */
+public class CircuitBreaker implements CircuitBreakerMetrics {
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final String host;
+    private final float failureRateThreshold;
+    private final float slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final int minimumCalls;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final Handler<CircuitBreakerMetrics> stateHandler;
+    private final LongSupplier nanoClock;
+
+    private final byte[] window;
+    private int next;
+    private int buffered;
+    private int failedCalls;
+    private int slowCalls;
+
+    private CircuitBreakerState state = CircuitBreakerState.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+    private long rejectedCount;
+
+    public CircuitBreaker(String host, CircuitBreakerOptions options) {
+        this(host, options, System::nanoTime);
+    }
+
+    CircuitBreaker(String host, CircuitBreakerOptions options, LongSupplier nanoClock) {
+        this.host = host;
+        this.failureRateThreshold = options.getFailureRateThreshold();
+        this.slowCallRateThreshold = options.getSlowCallRateThreshold();
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(options.getSlowCallDuration());
+        this.minimumCalls = Math.min(options.getMinimumCalls(), options.getWindowSize());
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(options.getOpenDuration());
+        this.halfOpenProbes = options.getHalfOpenProbes();
+        this.stateHandler = options.getStateHandler();
+        this.nanoClock = nanoClock;
+        this.window = new byte[options.getWindowSize()];
+    }
+
+    /**
+     * Asks permission to send a request.  Every call returned must be completed or cancelled.
+     *
+     * @return the call, or null if the circuit is open
+     */
+    public Call tryAcquire() {
+        Call call = null;
+        boolean changed = false;
+
+        synchronized (this) {
+            if (state == CircuitBreakerState.OPEN && nanoClock.getAsLong() - openedAt >= openNanos) {
+                transition(CircuitBreakerState.HALF_OPEN);
+                changed = true;
+            }
+
+            if (state == CircuitBreakerState.CLOSED) {
+                call = new Call(generation);
+            } else if (state == CircuitBreakerState.HALF_OPEN && probesStarted < halfOpenProbes) {
+                probesStarted++;
+                call = new Call(generation);
+            } else {
+                rejectedCount++;
+            }
+        }
+
+        if (changed) {
+            notifyStateHandler();
+        }
+        return call;
+    }
+
+    private void complete(Call call, boolean failed, long durationNanos) {
+        boolean changed = false;
+
+        synchronized (this) {
+            if (call.done) {
+                return;
+            }
+            call.done = true;
+            if (call.generation != generation) {
+                // Started before the last state change
+                return;
+            }
+
+            boolean slow = durationNanos >= slowCallNanos;
+
+            if (state == CircuitBreakerState.HALF_OPEN) {
+                if (failed || slow) {
+                    transition(CircuitBreakerState.OPEN);
+                    changed = true;
+                } else if (++probesSucceeded >= halfOpenProbes) {
+                    transition(CircuitBreakerState.CLOSED);
+                    changed = true;
+                }
+            } else if (state == CircuitBreakerState.CLOSED) {
+                record((byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0)));
+                if (buffered >= minimumCalls
+                        && (rate(failedCalls) >= failureRateThreshold || rate(slowCalls) >= slowCallRateThreshold)) {
+                    transition(CircuitBreakerState.OPEN);
+                    changed = true;
+                }
+            }
+        }
+
+        if (changed) {
+            notifyStateHandler();
+        }
+    }
+
+    private synchronized void cancel(Call call) {
+        if (call.done) {
+            return;
+        }
+        call.done = true;
+        if (call.generation == generation && state == CircuitBreakerState.HALF_OPEN) {
+            // Let another probe through in place of the cancelled one
+            probesStarted--;
+        }
+    }
+
+    private void record(byte outcome) {
+        if (buffered == window.length) {
+            byte evicted = window[next];
+            if ((evicted & FAILED) != 0) {
+                failedCalls--;
+            }
+            if ((evicted & SLOW) != 0) {
+                slowCalls--;
+            }
+        } else {
+            buffered++;
+        }
+
+        window[next] = outcome;
+        next = (next + 1) % window.length;
+
+        if ((outcome & FAILED) != 0) {
+            failedCalls++;
+        }
+        if ((outcome & SLOW) != 0) {
+            slowCalls++;
+        }
+    }
+
+    private void transition(CircuitBreakerState newState) {
+        state = newState;
+        generation++;
+        probesStarted = 0;
+        probesSucceeded = 0;
+
+        if (newState == CircuitBreakerState.OPEN) {
+            openedAt = nanoClock.getAsLong();
+        } else if (newState == CircuitBreakerState.CLOSED) {
+            Arrays.fill(window, (byte) 0);
+            next = 0;
+            buffered = 0;
+            failedCalls = 0;
+            slowCalls = 0;
+        }
+    }
+
+    private float rate(int calls) {
+        return calls * 100f / buffered;
+    }
+
+    private void notifyStateHandler() {
+        if (stateHandler != null) {
+            stateHandler.handle(this);
+        }
+    }
+
+    @Override
+    public String getHost() {
+        return host;
+    }
+
+    @Override
+    public synchronized CircuitBreakerState getState() {
+        return state;
+    }
+
+    @Override
+    public synchronized float getFailureRate() {
+        return buffered < minimumCalls ? -1 : rate(failedCalls);
+    }
+
+    @Override
+    public synchronized float getSlowCallRate() {
+        return buffered < minimumCalls ? -1 : rate(slowCalls);
+    }
+
+    @Override
+    public synchronized int getBufferedCalls() {
+        return buffered;
+    }
+
+    @Override
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * A permitted request.  Only the first call to {@link #complete(boolean, long)} or {@link #cancel()} has any effect.
+     */
+    public class Call implements RequestOutcome {
+
+        private final long generation;
+        private boolean done;
+
+        private Call(long generation) {
+            this.generation = generation;
+        }
+
+        /**
+         * Records the outcome of the request
+         *
+         * @param failed        true if the request failed
+         * @param durationNanos the time until the response headers arrived or the request failed
+         */
+        @Override
+        public void complete(boolean failed, long durationNanos) {
+            CircuitBreaker.this.complete(this, failed, durationNanos);
+        }
+
+        /**
+         * Releases the call without recording an outcome, for example when the request was never sent
+         */
+        public void cancel() {
+            CircuitBreaker.this.cancel(this);
+        }
+
+    }
+
+}
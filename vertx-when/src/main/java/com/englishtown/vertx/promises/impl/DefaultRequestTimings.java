@@ -0,0 +1,138 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.vertx.promises.RequestTimings;
+import io.vertx.core.http.HttpMethod;
+
+/**
+ * Mutable {@link RequestTimings} filled in as a request progresses
+ */
+class DefaultRequestTimings implements RequestTimings {
+
+    private final String host;
+    private final HttpMethod method;
+    private final long queuedTime;
+    private int statusCode = -1;
+    private Throwable failure;
+    private boolean reset;
+    private long bytesWritten;
+    private long bytesRead;
+    private long createdTime = -1;
+    private long connectedTime = -1;
+    private long writtenTime = -1;
+    private long headersTime = -1;
+    private long firstByteTime = -1;
+    private long completeTime = -1;
+
+    DefaultRequestTimings(String host, HttpMethod method, long queuedTime) {
+        this.host = host;
+        this.method = method;
+        this.queuedTime = queuedTime;
+    }
+
+    void created() {
+        createdTime = System.nanoTime();
+    }
+
+    void connected() {
+        if (connectedTime < 0) {
+            connectedTime = System.nanoTime();
+        }
+    }
+
+    void written(long bytes) {
+        writtenTime = System.nanoTime();
+        bytesWritten = bytes;
+    }
+
+    void headers(int statusCode) {
+        headersTime = System.nanoTime();
+        this.statusCode = statusCode;
+    }
+
+    void read(long bytes) {
+        if (firstByteTime < 0 && bytes > 0) {
+            firstByteTime = System.nanoTime();
+        }
+        bytesRead += bytes;
+    }
+
+    void failed(Throwable t) {
+        failure = t;
+    }
+
+    void complete(boolean reset) {
+        this.reset = reset && failure == null;
+        completeTime = System.nanoTime();
+    }
+
+    @Override
+    public String getHost() {
+        return host;
+    }
+
+    @Override
+    public HttpMethod getMethod() {
+        return method;
+    }
+
+    @Override
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    @Override
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    @Override
+    public boolean isReset() {
+        return reset;
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public long getQueuedTime() {
+        return queuedTime;
+    }
+
+    @Override
+    public long getCreatedTime() {
+        return createdTime;
+    }
+
+    @Override
+    public long getConnectedTime() {
+        return connectedTime;
+    }
+
+    @Override
+    public long getWrittenTime() {
+        return writtenTime;
+    }
+
+    @Override
+    public long getHeadersTime() {
+        return headersTime;
+    }
+
+    @Override
+    public long getFirstByteTime() {
+        return firstByteTime;
+    }
+
+    @Override
+    public long getCompleteTime() {
+        return completeTime;
+    }
+
+}
@@ -1,23 +1,57 @@
 package com.englishtown.vertx.promises.impl;
 
 import com.englishtown.promises.Deferred;
+import com.englishtown.promises.HandlerState;
 import com.englishtown.promises.Promise;
+import com.englishtown.promises.State;
 import com.englishtown.promises.When;
+import com.englishtown.vertx.promises.BodyTooLargeException;
+import com.englishtown.vertx.promises.BulkheadMetrics;
+import com.englishtown.vertx.promises.BulkheadOptions;
+import com.englishtown.vertx.promises.CircuitBreakerMetrics;
+import com.englishtown.vertx.promises.CircuitBreakerOpenException;
+import com.englishtown.vertx.promises.CircuitBreakerOptions;
+import com.englishtown.vertx.promises.DeadlineExceededException;
+import com.englishtown.vertx.promises.EndpointGroupOptions;
+import com.englishtown.vertx.promises.FileDownload;
+import com.englishtown.vertx.promises.HedgePolicy;
 import com.englishtown.vertx.promises.HttpClientResponseAndBody;
+import com.englishtown.vertx.promises.HttpClientResponseAndJson;
+import com.englishtown.vertx.promises.MultipartBody;
+import com.englishtown.vertx.promises.RateLimitOptions;
+import com.englishtown.vertx.promises.RateLimitedException;
+import com.englishtown.vertx.promises.RequestCancelledException;
+import com.englishtown.vertx.promises.RequestDescriptor;
+import com.englishtown.vertx.promises.RequestListener;
 import com.englishtown.vertx.promises.RequestOptions;
+import com.englishtown.vertx.promises.ResponseCacheOptions;
+import com.englishtown.vertx.promises.RetryPolicy;
 import com.englishtown.vertx.promises.WhenHttpClient;
+import io.vertx.core.Context;
 import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.OpenOptions;
 import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
 import io.vertx.core.http.HttpClientRequest;
 import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpVersion;
 
 import javax.inject.Inject;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 /**
@@ -25,13 +59,48 @@ import java.util.function.Function;
  */
 public class DefaultWhenHttpClient implements WhenHttpClient {
 
+    private static final RequestOptions DEFAULT_OPTIONS = new RequestOptions().freeze();
+
     private final Vertx vertx;
     private final When when;
+    private final HttpClientRegistry clients;
+    private final JsonBodyDecoder jsonDecoder;
+    private final RequestListener requestListener;
+    private final ConcurrentMap<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, RetryBudget> retryBudgets = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatencyTracker> latencyTrackers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, EndpointGroup> endpointGroups = new ConcurrentHashMap<>();
+    private final ConcurrentMap<CoalesceKey, Promise<HttpClientResponseAndBody>> coalescedRequests = new ConcurrentHashMap<>();
+    private volatile ResponseCache responseCache;
 
     @Inject
     public DefaultWhenHttpClient(Vertx vertx, When when) {
+        this(vertx, when, new HttpClientRegistry(vertx));
+    }
+
+    /**
+     * @param vertx   the vertx instance
+     * @param when    the when instance
+     * @param clients the registry of shared clients used when {@link RequestOptions#getClient()} is not set
+     */
+    public DefaultWhenHttpClient(Vertx vertx, When when, HttpClientRegistry clients) {
+        this(vertx, when, clients, null);
+    }
+
+    /**
+     * @param vertx           the vertx instance
+     * @param when            the when instance
+     * @param clients         the registry of shared clients used when {@link RequestOptions#getClient()} is not set
+     * @param requestListener called with the phase timings of every request, may be null
+     */
+    public DefaultWhenHttpClient(Vertx vertx, When when, HttpClientRegistry clients, RequestListener requestListener) {
         this.vertx = vertx;
         this.when = when;
+        this.clients = clients;
+        this.requestListener = requestListener;
+        this.jsonDecoder = new JsonBodyDecoder(vertx, when);
     }
 
     @Override
@@ -41,8 +110,7 @@ public class DefaultWhenHttpClient implements WhenHttpClient {
 
     @Override
     public Promise<HttpClientResponse> request(HttpMethod method, int port, String host, String requestURI, RequestOptions options) {
-        RequestFunction func = client -> client.request(method, port, host, requestURI);
-        return doRequest(options, func);
+        return doRequest(RequestDescriptor.request(method, port, host, requestURI, options));
     }
 
     @Override
@@ -52,8 +120,7 @@ public class DefaultWhenHttpClient implements WhenHttpClient {
 
     @Override
     public Promise<HttpClientResponse> request(HttpMethod method, String host, String requestURI, RequestOptions options) {
-        RequestFunction func = client -> client.request(method, host, requestURI);
-        return doRequest(options, func);
+        return doRequest(RequestDescriptor.request(method, host, requestURI, options));
     }
 
     @Override
@@ -63,8 +130,7 @@ public class DefaultWhenHttpClient implements WhenHttpClient {
 
     @Override
     public Promise<HttpClientResponse> request(HttpMethod method, String requestURI, RequestOptions options) {
-        RequestFunction func = client -> client.request(method, requestURI);
-        return doRequest(options, func);
+        return doRequest(RequestDescriptor.request(method, requestURI, options));
     }
 
     @Override
@@ -74,8 +140,7 @@ public class DefaultWhenHttpClient implements WhenHttpClient {
 
     @Override
     public Promise<HttpClientResponseAndBody> requestAndReadBody(HttpMethod method, int port, String host, String requestURI, RequestOptions options) {
-        RequestFunction func = client -> client.request(method, port, host, requestURI);
-        return doRequestAndReadBody(options, func);
+        return doRequestAndReadBody(RequestDescriptor.request(method, port, host, requestURI, options));
     }
 
     @Override
@@ -85,8 +150,7 @@ public class DefaultWhenHttpClient implements WhenHttpClient {
 
     @Override
     public Promise<HttpClientResponseAndBody> requestAndReadBody(HttpMethod method, String host, String requestURI, RequestOptions options) {
-        RequestFunction func = client -> client.request(method, host, requestURI);
-        return doRequestAndReadBody(options, func);
+        return doRequestAndReadBody(RequestDescriptor.request(method, host, requestURI, options));
     }
 
     @Override
@@ -96,8 +160,7 @@ public class DefaultWhenHttpClient implements WhenHttpClient {
 
     @Override
     public Promise<HttpClientResponseAndBody> requestAndReadBody(HttpMethod method, String requestURI, RequestOptions options) {
-        RequestFunction func = client -> client.request(method, requestURI);
-        return doRequestAndReadBody(options, func);
+        return doRequestAndReadBody(RequestDescriptor.request(method, requestURI, options));
     }
 
     @Override
@@ -107,8 +170,7 @@ public class DefaultWhenHttpClient implements WhenHttpClient {
 
     @Override
     public Promise<HttpClientResponse> requestAbs(HttpMethod method, String absoluteURI, RequestOptions options) {
-        RequestFunction func = client -> client.requestAbs(method, absoluteURI);
-        return doRequest(options, func);
+        return doRequest(RequestDescriptor.requestAbs(method, absoluteURI, options));
     }
 
     @Override
@@ -118,96 +180,528 @@ public class DefaultWhenHttpClient implements WhenHttpClient {
 
     @Override
     public Promise<HttpClientResponseAndBody> requestAbsAndReadBody(HttpMethod method, String absoluteURI, RequestOptions options) {
-        RequestFunction func = client -> client.requestAbs(method, absoluteURI);
-        return doRequestAndReadBody(options, func);
+        return doRequestAndReadBody(RequestDescriptor.requestAbs(method, absoluteURI, options));
+    }
+
+    @Override
+    public Promise<HttpClientResponse> request(RequestDescriptor request) {
+        return doRequest(request);
+    }
+
+    @Override
+    public Promise<HttpClientResponseAndBody> requestAndReadBody(RequestDescriptor request) {
+        return doRequestAndReadBody(request);
+    }
+
+    @Override
+    public Promise<List<HttpClientResponseAndBody>> requestAllAndReadBody(List<RequestDescriptor> requests, int maxInFlight, boolean failFast) {
+        Objects.requireNonNull(requests);
+        return new RequestBatch(when, requests, maxInFlight, failFast, this::doRequestAndReadBody).run();
+    }
+
+    @Override
+    public <T> Promise<HttpClientResponseAndJson<T>> requestAndReadJson(RequestDescriptor request, Class<T> type) {
+        Objects.requireNonNull(request);
+        Objects.requireNonNull(type);
+        long threshold = getOptions(request).getJsonWorkerThreshold();
+        return doRequestAndReadBody(request).then(responseAndBody -> jsonDecoder.decode(responseAndBody, type, threshold));
+    }
+
+    private Promise<HttpClientResponse> doRequest(RequestDescriptor descriptor) {
+        return doRequest(descriptor, getOptions(descriptor));
     }
 
-    private Promise<HttpClientResponse> doRequest(RequestOptions options, RequestFunction requestFunction) {
+    private Promise<HttpClientResponse> doRequest(RequestDescriptor descriptor, RequestOptions options) {
 
-        if (options == null) {
-            options = new RequestOptions();
+        if (options.getCancellationToken() == null) {
+            return doRequest(descriptor, options, null);
+        }
+        RequestCancellation cancellation = new RequestCancellation(when, options.getCancellationToken());
+        return cancellation.run(() -> doRequest(descriptor, options, cancellation));
+    }
+
+    private Promise<HttpClientResponse> doRequest(RequestDescriptor descriptor, RequestOptions options, RequestCancellation cancellation) {
+
+        RetryPolicy retryPolicy = options.getRetryPolicy();
+
+        if (retryPolicy == null || !retryPolicy.canRetry(descriptor.getMethod()) || options.getBodyStream() != null) {
+            return doRequestAttempt(descriptor, options, cancellation);
         }
 
+        return new RetryingRequest<>(
+                vertx,
+                when,
+                retryPolicy,
+                getRetryBudget(descriptor, options),
+                options.getDeadline(),
+                cancellation,
+                () -> doRequestAttempt(descriptor, options, cancellation),
+                HttpClientResponse::statusCode,
+                this::discard).run();
+    }
+
+    private Promise<HttpClientResponse> doRequestAttempt(RequestDescriptor descriptor, RequestOptions options, RequestCancellation cancellation) {
+
         Deferred<HttpClientResponse> d = when.defer();
-        RequestOptions finalOptions = options;
 
         Handler<HttpClientRequestContext> handler = context -> {
-            HttpClientResponse response = context.getResponse();
+            HttpClientResponse response = new ContextHttpClientResponse(context.getResponse(), context);
 
-            if (context.shouldCloseClient()) {
-                HttpClient client = context.getClient();
-
-                response.endHandler(aVoid -> {
-                    client.close();
-                    context.setCloseClient(false);
-                });
+            if (context.needsRelease()) {
+                // Releases the request resources at the end of the response
+                response.endHandler(null);
             }
 
-            if (finalOptions.getPauseResponse()) {
+            if (options.getPauseResponse()) {
                 response.pause();
             }
 
-            d.resolve(HttpClientResponseProxy.newInstance(response, context));
+            d.resolve(response);
         };
 
-        return innerDoRequest(options, requestFunction, handler, d::reject, d.getPromise());
+        return send(descriptor, options, cancellation, handler, d);
     }
 
-    private Promise<HttpClientResponseAndBody> doRequestAndReadBody(RequestOptions options, RequestFunction requestFunction) {
+    private Promise<HttpClientResponseAndBody> doRequestAndReadBody(RequestDescriptor descriptor) {
 
-        if (options == null) {
-            options = new RequestOptions();
-        }
+        RequestOptions options = getOptions(descriptor);
 
         if (options.getPauseResponse()) {
             throw new IllegalStateException("Cannot pause response when reading body");
         }
 
+        ResponseCache cache = getResponseCache(options);
+        if (cache != null && descriptor.getMethod() == HttpMethod.GET && !ResponseCache.isNoStore(options.getMultiMapHeaders())) {
+            return doCachedRequestAndReadBody(descriptor, options, cache);
+        }
+
+        return doRequestAndReadBody(descriptor, options);
+    }
+
+    private Promise<HttpClientResponseAndBody> doCachedRequestAndReadBody(
+            RequestDescriptor descriptor,
+            RequestOptions options,
+            ResponseCache cache) {
+
+        String key = getCacheKey(descriptor, options);
+        MultiMap requestHeaders = options.getMultiMapHeaders();
+        ResponseCache.Entry entry = cache.get(key, requestHeaders);
+
+        if (entry == null) {
+            return doRequestAndReadBody(descriptor, options).then(responseAndBody -> {
+                cache.put(key, requestHeaders, responseAndBody.getResponse(), responseAndBody.getBody());
+                return when.resolve(responseAndBody);
+            });
+        }
+
+        if (cache.isFresh(entry) && !ResponseCache.isNoCache(requestHeaders)) {
+            return when.resolve(entry.toResponseAndBody());
+        }
+
+        // Revalidate the stale entry with a conditional request
+        RequestOptions conditional = options;
+        if (entry.getETag() != null || entry.getLastModified() != null) {
+            conditional = new RequestOptions(options);
+            if (entry.getETag() != null) {
+                conditional.addHeader(HttpHeaders.IF_NONE_MATCH.toString(), entry.getETag());
+            }
+            if (entry.getLastModified() != null) {
+                conditional.addHeader(HttpHeaders.IF_MODIFIED_SINCE.toString(), entry.getLastModified());
+            }
+        }
+
+        return doRequestAndReadBody(descriptor, conditional).then(responseAndBody -> {
+            HttpClientResponse response = responseAndBody.getResponse();
+            if (response.statusCode() == 304) {
+                return when.resolve(cache.revalidated(entry, response).toResponseAndBody());
+            }
+            cache.put(key, requestHeaders, response, responseAndBody.getBody());
+            return when.resolve(responseAndBody);
+        });
+    }
+
+    private Promise<HttpClientResponseAndBody> doRequestAndReadBody(RequestDescriptor descriptor, RequestOptions options) {
+
+        if (!canCoalesce(descriptor, options)) {
+            return doUncoalescedRequestAndReadBody(descriptor, options);
+        }
+
+        CoalesceKey key = getCoalesceKey(descriptor, options);
+        Deferred<HttpClientResponseAndBody> d = when.defer();
+        Promise<HttpClientResponseAndBody> inFlight = coalescedRequests.putIfAbsent(key, d.getPromise());
+        if (inFlight != null) {
+            // Each caller gets its own read only view so one can't change the body seen by the others
+            return inFlight.then(responseAndBody -> when.resolve(ReadOnlyBuffers.view(responseAndBody)));
+        }
+
+        Promise<HttpClientResponseAndBody> p;
+        try {
+            p = doUncoalescedRequestAndReadBody(descriptor, options);
+        } catch (RuntimeException e) {
+            p = when.reject(e);
+        }
+
+        p.then(
+                responseAndBody -> {
+                    coalescedRequests.remove(key, d.getPromise());
+                    d.resolve(responseAndBody);
+                    return null;
+                },
+                t -> {
+                    coalescedRequests.remove(key, d.getPromise());
+                    d.reject(t);
+                    return null;
+                });
+
+        return d.getPromise().then(responseAndBody -> when.resolve(ReadOnlyBuffers.view(responseAndBody)));
+    }
+
+    private Promise<HttpClientResponseAndBody> doUncoalescedRequestAndReadBody(RequestDescriptor descriptor, RequestOptions options) {
+
+        if (options.getCancellationToken() == null) {
+            return doUncoalescedRequestAndReadBody(descriptor, options, null);
+        }
+        RequestCancellation cancellation = new RequestCancellation(when, options.getCancellationToken());
+        return cancellation.run(() -> doUncoalescedRequestAndReadBody(descriptor, options, cancellation));
+    }
+
+    private Promise<HttpClientResponseAndBody> doUncoalescedRequestAndReadBody(
+            RequestDescriptor descriptor,
+            RequestOptions options,
+            RequestCancellation cancellation) {
+
+        RetryPolicy retryPolicy = options.getRetryPolicy();
+
+        if (retryPolicy == null || !retryPolicy.canRetry(descriptor.getMethod()) || options.getBodyStream() != null) {
+            return doRequestAndReadBodyAttempt(descriptor, options, cancellation);
+        }
+
+        return new RetryingRequest<HttpClientResponseAndBody>(
+                vertx,
+                when,
+                retryPolicy,
+                getRetryBudget(descriptor, options),
+                options.getDeadline(),
+                cancellation,
+                () -> doRequestAndReadBodyAttempt(descriptor, options, cancellation),
+                responseAndBody -> responseAndBody.getResponse().statusCode(),
+                responseAndBody -> {
+                }).run();
+    }
+
+    private Promise<HttpClientResponseAndBody> doRequestAndReadBodyAttempt(
+            RequestDescriptor descriptor,
+            RequestOptions options,
+            RequestCancellation cancellation) {
+
         Deferred<HttpClientResponseAndBody> d = when.defer();
 
         Handler<HttpClientRequestContext> handler = context -> {
-            HttpClientResponse response = context.getResponse();
-            response.bodyHandler(body -> {
-                if (context.shouldCloseClient()) {
-                    context.getClient().close();
-                    context.setCloseClient(false);
-                }
+            readBody(context, context.getResponse(), body -> {
+                context.release();
                 context.setBody(body);
                 d.resolve(context);
+            }, d::reject);
+        };
+
+        return send(descriptor, options, cancellation, handler, d);
+    }
+
+    /**
+     * Sends the request, hedging it if the options have a {@link HedgePolicy}
+     */
+    private <T> Promise<T> send(
+            RequestDescriptor descriptor,
+            RequestOptions options,
+            RequestCancellation cancellation,
+            Handler<HttpClientRequestContext> responseHandler,
+            Deferred<T> d) {
+
+        HedgePolicy hedgePolicy = options.getHedgePolicy();
+
+        if (hedgePolicy == null || !hedgePolicy.canHedge(descriptor.getMethod()) || options.getBodyStream() != null) {
+            return innerDoRequest(new HttpClientRequestContext(), descriptor, options, cancellation, responseHandler, d::reject,
+                    d.getPromise());
+        }
+
+        LatencyTracker latency = getLatencyTracker(descriptor, options);
+
+        HedgedRequest.Attempt attempt = (context, onResponse, onFailure) -> {
+            // A reset loser is the slow request.  Its elapsed time is a lower bound on its latency, recording it keeps
+            // the tracked percentile from drifting down to the latency of the winners.
+            context.addReleaseHandler(() -> {
+                if (context.isReset() && context.getRequest() != null && context.getResponse() == null) {
+                    latency.record(System.nanoTime() - context.getStartTime());
+                }
             });
+            return innerDoRequest(
+                    context,
+                    descriptor,
+                    options,
+                    cancellation,
+                    ctx -> {
+                        latency.record(System.nanoTime() - ctx.getStartTime());
+                        onResponse.handle(ctx);
+                    },
+                    onFailure,
+                    when.resolve((Void) null));
         };
 
-        return innerDoRequest(options, requestFunction, handler, d::reject, d.getPromise());
+        return new HedgedRequest<>(vertx, when, getHedgeDelay(hedgePolicy, latency), d, attempt).run(responseHandler);
+    }
+
+    private long getHedgeDelay(HedgePolicy policy, LatencyTracker latency) {
+        if (policy.getPercentile() > 0) {
+            long delay = latency.getPercentile(policy.getPercentile());
+            if (delay >= 0) {
+                return delay;
+            }
+        }
+        return policy.getDelay();
     }
 
     private <T> Promise<T> innerDoRequest(
+            HttpClientRequestContext context,
+            RequestDescriptor requested,
             RequestOptions options,
-            RequestFunction requestFunction,
+            RequestCancellation cancellation,
             Handler<HttpClientRequestContext> responseHandler,
             Handler<Throwable> exceptionHandler,
             Promise<T> promise) {
 
         Objects.requireNonNull(options);
-        Objects.requireNonNull(requestFunction);
         Objects.requireNonNull(responseHandler);
 
-        HttpClientRequestContext context = getContext(options, requestFunction);
+        // The queued phase includes any rate limit and bulkhead wait
+        long queuedTime = System.nanoTime();
+        RateLimiter rateLimiter = getRateLimiter(requested, options);
+        if (rateLimiter != null) {
+            long wait = rateLimiter.acquire();
+            if (wait < 0) {
+                return when.reject(new RateLimitedException(rateLimiter.getHost(), TimeUnit.NANOSECONDS.toMillis(-wait) + 1));
+            }
+            if (wait > 0) {
+                long waitMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait));
+                if (options.getDeadline() >= 0 && waitMs >= options.getRemainingTime()) {
+                    // The permit could not be used before the deadline
+                    rateLimiter.release();
+                    return when.reject(new DeadlineExceededException(options.getDeadline()));
+                }
+                Deferred<Void> d = when.defer();
+                long timerId = vertx.setTimer(waitMs, id -> d.resolve((Void) null));
+                if (cancellation != null) {
+                    Runnable remove = cancellation.add(() -> {
+                        if (vertx.cancelTimer(timerId)) {
+                            rateLimiter.release();
+                        }
+                    });
+                    d.getPromise().ensure(remove);
+                }
+                return d.getPromise().then(aVoid -> acquiredRequest(context, requested, options, cancellation, rateLimiter,
+                        queuedTime, responseHandler, exceptionHandler, promise));
+            }
+        }
+
+        return acquiredRequest(context, requested, options, cancellation, rateLimiter, queuedTime, responseHandler,
+                exceptionHandler, promise);
+    }
+
+    private <T> Promise<T> acquiredRequest(
+            HttpClientRequestContext context,
+            RequestDescriptor requested,
+            RequestOptions options,
+            RequestCancellation cancellation,
+            RateLimiter rateLimiter,
+            long queuedTime,
+            Handler<HttpClientRequestContext> responseHandler,
+            Handler<Throwable> exceptionHandler,
+            Promise<T> promise) {
+
+        // Checked after any rate limit wait
+        long deadline = options.getDeadline();
+        if (deadline >= 0 && options.getRemainingTime() == 0) {
+            return rejectUnsent(rateLimiter, new DeadlineExceededException(deadline));
+        }
+        if (cancellation != null && cancellation.isCancelled()) {
+            return rejectUnsent(rateLimiter, new RequestCancelledException());
+        }
+
+        RequestDescriptor descriptor = requested;
+        EndpointGroup.Call endpointCall = null;
+        if (requested.getGroup() != null) {
+            EndpointGroup group = endpointGroups.get(requested.getGroup());
+            if (group == null) {
+                return rejectUnsent(rateLimiter, new IllegalArgumentException("Unknown endpoint group " + requested.getGroup()));
+            }
+            endpointCall = group.start();
+            context.addReleaseHandler(endpointCall::cancel);
+            descriptor = requested.toEndpoint(endpointCall.getHost(), endpointCall.getPort());
+        }
+
+        CircuitBreaker.Call call = null;
+        CircuitBreaker circuitBreaker = getCircuitBreaker(descriptor, options);
+        if (circuitBreaker != null) {
+            call = circuitBreaker.tryAcquire();
+            if (call == null) {
+                context.release();
+                return rejectUnsent(rateLimiter, new CircuitBreakerOpenException(circuitBreaker.getHost()));
+            }
+            context.addReleaseHandler(call::cancel);
+        }
+
+        if (requestListener != null) {
+            context.setTimings(new DefaultRequestTimings(getHostKey(descriptor, options), descriptor.getMethod(), queuedTime));
+        }
+
+        RequestOutcome outcome = RequestOutcome.both(call, endpointCall);
+        if (deadline >= 0) {
+            startDeadline(context, deadline, outcome, exceptionHandler);
+        }
+        if (cancellation != null) {
+            context.addReleaseHandler(cancellation.add(() -> {
+                if (context.needsRelease()) {
+                    abort(context, new RequestCancelledException(), exceptionHandler);
+                }
+            }));
+        }
+
+        RequestDescriptor endpoint = descriptor;
+        Bulkhead bulkhead = getBulkhead(descriptor, options);
+        if (bulkhead != null) {
+            Promise<Void> queued = bulkhead.acquire();
+            if (queued != null) {
+                // A cancelled or expired request leaves the queue straight away
+                context.addReleaseHandler(() -> bulkhead.cancel(queued));
+                return queued.then(
+                        aVoid -> startRequest(context, endpoint, options, bulkhead, outcome, responseHandler, exceptionHandler, promise),
+                        t -> {
+                            if (context.isReset()) {
+                                // Already failed with the reason for the reset
+                                return promise;
+                            }
+                            context.release();
+                            return when.reject(t);
+                        });
+            }
+        }
+
+        return startRequest(context, descriptor, options, bulkhead, outcome, responseHandler, exceptionHandler, promise);
+    }
+
+    /**
+     * Rejects a request that will not be sent, giving back its rate limit permit so an open circuit breaker or a
+     * passed deadline doesn't use up the rate limit
+     */
+    private <T> Promise<T> rejectUnsent(RateLimiter rateLimiter, Throwable t) {
+        if (rateLimiter != null) {
+            rateLimiter.release();
+        }
+        return when.reject(t);
+    }
+
+    /**
+     * Resets the request and fails it with a {@link DeadlineExceededException} if it has not been released by the
+     * deadline
+     */
+    private void startDeadline(
+            HttpClientRequestContext context,
+            long deadline,
+            RequestOutcome outcome,
+            Handler<Throwable> exceptionHandler) {
+
+        long start = System.nanoTime();
+        long timerId = vertx.setTimer(Math.max(1, deadline - System.currentTimeMillis()), id -> {
+            if (!context.needsRelease()) {
+                return;
+            }
+            if (outcome != null) {
+                outcome.complete(true, System.nanoTime() - start);
+            }
+            abort(context, new DeadlineExceededException(deadline), exceptionHandler);
+        });
+        context.addReleaseHandler(() -> vertx.cancelTimer(timerId));
+    }
+
+    private void abort(HttpClientRequestContext context, Throwable t, Handler<Throwable> exceptionHandler) {
+        if (context.getTimings() != null) {
+            context.getTimings().failed(t);
+        }
+        context.reset();
+        exceptionHandler.handle(t);
+    }
+
+    private <T> Promise<T> startRequest(
+            HttpClientRequestContext context,
+            RequestDescriptor descriptor,
+            RequestOptions options,
+            Bulkhead bulkhead,
+            RequestOutcome attemptOutcome,
+            Handler<HttpClientRequestContext> responseHandler,
+            Handler<Throwable> exceptionHandler,
+            Promise<T> promise) {
+
+        RequestOutcome outcome = bulkhead == null
+                ? attemptOutcome
+                // An adaptive bulkhead tunes its limit from the outcome
+                : RequestOutcome.both(attemptOutcome, bulkhead.startOutcome());
+        if (bulkhead != null) {
+            context.addReleaseHandler(bulkhead::release);
+        }
+
+        if (context.isReset()) {
+            // Reset while waiting for a bulkhead slot
+            context.release();
+            return promise;
+        }
+
+        try {
+            initContext(context, descriptor, options);
+        } catch (RuntimeException e) {
+            context.release();
+            throw e;
+        }
+
         HttpClientRequest request = context.getRequest();
 
         Objects.requireNonNull(request);
 
+        DefaultRequestTimings timings = context.getTimings();
+        if (timings != null) {
+            timings.created();
+            context.addReleaseHandler(() -> {
+                timings.complete(context.isReset());
+                requestListener.onComplete(timings);
+            });
+        }
+
         request
                 .handler(response -> {
+                    if (outcome != null) {
+                        outcome.complete(response.statusCode() >= 500, System.nanoTime() - context.getStartTime());
+                    }
+                    if (timings != null) {
+                        timings.headers(response.statusCode());
+                    }
                     context.setResponse(response);
                     responseHandler.handle(context);
                 })
-                .exceptionHandler(exceptionHandler);
+                .exceptionHandler(t -> {
+                    if (outcome != null) {
+                        outcome.complete(true, System.nanoTime() - context.getStartTime());
+                    }
+                    if (timings != null) {
+                        timings.failed(t);
+                    }
+                    context.release();
+                    exceptionHandler.handle(t);
+                });
 
         if (options.getChunked()) {
             request.setChunked(true);
         }
-        if (options.getMultiMapHeaders() != null) {
-            request.headers().addAll(options.getMultiMapHeaders());
+        options.addHeadersTo(request.headers());
+        if (options.getDeadlineHeader() != null && options.getDeadline() >= 0) {
+            request.headers().set(options.getDeadlineHeader(), String.valueOf(options.getRemainingTime()));
         }
         if (options.getTimeout() > 0) {
             request.setTimeout(options.getTimeout());
@@ -219,143 +713,483 @@ public class DefaultWhenHttpClient implements WhenHttpClient {
         if (options.getSetupHandler() != null) {
             return when.resolve(options.getSetupHandler().apply(request))
                     .then(aVoid -> {
-                        end(request, options);
+                        if (!context.isReset()) {
+                            end(context, options, exceptionHandler);
+                        }
                         return promise;
+                    }, t -> {
+                        context.release();
+                        return when.reject(t);
                     });
         } else {
-            end(request, options);
+            end(context, options, exceptionHandler);
             return promise;
         }
 
     }
 
-    private HttpClientRequestContext getContext(RequestOptions options, RequestFunction requestFunction) {
+    private void initContext(HttpClientRequestContext context, RequestDescriptor descriptor, RequestOptions options) {
 
-        HttpClientRequestContext context = new HttpClientRequestContext();
         HttpClient client;
-        boolean closeClient;
+        HttpClientRegistry.Lease lease = null;
 
         if (options.getClient() != null) {
-            closeClient = false;
             client = options.getClient();
         } else {
-            closeClient = true;
-            if (options.getClientOptions() != null) {
-                client = vertx.createHttpClient(options.getClientOptions());
-            } else {
-                client = vertx.createHttpClient();
+            lease = clients.acquire(options.getEffectiveClientOptions());
+            client = lease.getClient();
+        }
+
+        HttpClientRequest request;
+        try {
+            request = createRequest(client, descriptor);
+        } catch (RuntimeException e) {
+            if (lease != null) {
+                lease.release();
             }
+            throw e;
         }
 
-        HttpClientRequest request = requestFunction.apply(client);
+        if (lease != null) {
+            context.addReleaseHandler(lease::release);
+        }
 
-        return context
-                .setOptions(options)
-                .setCloseClient(closeClient)
+        context.setOptions(options)
                 .setClient(client)
-                .setRequest(request);
+                .setRequest(request)
+                .setStartTime(System.nanoTime());
+    }
+
+    private RequestOptions getOptions(RequestDescriptor descriptor) {
+        RequestOptions options = descriptor.getOptions();
+        return options == null ? DEFAULT_OPTIONS : options;
+    }
+
+    /**
+     * Drains and releases a response that will not be returned to the caller
+     */
+    private void discard(HttpClientResponse response) {
+        response.handler(chunk -> {
+        }).endHandler(null).resume();
+    }
+
+    private LatencyTracker getLatencyTracker(RequestDescriptor descriptor, RequestOptions options) {
+        String host = getHostKey(descriptor, options);
+        return latencyTrackers.computeIfAbsent(host, key -> new LatencyTracker());
+    }
+
+    private RetryBudget getRetryBudget(RequestDescriptor descriptor, RequestOptions options) {
+        double ratio = options.getRetryPolicy().getRetryBudgetRatio();
+        if (ratio < 0) {
+            return null;
+        }
+        String host = getHostKey(descriptor, options);
+        return retryBudgets.computeIfAbsent(host, key -> new RetryBudget(ratio));
+    }
+
+    private ResponseCache getResponseCache(RequestOptions options) {
+        ResponseCacheOptions cacheOptions = options.getResponseCache();
+        if (cacheOptions == null) {
+            return null;
+        }
+        ResponseCache cache = responseCache;
+        if (cache == null) {
+            synchronized (this) {
+                if (responseCache == null) {
+                    responseCache = new ResponseCache(cacheOptions);
+                }
+                cache = responseCache;
+            }
+        }
+        return cache;
+    }
+
+    private CircuitBreaker getCircuitBreaker(RequestDescriptor descriptor, RequestOptions options) {
+        CircuitBreakerOptions circuitBreakerOptions = options.getCircuitBreaker();
+        if (circuitBreakerOptions == null) {
+            return null;
+        }
+        String host = getHostKey(descriptor, options);
+        return circuitBreakers.computeIfAbsent(host, key -> new CircuitBreaker(key, circuitBreakerOptions));
+    }
+
+    private RateLimiter getRateLimiter(RequestDescriptor descriptor, RequestOptions options) {
+        RateLimitOptions rateLimitOptions = options.getRateLimit();
+        if (rateLimitOptions == null) {
+            return null;
+        }
+        String host = getHostKey(descriptor, options);
+        return rateLimiters.computeIfAbsent(host, key -> new RateLimiter(key, rateLimitOptions));
+    }
+
+    private Bulkhead getBulkhead(RequestDescriptor descriptor, RequestOptions options) {
+        BulkheadOptions bulkheadOptions = options.getBulkhead();
+        if (bulkheadOptions == null) {
+            return null;
+        }
+        String host = getHostKey(descriptor, options);
+        return bulkheads.computeIfAbsent(host, key -> new Bulkhead(vertx, when, key, bulkheadOptions));
+    }
+
+    private boolean canCoalesce(RequestDescriptor descriptor, RequestOptions options) {
+        HttpMethod method = descriptor.getMethod();
+        return options.getCoalesce()
+                && (method == HttpMethod.GET || method == HttpMethod.HEAD)
+                && options.getData() == null
+                && options.getBodyStream() == null
+                && options.getSetupHandler() == null
+                && options.getCancellationToken() == null
+                // Another caller's deadline must not fail this one
+                && options.getDeadline() < 0;
+    }
+
+    private CoalesceKey getCoalesceKey(RequestDescriptor descriptor, RequestOptions options) {
+        StringBuilder key = new StringBuilder(descriptor.getMethod().name())
+                .append(' ')
+                .append(getCacheKey(descriptor, options));
+
+        MultiMap headers = options.getMultiMapHeaders();
+        if (headers != null && !headers.isEmpty()) {
+            // Header order is not significant
+            List<String> entries = new ArrayList<>();
+            headers.forEach(header -> entries.add(header.getKey().toLowerCase() + ":" + header.getValue()));
+            Collections.sort(entries);
+            entries.forEach(entry -> key.append('\n').append(entry));
+        }
+
+        // Options that change how the shared request is sent or read must match too
+        key.append("\nmaxBodyBytes:").append(options.getMaxBodyBytes())
+                .append("\ntimeout:").append(options.getTimeout());
+        // Followers are resolved on the first caller's context, so only callers on the same context share a request
+        return new CoalesceKey(key.toString(), Vertx.currentContext(), options.getClientOptions(), options.getClient(),
+                options.getHttp2(), options.getRetryPolicy(), options.getHedgePolicy());
+    }
+
+    private String getCacheKey(RequestDescriptor descriptor, RequestOptions options) {
+        if (descriptor.getAbsoluteURI() != null) {
+            return descriptor.getAbsoluteURI();
+        }
+        HttpClientOptions clientOptions = options.getClientOptions();
+        String scheme = (clientOptions != null && clientOptions.isSsl()) ? "https://" : "http://";
+        return scheme + getHostKey(descriptor, options) + descriptor.getRequestURI();
+    }
+
+    /**
+     * Returns the host:port the request will be sent to, or the group name for endpoint group requests
+     */
+    private String getHostKey(RequestDescriptor descriptor, RequestOptions options) {
+        if (descriptor.getGroup() != null) {
+            // Retry budgets, hedge latency and cache keys are shared by the group, the rest are per endpoint
+            return descriptor.getGroup();
+        }
+        if (descriptor.getAbsoluteURI() != null) {
+            URI uri = URI.create(descriptor.getAbsoluteURI());
+            int port = uri.getPort();
+            if (port < 0) {
+                port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+            }
+            return uri.getHost() + ":" + port;
+        }
+
+        HttpClientOptions clientOptions = options.getClientOptions();
+        String host = descriptor.getHost();
+        int port = descriptor.getPort();
+
+        if (host == null) {
+            host = clientOptions == null ? HttpClientOptions.DEFAULT_DEFAULT_HOST : clientOptions.getDefaultHost();
+        }
+        if (port < 0) {
+            port = clientOptions == null ? HttpClientOptions.DEFAULT_DEFAULT_PORT : clientOptions.getDefaultPort();
+        }
+        return host + ":" + port;
+    }
+
+    private HttpClientRequest createRequest(HttpClient client, RequestDescriptor descriptor) {
+        HttpMethod method = descriptor.getMethod();
+
+        if (descriptor.getAbsoluteURI() != null) {
+            return client.requestAbs(method, descriptor.getAbsoluteURI());
+        } else if (descriptor.getHost() == null) {
+            return client.request(method, descriptor.getRequestURI());
+        } else if (descriptor.getPort() < 0) {
+            return client.request(method, descriptor.getHost(), descriptor.getRequestURI());
+        } else {
+            return client.request(method, descriptor.getPort(), descriptor.getHost(), descriptor.getRequestURI());
+        }
     }
 
-    private void end(HttpClientRequest request, RequestOptions options) {
+    private void end(HttpClientRequestContext context, RequestOptions options, Handler<Throwable> exceptionHandler) {
+        HttpClientRequest request = context.getRequest();
+
+        MultipartBody multipartBody = options.getMultipartBody();
+        if (multipartBody != null) {
+            MultiMap headers = request.headers();
+            if (!headers.contains(HttpHeaders.CONTENT_TYPE)) {
+                headers.set(HttpHeaders.CONTENT_TYPE, multipartBody.getContentType());
+            }
+            if (multipartBody.getLength() >= 0 && !request.isChunked() && !headers.contains(HttpHeaders.CONTENT_LENGTH)) {
+                headers.set(HttpHeaders.CONTENT_LENGTH, String.valueOf(multipartBody.getLength()));
+            }
+        }
+
+        DefaultRequestTimings timings = context.getTimings();
+        if (timings == null) {
+            writeBody(context, options, exceptionHandler);
+            return;
+        }
+
+        // The client only reports new connections, so the head is sent once any connection, new or pooled, is
+        // assigned and the body is written from there.  The head can't change after that, so the body framing is set
+        // first.
+        if (options.getBodyStream() != null) {
+            RequestBodyPump.setChunkedIfNoLength(request);
+        } else if (options.getData() != null && !request.isChunked() && !request.headers().contains(HttpHeaders.CONTENT_LENGTH)) {
+            request.headers().set(HttpHeaders.CONTENT_LENGTH, String.valueOf(options.getData().length()));
+        }
+        request.sendHead(version -> {
+            if (context.isReset()) {
+                return;
+            }
+            timings.connected();
+            writeBody(context, options, exceptionHandler);
+        });
+    }
+
+    private void writeBody(HttpClientRequestContext context, RequestOptions options, Handler<Throwable> exceptionHandler) {
+        HttpClientRequest request = context.getRequest();
+
+        if (options.getBodyStream() != null) {
+            RequestBodyPump pump = new RequestBodyPump(options.getBodyStream(), request, t -> {
+                context.reset();
+                exceptionHandler.handle(t);
+            }, bytes -> {
+                if (context.getTimings() != null) {
+                    context.getTimings().written(bytes);
+                }
+            });
+            // Failures, resets, deadlines and cancellation all release the context
+            context.addReleaseHandler(pump::abort);
+            pump.start();
+            return;
+        }
+
         if (options.getData() != null) {
             request.end(options.getData());
         } else {
             request.end();
         }
+
+        if (context.getTimings() != null) {
+            context.getTimings().written(options.getData() == null ? 0 : options.getData().length());
+        }
     }
 
     @Override
     public Promise<Buffer> body(HttpClientResponse response) {
         Deferred<Buffer> d = when.defer();
-        Promise<Buffer> p = d.getPromise();
 
         // Set the body handler and resume the response
-        response.bodyHandler(d::resolve).resume();
-
         if (response instanceof HttpClientResponseContext) {
             HttpClientRequestContext context = ((HttpClientResponseContext) response).getContext();
-            if (context.shouldCloseClient()) {
-                p = p.then(body -> {
-                    if (context.shouldCloseClient()) {
-                        context.getClient().close();
-                        context.setCloseClient(false);
-                    }
-                    return when.resolve(body);
-                });
-            }
+            // Read the unwrapped response, readBody releases the context and counts the body bytes itself
+            readBody(context, context.getResponse(), body -> {
+                context.release();
+                d.resolve(body);
+            }, d::reject);
+        } else {
+            response.bodyHandler(d::resolve);
         }
+        response.resume();
 
-        return p;
+        return d.getPromise();
     }
 
-    private static class HttpClientRequestContext implements HttpClientResponseAndBody {
+    /**
+     * Reads the full response body, enforcing {@link RequestOptions#getMaxBodyBytes()}.  The body is aggregated with a
+     * {@link BodyAggregator} rather than {@link HttpClientResponse#bodyHandler(Handler)} so it is not regrown and
+     * copied as chunks arrive.
+     */
+    private void readBody(
+            HttpClientRequestContext context,
+            HttpClientResponse response,
+            Handler<Buffer> bodyHandler,
+            Handler<Throwable> exceptionHandler) {
+
+        long maxBodyBytes = context.getOptions().getMaxBodyBytes();
+        DefaultRequestTimings timings = context.getTimings();
+
+        String contentLength = response.getHeader(HttpHeaders.CONTENT_LENGTH);
+        if (contentLength != null && maxBodyBytes >= 0) {
+            try {
+                long length = Long.parseLong(contentLength);
+                if (length > maxBodyBytes) {
+                    context.reset();
+                    exceptionHandler.handle(new BodyTooLargeException(maxBodyBytes, length));
+                    return;
+                }
+            } catch (NumberFormatException e) {
+                // Ignore and enforce the limit while reading
+            }
+        }
 
-        private RequestOptions options;
-        private HttpClient client;
-        private boolean closeClient;
-        private HttpClientRequest request;
-        private HttpClientResponse response;
-        private Buffer body;
+        BodyAggregator body = new BodyAggregator(contentLength, maxBodyBytes);
+        boolean[] aborted = {false};
 
-        public HttpClient getClient() {
-            return client;
-        }
+        // Fails the body read if the connection is closed, for example when the request deadline resets it
+        response.exceptionHandler(t -> {
+            if (!aborted[0]) {
+                aborted[0] = true;
+                exceptionHandler.handle(t);
+            }
+        });
 
-        public HttpClientRequestContext setClient(HttpClient client) {
-            this.client = client;
-            return this;
-        }
+        response.handler(chunk -> {
+            if (aborted[0]) {
+                return;
+            }
+            if (timings != null) {
+                timings.read(chunk.length());
+            }
+            if (maxBodyBytes >= 0 && body.length() + chunk.length() > maxBodyBytes) {
+                aborted[0] = true;
+                context.reset();
+                exceptionHandler.handle(new BodyTooLargeException(maxBodyBytes, body.length() + chunk.length()));
+                return;
+            }
+            body.append(chunk);
+        });
 
-        public boolean shouldCloseClient() {
-            return closeClient;
-        }
+        response.endHandler(aVoid -> {
+            if (!aborted[0]) {
+                bodyHandler.handle(body.toBuffer());
+            }
+        });
+    }
 
-        public HttpClientRequestContext setCloseClient(boolean closeClient) {
-            this.closeClient = closeClient;
-            return this;
-        }
+    @Override
+    public Promise<Long> streamBody(HttpClientResponse response, Function<Buffer, Promise<Void>> chunkHandler) {
+        Objects.requireNonNull(response);
+        Objects.requireNonNull(chunkHandler);
 
+        return new ResponseBodyPump(when, response, chunkHandler, onBodyComplete(response), onBodyAbort(response)).start();
+    }
 
-        public RequestOptions getOptions() {
-            return options;
-        }
+    @Override
+    public Promise<FileDownload> download(RequestDescriptor request, String path, OpenOptions openOptions, boolean fsync) {
+        Objects.requireNonNull(request);
+        Objects.requireNonNull(path);
+        Objects.requireNonNull(openOptions);
+
+        // The response must stay paused until the file is open
+        RequestOptions options = new RequestOptions(getOptions(request)).setPauseResponse(true);
+
+        return doRequest(request, options).then(response -> new ResponseFileWriter(
+                vertx,
+                when,
+                response,
+                path,
+                openOptions,
+                fsync,
+                onBodyComplete(response),
+                onBodyAbort(response)).start());
+    }
 
-        public HttpClientRequestContext setOptions(RequestOptions options) {
-            this.options = options;
-            return this;
+    private Runnable onBodyComplete(HttpClientResponse response) {
+        if (response instanceof HttpClientResponseContext) {
+            return ((HttpClientResponseContext) response).getContext()::release;
         }
+        return () -> {
+        };
+    }
 
-        public HttpClientRequest getRequest() {
-            return request;
+    private Runnable onBodyAbort(HttpClientResponse response) {
+        if (response instanceof HttpClientResponseContext) {
+            return ((HttpClientResponseContext) response).getContext()::reset;
         }
+        // Without the request the connection can't be reset, so drain the remaining body instead
+        return () -> response.handler(chunk -> {
+        }).resume();
+    }
 
-        public HttpClientRequestContext setRequest(HttpClientRequest request) {
-            this.request = request;
-            return this;
+    @Override
+    public Promise<Integer> warmUp(RequestDescriptor request, int connections) {
+        if (connections <= 0) {
+            throw new IllegalArgumentException("connections must be greater than 0");
         }
 
-        @Override
-        public HttpClientResponse getResponse() {
-            return response;
+        RequestOptions options = getOptions(request);
+        HttpClientOptions clientOptions = options.getEffectiveClientOptions();
+        if (options.getClient() == null && request.getGroup() == null) {
+            if (clientOptions == null) {
+                clientOptions = new HttpClientOptions();
+            }
+            int maxPoolSize = clientOptions.getProtocolVersion() == HttpVersion.HTTP_2
+                    ? clientOptions.getHttp2MaxPoolSize()
+                    : clientOptions.getMaxPoolSize();
+            if (connections > maxPoolSize) {
+                throw new IllegalArgumentException("connections must not be greater than the max pool size " + maxPoolSize);
+            }
         }
 
-        public HttpClientRequestContext setResponse(HttpClientResponse response) {
-            this.response = response;
-            return this;
-        }
+        AtomicInteger opened = new AtomicInteger();
+        Function<HttpClientRequest, Promise<Void>> setupHandler = options.getSetupHandler();
+
+        // Each request must use its own connection so none are coalesced, cached or hedged.  Warm-up requests are not
+        // real traffic, so they are not retried or counted by the circuit breaker, rate limiter or bulkhead.
+        RequestOptions warmUpOptions = new RequestOptions(options)
+                .setPauseResponse(true)
+                .setCoalesce(false)
+                .setResponseCache(null)
+                .setHedgePolicy(null)
+                .setRetryPolicy(null)
+                .setCircuitBreaker(null)
+                .setRateLimit(null)
+                .setBulkhead(null)
+                .setSetupHandler(clientRequest -> {
+                    clientRequest.connectionHandler(connection -> opened.incrementAndGet());
+                    return setupHandler == null ? when.resolve((Void) null) : setupHandler.apply(clientRequest);
+                });
+        RequestDescriptor descriptor = request.withOptions(warmUpOptions);
 
-        @Override
-        public Buffer getBody() {
-            return body;
+        List<Promise<Buffer>> requests = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            requests.add(doRequest(descriptor).then(this::body));
         }
 
-        public HttpClientRequestContext setBody(Buffer body) {
-            this.body = body;
-            return this;
-        }
+        // Waits for every request so none are still opening connections when the promise settles
+        return when.settle(requests).then(states -> {
+            for (State<Buffer> state : states) {
+                if (state.getState() == HandlerState.REJECTED) {
+                    return when.reject(state.getReason());
+                }
+            }
+            return when.resolve(opened.get());
+        });
     }
 
-    private interface RequestFunction extends Function<HttpClient, HttpClientRequest> {
+    @Override
+    public void addEndpointGroup(String name, EndpointGroupOptions options) {
+        endpointGroups.put(Objects.requireNonNull(name), new EndpointGroup(name, options));
+    }
+
+    @Override
+    public void removeEndpointGroup(String name) {
+        endpointGroups.remove(name);
+    }
+
+    @Override
+    public Map<String, BulkheadMetrics> getBulkheadMetrics() {
+        return Collections.unmodifiableMap(bulkheads);
+    }
+
+    @Override
+    public Map<String, CircuitBreakerMetrics> getCircuitBreakerMetrics() {
+        return Collections.unmodifiableMap(circuitBreakers);
+    }
+
+    @Override
+    public void close() {
+        clients.close();
     }
 
     private interface HttpClientResponseContext {
@@ -364,37 +1198,109 @@ public class DefaultWhenHttpClient implements WhenHttpClient {
 
     }
 
-    private static class HttpClientResponseProxy implements java.lang.reflect.InvocationHandler {
+    private static class ContextHttpClientResponse extends HttpClientResponseDelegate implements HttpClientResponseContext {
 
-        private HttpClientResponse response;
-        private HttpClientRequestContext context;
+        private final HttpClientRequestContext context;
 
-        public static HttpClientResponse newInstance(HttpClientResponse response, HttpClientRequestContext context) {
+        private ContextHttpClientResponse(HttpClientResponse response, HttpClientRequestContext context) {
+            super(response);
+            this.context = context;
+        }
 
-            Object proxy = java.lang.reflect.Proxy.newProxyInstance(
-                    response.getClass().getClassLoader(),
-                    new Class[]{HttpClientResponse.class, HttpClientResponseContext.class},
-                    new HttpClientResponseProxy(response, context));
+        @Override
+        public HttpClientRequestContext getContext() {
+            return context;
+        }
+
+        @Override
+        public HttpClientResponse endHandler(Handler<Void> endHandler) {
+            return super.endHandler(aVoid -> {
+                context.release();
+                if (endHandler != null) {
+                    endHandler.handle(aVoid);
+                }
+            });
+        }
+
+        @Override
+        public HttpClientResponse handler(Handler<Buffer> handler) {
+            DefaultRequestTimings timings = context.getTimings();
+            if (timings == null || handler == null) {
+                return super.handler(handler);
+            }
+            return super.handler(chunk -> {
+                timings.read(chunk.length());
+                handler.handle(chunk);
+            });
+        }
 
-            return (HttpClientResponse) proxy;
+        @Override
+        public HttpClientResponse bodyHandler(Handler<Buffer> bodyHandler) {
+            // The wrapped bodyHandler replaces the end handler, so release here as well
+            return super.bodyHandler(body -> {
+                if (context.getTimings() != null) {
+                    context.getTimings().read(body.length());
+                }
+                context.release();
+                bodyHandler.handle(body);
+            });
         }
+    }
+
+    /**
+     * Key of a coalesced request: the request line and headers, the calling context and client options, plus the
+     * client and policy instances.  The client options are compared by value, the rest by identity.
+     */
+    private static class CoalesceKey {
+
+        private final String request;
+        private final Context context;
+        private final HttpClientOptions clientOptions;
+        private final Object[] shared;
+        private final int hash;
 
-        private HttpClientResponseProxy(HttpClientResponse response, HttpClientRequestContext context) {
-            this.response = response;
+        private CoalesceKey(String request, Context context, HttpClientOptions clientOptions, Object... shared) {
+            this.request = request;
             this.context = context;
+            // Hold a copy so later changes to the caller's options can't change the hash
+            this.clientOptions = clientOptions == null ? null : new HttpClientOptions(clientOptions);
+            this.shared = shared;
+            int hash = 31 * request.hashCode() + System.identityHashCode(context);
+            hash = 31 * hash + HttpClientRegistry.hash(clientOptions);
+            for (Object o : shared) {
+                hash = 31 * hash + System.identityHashCode(o);
+            }
+            this.hash = hash;
         }
 
-        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
-            try {
-                if (m.getDeclaringClass() == HttpClientResponseContext.class) {
-                    return context;
-                } else {
-                    return m.invoke(response, args);
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CoalesceKey)) {
+                return false;
+            }
+            CoalesceKey other = (CoalesceKey) o;
+            if (!request.equals(other.request)
+                    || context != other.context
+                    || !Objects.equals(clientOptions, other.clientOptions)
+                    || shared.length != other.shared.length) {
+                return false;
+            }
+            for (int i = 0; i < shared.length; i++) {
+                if (shared[i] != other.shared[i]) {
+                    return false;
                 }
-            } catch (InvocationTargetException e) {
-                throw e.getTargetException();
             }
+            return true;
         }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
     }
 
 }
@@ -0,0 +1,250 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.vertx.promises.EndpointGroupOptions;
+import com.englishtown.vertx.promises.LoadBalancingStrategy;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Balances requests across the endpoints of a named group and ejects endpoints that fail repeatedly.  Shared across
+ * event loops, so endpoint selection and outcomes are guarded by the instance monitor.
+ */
+class EndpointGroup {
+
+    /**
+     * Weight of the latest sample in the moving average latency
+     */
+    private static final double EWMA_WEIGHT = 0.3;
+
+    private final String name;
+    private final LoadBalancingStrategy strategy;
+    private final int consecutiveFailures;
+    private final long ejectionNanos;
+    private final int maxEjected;
+    private final LongSupplier nanoClock;
+    private final Endpoint[] endpoints;
+
+    private int next;
+    private int ejected;
+
+    EndpointGroup(String name, EndpointGroupOptions options) {
+        this(name, options, System::nanoTime);
+    }
+
+    EndpointGroup(String name, EndpointGroupOptions options, LongSupplier nanoClock) {
+        List<String> hostPorts = options.getEndpoints();
+        if (hostPorts.isEmpty()) {
+            throw new IllegalArgumentException("Endpoint group " + name + " has no endpoints");
+        }
+
+        this.name = name;
+        this.strategy = options.getStrategy();
+        this.consecutiveFailures = options.getConsecutiveFailures();
+        this.ejectionNanos = TimeUnit.MILLISECONDS.toNanos(options.getEjectionDuration());
+        this.nanoClock = nanoClock;
+        this.endpoints = new Endpoint[hostPorts.size()];
+        for (int i = 0; i < endpoints.length; i++) {
+            String hostPort = hostPorts.get(i);
+            int separator = hostPort.lastIndexOf(':');
+            endpoints[i] = new Endpoint(hostPort.substring(0, separator), Integer.parseInt(hostPort.substring(separator + 1)));
+        }
+
+        int percent = options.getMaxEjectionPercent();
+        this.maxEjected = percent == 0 ? 0 : Math.max(1, endpoints.length * percent / 100);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Chooses an endpoint and starts a call to it.  The call must be completed or cancelled.
+     *
+     * @return the call
+     */
+    synchronized Call start() {
+        long now = nanoClock.getAsLong();
+        reinstate(now);
+
+        // When every endpoint is ejected spread the requests across all of them
+        boolean all = ejected == endpoints.length;
+        Endpoint endpoint;
+
+        switch (strategy) {
+            case ROUND_ROBIN:
+                endpoint = roundRobin(all);
+                break;
+            case LEAST_OUTSTANDING:
+                endpoint = leastOutstanding(all);
+                break;
+            default:
+                endpoint = powerOfTwoChoices(all);
+                break;
+        }
+
+        endpoint.outstanding++;
+        return new Call(endpoint);
+    }
+
+    private void reinstate(long now) {
+        if (ejected == 0) {
+            return;
+        }
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.ejected && now - endpoint.ejectedAt >= ejectionNanos) {
+                endpoint.ejected = false;
+                endpoint.failures = 0;
+                ejected--;
+            }
+        }
+    }
+
+    private Endpoint roundRobin(boolean all) {
+        int start = next;
+        next = (next + 1) % endpoints.length;
+        for (int i = 0; i < endpoints.length; i++) {
+            Endpoint endpoint = endpoints[(start + i) % endpoints.length];
+            if (all || !endpoint.ejected) {
+                return endpoint;
+            }
+        }
+        return endpoints[start];
+    }
+
+    private Endpoint leastOutstanding(boolean all) {
+        // Start from a random endpoint so ties are spread evenly
+        int start = ThreadLocalRandom.current().nextInt(endpoints.length);
+        Endpoint best = null;
+        for (int i = 0; i < endpoints.length; i++) {
+            Endpoint endpoint = endpoints[(start + i) % endpoints.length];
+            if ((all || !endpoint.ejected) && (best == null || endpoint.outstanding < best.outstanding)) {
+                best = endpoint;
+            }
+        }
+        return best;
+    }
+
+    private Endpoint powerOfTwoChoices(boolean all) {
+        int available = all ? endpoints.length : endpoints.length - ejected;
+        if (available == 1) {
+            return leastOutstanding(all);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(available);
+        int second = random.nextInt(available - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        Endpoint a = nthAvailable(first, all);
+        Endpoint b = nthAvailable(second, all);
+        return b.cost() < a.cost() ? b : a;
+    }
+
+    private Endpoint nthAvailable(int n, boolean all) {
+        for (Endpoint endpoint : endpoints) {
+            if (all || !endpoint.ejected) {
+                if (n-- == 0) {
+                    return endpoint;
+                }
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private synchronized void complete(Call call, boolean failed, long durationNanos) {
+        if (call.done) {
+            return;
+        }
+        call.done = true;
+
+        Endpoint endpoint = call.endpoint;
+        endpoint.outstanding--;
+
+        if (!failed) {
+            endpoint.failures = 0;
+            endpoint.ewmaNanos = endpoint.ewmaNanos < 0
+                    ? durationNanos
+                    : endpoint.ewmaNanos + EWMA_WEIGHT * (durationNanos - endpoint.ewmaNanos);
+            return;
+        }
+
+        endpoint.failures++;
+        if (consecutiveFailures > 0
+                && endpoint.failures >= consecutiveFailures
+                && !endpoint.ejected
+                && ejected < maxEjected) {
+            endpoint.ejected = true;
+            endpoint.ejectedAt = nanoClock.getAsLong();
+            ejected++;
+        }
+    }
+
+    private synchronized void cancel(Call call) {
+        if (!call.done) {
+            call.done = true;
+            call.endpoint.outstanding--;
+        }
+    }
+
+    private static class Endpoint {
+
+        private final String host;
+        private final int port;
+        private int outstanding;
+        private int failures;
+        private double ewmaNanos = -1;
+        private boolean ejected;
+        private long ejectedAt;
+
+        private Endpoint(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+
+        // Endpoints without a latency sample yet are preferred so they are measured
+        private double cost() {
+            return (Math.max(ewmaNanos, 0) + 1) * (outstanding + 1);
+        }
+
+    }
+
+    /**
+     * A request attempt to one endpoint of the group
+     */
+    class Call implements RequestOutcome {
+
+        private final Endpoint endpoint;
+        private boolean done;
+
+        private Call(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        String getHost() {
+            return endpoint.host;
+        }
+
+        int getPort() {
+            return endpoint.port;
+        }
+
+        @Override
+        public void complete(boolean failed, long durationNanos) {
+            EndpointGroup.this.complete(this, failed, durationNanos);
+        }
+
+        /**
+         * Releases the call without recording an outcome, for example when the request was never sent
+         */
+        void cancel() {
+            EndpointGroup.this.cancel(this);
+        }
+
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.promises.Deferred;
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.When;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+
+/**
+ * Sends a request and, if no response has arrived after a delay, a second identical request.  The first response wins
+ * and the other request is reset.  The request only fails once every attempt that was started has failed.
+ *
+ * @param <T> the request result type
+ */
+class HedgedRequest<T> {
+
+    /**
+     * Starts a single attempt for a context
+     */
+    @FunctionalInterface
+    interface Attempt {
+        /**
+         * @param context    the attempt context, may be reset before the request is sent
+         * @param onResponse called with the context when the response arrives
+         * @param onFailure  called if the request fails after it was sent
+         * @return a promise that rejects if the request could not be sent
+         */
+        Promise<Void> start(HttpClientRequestContext context, Handler<HttpClientRequestContext> onResponse, Handler<Throwable> onFailure);
+    }
+
+    private final Vertx vertx;
+    private final When when;
+    private final long delayMs;
+    private final Deferred<T> d;
+    private final Attempt attempt;
+
+    private HttpClientRequestContext primary;
+    private HttpClientRequestContext hedge;
+    private HttpClientRequestContext winner;
+    private Handler<HttpClientRequestContext> responseHandler;
+    private long timerId = -1;
+    private boolean primaryFailed;
+    private boolean hedgeFailed;
+    private boolean done;
+
+    /**
+     * @param vertx   the vertx instance used for the hedge timer
+     * @param when    the when instance
+     * @param delayMs the delay before the hedge request is sent
+     * @param d       the deferred for the request result, rejected if every attempt fails
+     * @param attempt starts an attempt
+     */
+    HedgedRequest(Vertx vertx, When when, long delayMs, Deferred<T> d, Attempt attempt) {
+        this.vertx = vertx;
+        this.when = when;
+        this.delayMs = Math.max(1, delayMs);
+        this.d = d;
+        this.attempt = attempt;
+    }
+
+    /**
+     * @param responseHandler called with the context of the winning response
+     * @return the request promise
+     */
+    Promise<T> run(Handler<HttpClientRequestContext> responseHandler) {
+        this.responseHandler = responseHandler;
+
+        HttpClientRequestContext context = new HttpClientRequestContext();
+        synchronized (this) {
+            primary = context;
+        }
+        start(context);
+
+        synchronized (this) {
+            if (!done && winner == null) {
+                timerId = vertx.setTimer(delayMs, id -> startHedge());
+            }
+        }
+
+        return d.getPromise();
+    }
+
+    private void startHedge() {
+        HttpClientRequestContext context = new HttpClientRequestContext();
+        synchronized (this) {
+            timerId = -1;
+            if (done || winner != null) {
+                return;
+            }
+            hedge = context;
+        }
+        start(context);
+    }
+
+    private void start(HttpClientRequestContext context) {
+        Promise<Void> p;
+        try {
+            p = attempt.start(context, this::onResponse, t -> onFailure(context, t));
+        } catch (RuntimeException e) {
+            p = when.reject(e);
+        }
+
+        p.then(null, t -> {
+            onFailure(context, t);
+            return null;
+        });
+    }
+
+    private void onResponse(HttpClientRequestContext context) {
+        HttpClientRequestContext loser;
+
+        synchronized (this) {
+            if (done || winner != null) {
+                loser = context;
+            } else {
+                winner = context;
+                loser = (context == primary ? hedge : primary);
+                cancelTimer();
+            }
+        }
+
+        if (loser != null) {
+            loser.reset();
+        }
+        if (loser != context) {
+            responseHandler.handle(context);
+        }
+    }
+
+    private void onFailure(HttpClientRequestContext context, Throwable t) {
+        synchronized (this) {
+            if (done || winner != null) {
+                return;
+            }
+            if (context == primary) {
+                primaryFailed = true;
+            } else {
+                hedgeFailed = true;
+            }
+            // Wait for the other attempt if it is still in flight
+            if (hedge != null && !(primaryFailed && hedgeFailed)) {
+                return;
+            }
+            done = true;
+            cancelTimer();
+        }
+
+        d.reject(t);
+    }
+
+    private void cancelTimer() {
+        if (timerId != -1) {
+            vertx.cancelTimer(timerId);
+            timerId = -1;
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.vertx.promises.RequestListener;
+import com.englishtown.vertx.promises.RequestTimings;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RequestListener} that records the duration of each request phase, in microseconds, into a
+ * {@link LatencyHistogram} per host:port
+ */
+public class HistogramRequestListener implements RequestListener {
+
+    /**
+     * Request phases
+     */
+    public enum Phase {
+        /**
+         * Waiting for a rate limit token or a bulkhead slot
+         */
+        QUEUE,
+        /**
+         * Waiting for a pooled or new connection
+         */
+        CONNECT,
+        /**
+         * Writing the request
+         */
+        WRITE,
+        /**
+         * From the request being written until the response headers arrive
+         */
+        WAIT,
+        /**
+         * Reading the response body
+         */
+        BODY,
+        /**
+         * The whole request from being queued until the body is complete
+         */
+        TOTAL
+    }
+
+    private final ConcurrentMap<String, Map<Phase, LatencyHistogram>> histograms = new ConcurrentHashMap<>();
+
+    @Override
+    public void onComplete(RequestTimings timings) {
+        Map<Phase, LatencyHistogram> host = histograms.computeIfAbsent(timings.getHost(), key -> {
+            Map<Phase, LatencyHistogram> map = new EnumMap<>(Phase.class);
+            for (Phase phase : Phase.values()) {
+                map.put(phase, new LatencyHistogram());
+            }
+            return Collections.unmodifiableMap(map);
+        });
+
+        long created = timings.getCreatedTime();
+        long connected = timings.getConnectedTime();
+        long written = timings.getWrittenTime();
+        long headers = timings.getHeadersTime();
+        boolean succeeded = timings.getFailure() == null && !timings.isReset();
+
+        record(host, Phase.QUEUE, timings.getQueuedTime(), created);
+        record(host, Phase.CONNECT, created, connected);
+        record(host, Phase.WRITE, connected < 0 ? created : connected, written);
+        record(host, Phase.WAIT, written, headers);
+        if (succeeded) {
+            record(host, Phase.BODY, headers, timings.getCompleteTime());
+            record(host, Phase.TOTAL, timings.getQueuedTime(), timings.getCompleteTime());
+        }
+    }
+
+    private void record(Map<Phase, LatencyHistogram> host, Phase phase, long start, long end) {
+        if (start >= 0 && end >= 0) {
+            host.get(phase).record(TimeUnit.NANOSECONDS.toMicros(end - start));
+        }
+    }
+
+    /**
+     * @param host the host:port
+     * @return the phase histograms for the host, or null if no requests to it have completed
+     */
+    public Map<Phase, LatencyHistogram> getHistograms(String host) {
+        return histograms.get(host);
+    }
+
+    /**
+     * @return a live view of the phase histograms keyed by host:port
+     */
+    public Map<String, Map<Phase, LatencyHistogram>> getHistograms() {
+        return Collections.unmodifiableMap(histograms);
+    }
+
+}
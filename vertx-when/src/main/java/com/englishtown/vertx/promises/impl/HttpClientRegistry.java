@@ -0,0 +1,238 @@
+package com.englishtown.vertx.promises.impl;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registry of shared {@link HttpClient} instances keyed by {@link HttpClientOptions} and the calling vert.x context.
+ * <p>
+ * Clients are created on first use and kept open so their connection pools are reused across requests.  Clients with
+ * no requests in flight are closed once they have been idle longer than the idle timeout.
+ */
+public class HttpClientRegistry {
+
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = 60_000;
+
+    private final Vertx vertx;
+    private final long idleTimeoutMs;
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private long timerId = -1;
+
+    public HttpClientRegistry(Vertx vertx) {
+        this(vertx, DEFAULT_IDLE_TIMEOUT_MS);
+    }
+
+    /**
+     * @param vertx         the vertx instance used to create clients and schedule eviction
+     * @param idleTimeoutMs how long a client may go unused before it is closed
+     */
+    public HttpClientRegistry(Vertx vertx, long idleTimeoutMs) {
+        if (idleTimeoutMs <= 0) {
+            throw new IllegalArgumentException("idleTimeoutMs must be greater than 0");
+        }
+        this.vertx = vertx;
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    /**
+     * Acquires a lease on a shared client for the current context.  The lease must be released when the request is complete.
+     *
+     * @param options the client options, or null for the defaults
+     * @return a lease for the shared client
+     */
+    public Lease acquire(HttpClientOptions options) {
+        Key key = new Key(Vertx.currentContext(), options);
+
+        for (; ; ) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                // The stored key holds its own copy so later changes to the caller's options can't change its hash
+                HttpClientOptions copy = options == null ? null : new HttpClientOptions(options);
+                entry = entries.computeIfAbsent(new Key(key.context, copy), k -> new Entry(createClient(copy)));
+            }
+            if (entry.tryAcquire()) {
+                startEvictionTimer();
+                return new Lease(entry);
+            }
+            // Lost a race with eviction, remove the closed entry and try again
+            entries.remove(key, entry);
+        }
+    }
+
+    /**
+     * Closes all idle clients that have not been used within the idle timeout
+     */
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+
+        entries.forEach((key, entry) -> {
+            if (entry.tryEvict(now, idleTimeoutMs)) {
+                entries.remove(key, entry);
+                closeClient(entry.client);
+            }
+        });
+
+        if (entries.isEmpty()) {
+            stopEvictionTimer();
+        }
+    }
+
+    /**
+     * Closes all clients regardless of whether they are in use
+     */
+    public void close() {
+        stopEvictionTimer();
+
+        entries.forEach((key, entry) -> {
+            entries.remove(key, entry);
+            entry.inFlight.set(-1);
+            closeClient(entry.client);
+        });
+    }
+
+    /**
+     * @return the number of clients currently held by the registry
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private HttpClient createClient(HttpClientOptions options) {
+        return options == null ? vertx.createHttpClient() : vertx.createHttpClient(options);
+    }
+
+    private void closeClient(HttpClient client) {
+        try {
+            client.close();
+        } catch (IllegalStateException e) {
+            // Already closed, for example when the verticle that created it was undeployed
+        }
+    }
+
+    private synchronized void startEvictionTimer() {
+        if (timerId == -1) {
+            long period = Math.max(1, idleTimeoutMs / 2);
+            timerId = vertx.setPeriodic(period, id -> evictIdle());
+        }
+    }
+
+    private synchronized void stopEvictionTimer() {
+        if (timerId != -1) {
+            vertx.cancelTimer(timerId);
+            timerId = -1;
+        }
+    }
+
+    /**
+     * A lease on a shared client.  Releasing more than once has no effect.
+     */
+    public static class Lease {
+
+        private final Entry entry;
+        // Requests can complete on a different event loop from the one that acquired the lease
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        public HttpClient getClient() {
+            return entry.client;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                entry.release();
+            }
+        }
+
+    }
+
+    private static class Entry {
+
+        private final HttpClient client;
+        // Number of leases outstanding, -1 once the client has been closed
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private Entry(HttpClient client) {
+            this.client = client;
+        }
+
+        private boolean tryAcquire() {
+            for (; ; ) {
+                int count = inFlight.get();
+                if (count < 0) {
+                    return false;
+                }
+                if (inFlight.compareAndSet(count, count + 1)) {
+                    lastUsed = System.currentTimeMillis();
+                    return true;
+                }
+            }
+        }
+
+        private void release() {
+            lastUsed = System.currentTimeMillis();
+            inFlight.decrementAndGet();
+        }
+
+        private boolean tryEvict(long now, long idleTimeoutMs) {
+            return now - lastUsed >= idleTimeoutMs && inFlight.compareAndSet(0, -1);
+        }
+
+    }
+
+    /**
+     * HttpClientOptions.hashCode() is not consistent with equals(), so hash a subset of the compared fields instead
+     *
+     * @param options the client options, may be null
+     * @return a hash consistent with {@link HttpClientOptions#equals(Object)}
+     */
+    static int hash(HttpClientOptions options) {
+        if (options == null) {
+            return 0;
+        }
+        return Objects.hash(options.getDefaultHost(), options.getDefaultPort(), options.isSsl(),
+                options.getProtocolVersion(), options.getMaxPoolSize(), options.isKeepAlive());
+    }
+
+    private static class Key {
+
+        private final Context context;
+        private final HttpClientOptions options;
+        private final int hash;
+
+        private Key(Context context, HttpClientOptions options) {
+            this.context = context;
+            this.options = options;
+            this.hash = 31 * System.identityHashCode(context) + hash(options);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return context == other.context && Objects.equals(options, other.options);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.vertx.promises.HttpClientResponseAndBody;
+import com.englishtown.vertx.promises.RequestOptions;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * State of a single http client request attempt, from creating the request through to reading the response
+ */
+class HttpClientRequestContext implements HttpClientResponseAndBody {
+
+    private RequestOptions options;
+    private HttpClient client;
+    private List<Runnable> releaseHandlers;
+    private HttpClientRequest request;
+    private HttpClientResponse response;
+    private Buffer body;
+    private long startTime;
+    private boolean reset;
+    private DefaultRequestTimings timings;
+
+    public HttpClient getClient() {
+        return client;
+    }
+
+    public HttpClientRequestContext setClient(HttpClient client) {
+        this.client = client;
+        return this;
+    }
+
+    public boolean needsRelease() {
+        return releaseHandlers != null;
+    }
+
+    /**
+     * Adds a handler to run once when the request completes, for example to return a shared client or bulkhead slot
+     */
+    public HttpClientRequestContext addReleaseHandler(Runnable handler) {
+        if (releaseHandlers == null) {
+            releaseHandlers = new ArrayList<>(2);
+        }
+        releaseHandlers.add(handler);
+        return this;
+    }
+
+    /**
+     * Resets the request, closing the connection, and releases the request resources.  If the request has not been
+     * created yet it will not be sent.
+     */
+    public void reset() {
+        if (reset) {
+            return;
+        }
+        reset = true;
+        if (request != null) {
+            request.reset();
+        }
+        release();
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} the request was started
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public HttpClientRequestContext setStartTime(long startTime) {
+        this.startTime = startTime;
+        return this;
+    }
+
+    /**
+     * Runs the release handlers.  Only the first call has any effect.
+     */
+    public void release() {
+        List<Runnable> handlers = releaseHandlers;
+        if (handlers != null) {
+            releaseHandlers = null;
+            handlers.forEach(Runnable::run);
+        }
+    }
+
+    public RequestOptions getOptions() {
+        return options;
+    }
+
+    public HttpClientRequestContext setOptions(RequestOptions options) {
+        this.options = options;
+        return this;
+    }
+
+    /**
+     * @return the request timings, or null if no {@link com.englishtown.vertx.promises.RequestListener} is set
+     */
+    public DefaultRequestTimings getTimings() {
+        return timings;
+    }
+
+    public HttpClientRequestContext setTimings(DefaultRequestTimings timings) {
+        this.timings = timings;
+        return this;
+    }
+
+    public HttpClientRequest getRequest() {
+        return request;
+    }
+
+    public HttpClientRequestContext setRequest(HttpClientRequest request) {
+        this.request = request;
+        return this;
+    }
+
+    @Override
+    public HttpClientResponse getResponse() {
+        return response;
+    }
+
+    public HttpClientRequestContext setResponse(HttpClientResponse response) {
+        this.response = response;
+        return this;
+    }
+
+    @Override
+    public Buffer getBody() {
+        return body;
+    }
+
+    public HttpClientRequestContext setBody(Buffer body) {
+        this.body = body;
+        return this;
+    }
+}
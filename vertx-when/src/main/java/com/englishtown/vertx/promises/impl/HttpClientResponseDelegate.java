@@ -0,0 +1,124 @@
+package com.englishtown.vertx.promises.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpFrame;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.net.NetSocket;
+
+import java.util.List;
+
+/**
+ * {@link HttpClientResponse} that forwards every call to a wrapped response.  Fluent methods return this wrapper rather
+ * than the wrapped response so callers keep hold of the wrapper.
+ */
+public class HttpClientResponseDelegate implements HttpClientResponse {
+
+    private final HttpClientResponse delegate;
+
+    public HttpClientResponseDelegate(HttpClientResponse delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * @return the wrapped response
+     */
+    public HttpClientResponse getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public HttpClientResponse exceptionHandler(Handler<Throwable> handler) {
+        delegate.exceptionHandler(handler);
+        return this;
+    }
+
+    @Override
+    public HttpClientResponse handler(Handler<Buffer> handler) {
+        delegate.handler(handler);
+        return this;
+    }
+
+    @Override
+    public HttpClientResponse pause() {
+        delegate.pause();
+        return this;
+    }
+
+    @Override
+    public HttpClientResponse resume() {
+        delegate.resume();
+        return this;
+    }
+
+    @Override
+    public HttpClientResponse endHandler(Handler<Void> endHandler) {
+        delegate.endHandler(endHandler);
+        return this;
+    }
+
+    @Override
+    public HttpVersion version() {
+        return delegate.version();
+    }
+
+    @Override
+    public int statusCode() {
+        return delegate.statusCode();
+    }
+
+    @Override
+    public String statusMessage() {
+        return delegate.statusMessage();
+    }
+
+    @Override
+    public MultiMap headers() {
+        return delegate.headers();
+    }
+
+    @Override
+    public String getHeader(String headerName) {
+        return delegate.getHeader(headerName);
+    }
+
+    @Override
+    public String getHeader(CharSequence headerName) {
+        return delegate.getHeader(headerName);
+    }
+
+    @Override
+    public String getTrailer(String trailerName) {
+        return delegate.getTrailer(trailerName);
+    }
+
+    @Override
+    public MultiMap trailers() {
+        return delegate.trailers();
+    }
+
+    @Override
+    public List<String> cookies() {
+        return delegate.cookies();
+    }
+
+    @Override
+    public HttpClientResponse bodyHandler(Handler<Buffer> bodyHandler) {
+        delegate.bodyHandler(bodyHandler);
+        return this;
+    }
+
+    @Override
+    public HttpClientResponse customFrameHandler(Handler<HttpFrame> handler) {
+        delegate.customFrameHandler(handler);
+        return this;
+    }
+
+    @Override
+    public NetSocket netSocket() {
+        return delegate.netSocket();
+    }
+
+}
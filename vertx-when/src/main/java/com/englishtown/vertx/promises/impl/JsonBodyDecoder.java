@@ -0,0 +1,95 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.promises.Deferred;
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.When;
+import com.englishtown.vertx.promises.HttpClientResponseAndBody;
+import com.englishtown.vertx.promises.HttpClientResponseAndJson;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Decodes json response bodies to a {@link JsonObject}, {@link JsonArray} or a POJO.  Bodies larger than a threshold are
+ * decoded on a worker thread so they don't block the event loop.
+ */
+class JsonBodyDecoder {
+
+    private final Vertx vertx;
+    private final When when;
+
+    JsonBodyDecoder(Vertx vertx, When when) {
+        this.vertx = vertx;
+        this.when = when;
+    }
+
+    /**
+     * @param responseAndBody the response and body to decode
+     * @param type            the type to decode to
+     * @param workerThreshold bodies with more bytes than this are decoded with executeBlocking, -1 to always decode
+     *                        inline
+     * @return a promise for the response and decoded json
+     */
+    <T> Promise<HttpClientResponseAndJson<T>> decode(HttpClientResponseAndBody responseAndBody, Class<T> type, long workerThreshold) {
+        HttpClientResponse response = responseAndBody.getResponse();
+        Buffer body = responseAndBody.getBody();
+
+        if (workerThreshold < 0 || body == null || body.length() <= workerThreshold) {
+            try {
+                return when.resolve(new DefaultHttpClientResponseAndJson<>(response, decode(body, type)));
+            } catch (RuntimeException e) {
+                return when.reject(e);
+            }
+        }
+
+        Deferred<HttpClientResponseAndJson<T>> d = when.defer();
+        vertx.<T>executeBlocking(future -> future.complete(decode(body, type)), false, result -> {
+            if (result.succeeded()) {
+                d.resolve(new DefaultHttpClientResponseAndJson<>(response, result.result()));
+            } else {
+                d.reject(result.cause());
+            }
+        });
+        return d.getPromise();
+    }
+
+    static <T> T decode(Buffer body, Class<T> type) {
+        if (body == null || body.length() == 0) {
+            return null;
+        }
+        if (type == JsonObject.class) {
+            return type.cast(body.toJsonObject());
+        }
+        if (type == JsonArray.class) {
+            return type.cast(body.toJsonArray());
+        }
+        return Json.decodeValue(body.toString("UTF-8"), type);
+    }
+
+    private static class DefaultHttpClientResponseAndJson<T> implements HttpClientResponseAndJson<T> {
+
+        // Only the response and decoded value are held so the body buffer can be collected
+        private final HttpClientResponse response;
+        private final T json;
+
+        private DefaultHttpClientResponseAndJson(HttpClientResponse response, T json) {
+            this.response = response;
+            this.json = json;
+        }
+
+        @Override
+        public T getJson() {
+            return json;
+        }
+
+        @Override
+        public HttpClientResponse getResponse() {
+            return response;
+        }
+
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.englishtown.vertx.promises.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks recent response latencies for a host:port in a fixed size ring buffer.  Percentiles are computed from a sorted
+ * copy of the samples that is only refreshed after a number of new samples, so lookups on the request path are cheap.
+ */
+class LatencyTracker {
+
+    static final int DEFAULT_SIZE = 256;
+    static final int MIN_SAMPLES = 20;
+    static final int REFRESH_INTERVAL = 32;
+
+    private final long[] samples;
+    private int count;
+    private int next;
+    private int sinceRefresh;
+    private long[] sorted;
+
+    LatencyTracker() {
+        this(DEFAULT_SIZE);
+    }
+
+    LatencyTracker(int size) {
+        this.samples = new long[size];
+    }
+
+    /**
+     * @param nanos the latency of a response
+     */
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+        sinceRefresh++;
+    }
+
+    /**
+     * @param percentile the percentile between 0 and 100
+     * @return the latency percentile in milliseconds, or -1 if too few responses have been tracked
+     */
+    synchronized long getPercentile(double percentile) {
+        if (count < MIN_SAMPLES) {
+            return -1;
+        }
+        if (sorted == null || sinceRefresh >= REFRESH_INTERVAL) {
+            sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            sinceRefresh = 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        index = Math.max(0, Math.min(sorted.length - 1, index));
+        return TimeUnit.NANOSECONDS.toMillis(sorted[index]);
+    }
+
+}
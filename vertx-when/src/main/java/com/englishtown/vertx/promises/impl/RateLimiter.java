@@ -0,0 +1,70 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.vertx.promises.RateLimitOptions;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock free token bucket for a single host:port or endpoint group, implemented as a generic cell rate algorithm.  The
+ * only state is the theoretical arrival time of the next request, updated with compare and set, so it is shared
+ * safely across event loops.
+ */
+class RateLimiter {
+
+    private final String host;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final long maxWaitNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong nextFree;
+
+    RateLimiter(String host, RateLimitOptions options) {
+        this(host, options, System::nanoTime);
+    }
+
+    RateLimiter(String host, RateLimitOptions options, LongSupplier nanoClock) {
+        this.host = host;
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / options.getPermitsPerSecond()));
+        // The bucket starts full
+        this.burstNanos = intervalNanos * (options.getBurst() - 1);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(options.getMaxWait());
+        this.nanoClock = nanoClock;
+        this.nextFree = new AtomicLong(nanoClock.getAsLong() - burstNanos);
+    }
+
+    String getHost() {
+        return host;
+    }
+
+    /**
+     * Takes a permit if one is available now or within the max wait
+     *
+     * @return 0 if a permit was taken, the nanoseconds to wait before sending if a future permit was reserved, or the
+     * negated nanoseconds until a permit would be available if none was taken
+     */
+    long acquire() {
+        for (; ; ) {
+            long now = nanoClock.getAsLong();
+            long current = nextFree.get();
+            long start = Math.max(current, now - burstNanos);
+            long wait = start - now;
+
+            if (wait > maxWaitNanos) {
+                return -wait;
+            }
+            if (nextFree.compareAndSet(current, start + intervalNanos)) {
+                return Math.max(0, wait);
+            }
+        }
+    }
+
+    /**
+     * Returns a permit taken by {@link #acquire()} that will not be used, so the next request can have it
+     */
+    void release() {
+        nextFree.addAndGet(-intervalNanos);
+    }
+
+}
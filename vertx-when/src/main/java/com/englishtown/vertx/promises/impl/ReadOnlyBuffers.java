@@ -0,0 +1,48 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.vertx.promises.HttpClientResponseAndBody;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClientResponse;
+
+/**
+ * Read only views of buffers that are shared between callers
+ */
+final class ReadOnlyBuffers {
+
+    private ReadOnlyBuffers() {
+    }
+
+    /**
+     * Returns a view that shares the content of a buffer without copying it.  Writes through the view throw
+     * {@link java.nio.ReadOnlyBufferException}.
+     *
+     * @param buffer the shared buffer
+     * @return a read only view of the buffer
+     */
+    static Buffer view(Buffer buffer) {
+        return Buffer.buffer(buffer.getByteBuf().asReadOnly());
+    }
+
+    /**
+     * Returns a response and body with its own read only view of a shared body
+     *
+     * @param responseAndBody the shared response and body
+     * @return a response and body with a read only view of the body
+     */
+    static HttpClientResponseAndBody view(HttpClientResponseAndBody responseAndBody) {
+        HttpClientResponse response = responseAndBody.getResponse();
+        Buffer body = responseAndBody.getBody() == null ? null : view(responseAndBody.getBody());
+        return new HttpClientResponseAndBody() {
+            @Override
+            public HttpClientResponse getResponse() {
+                return response;
+            }
+
+            @Override
+            public Buffer getBody() {
+                return body;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,163 @@
+package com.englishtown.vertx.promises.impl;
+
+import io.vertx.core.MultiMap;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read only view of a {@link MultiMap}, mutators throw {@link UnsupportedOperationException}
+ */
+class ReadOnlyMultiMap implements MultiMap {
+
+    private final MultiMap delegate;
+
+    ReadOnlyMultiMap(MultiMap delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String get(CharSequence name) {
+        return delegate.get(name);
+    }
+
+    @Override
+    public String get(String name) {
+        return delegate.get(name);
+    }
+
+    @Override
+    public List<String> getAll(String name) {
+        return Collections.unmodifiableList(delegate.getAll(name));
+    }
+
+    @Override
+    public List<String> getAll(CharSequence name) {
+        return Collections.unmodifiableList(delegate.getAll(name));
+    }
+
+    @Override
+    public List<Map.Entry<String, String>> entries() {
+        // Copy the entries as a MultiMap entry's setValue can write through
+        List<Map.Entry<String, String>> entries = new ArrayList<>(delegate.size());
+        for (Map.Entry<String, String> entry : delegate) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    @Override
+    public Iterator<Map.Entry<String, String>> iterator() {
+        return entries().iterator();
+    }
+
+    @Override
+    public boolean contains(String name) {
+        return delegate.contains(name);
+    }
+
+    @Override
+    public boolean contains(CharSequence name) {
+        return delegate.contains(name);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+
+    @Override
+    public Set<String> names() {
+        return Collections.unmodifiableSet(delegate.names());
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public MultiMap add(String name, String value) {
+        throw readOnly();
+    }
+
+    @Override
+    public MultiMap add(CharSequence name, CharSequence value) {
+        throw readOnly();
+    }
+
+    @Override
+    public MultiMap add(String name, Iterable<String> values) {
+        throw readOnly();
+    }
+
+    @Override
+    public MultiMap add(CharSequence name, Iterable<CharSequence> values) {
+        throw readOnly();
+    }
+
+    @Override
+    public MultiMap addAll(MultiMap map) {
+        throw readOnly();
+    }
+
+    @Override
+    public MultiMap addAll(Map<String, String> headers) {
+        throw readOnly();
+    }
+
+    @Override
+    public MultiMap set(String name, String value) {
+        throw readOnly();
+    }
+
+    @Override
+    public MultiMap set(CharSequence name, CharSequence value) {
+        throw readOnly();
+    }
+
+    @Override
+    public MultiMap set(String name, Iterable<String> values) {
+        throw readOnly();
+    }
+
+    @Override
+    public MultiMap set(CharSequence name, Iterable<CharSequence> values) {
+        throw readOnly();
+    }
+
+    @Override
+    public MultiMap setAll(MultiMap map) {
+        throw readOnly();
+    }
+
+    @Override
+    public MultiMap setAll(Map<String, String> headers) {
+        throw readOnly();
+    }
+
+    @Override
+    public MultiMap remove(String name) {
+        throw readOnly();
+    }
+
+    @Override
+    public MultiMap remove(CharSequence name) {
+        throw readOnly();
+    }
+
+    @Override
+    public MultiMap clear() {
+        throw readOnly();
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Headers are read only");
+    }
+
+}
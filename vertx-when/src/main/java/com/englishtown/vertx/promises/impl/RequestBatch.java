@@ -0,0 +1,144 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.promises.Deferred;
+import com.englishtown.promises.HandlerState;
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.State;
+import com.englishtown.promises.When;
+import com.englishtown.vertx.promises.BatchRequestException;
+import com.englishtown.vertx.promises.HttpClientResponseAndBody;
+import com.englishtown.vertx.promises.RequestDescriptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Runs a list of requests with at most a fixed number in flight at any time.  Results are collected in request order.
+ */
+class RequestBatch {
+
+    private final When when;
+    private final List<RequestDescriptor> requests;
+    private final int maxInFlight;
+    private final boolean failFast;
+    private final Function<RequestDescriptor, Promise<HttpClientResponseAndBody>> executor;
+    private final Deferred<List<HttpClientResponseAndBody>> d;
+    private final List<State<HttpClientResponseAndBody>> results;
+
+    private int next;
+    private int settled;
+    private Throwable firstFailure;
+    private boolean done;
+
+    /**
+     * @param when        the when instance
+     * @param requests    the requests to run
+     * @param maxInFlight the maximum number of requests in flight at once
+     * @param failFast    if true reject as soon as one request fails and start no further requests, otherwise run
+     *                    every request before rejecting
+     * @param executor    starts a request
+     */
+    RequestBatch(
+            When when,
+            List<RequestDescriptor> requests,
+            int maxInFlight,
+            boolean failFast,
+            Function<RequestDescriptor, Promise<HttpClientResponseAndBody>> executor) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be greater than 0");
+        }
+        this.when = when;
+        this.requests = requests;
+        this.maxInFlight = maxInFlight;
+        this.failFast = failFast;
+        this.executor = executor;
+        this.d = when.defer();
+        this.results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            results.add(null);
+        }
+    }
+
+    Promise<List<HttpClientResponseAndBody>> run() {
+        if (requests.isEmpty()) {
+            return when.resolve(new ArrayList<>());
+        }
+
+        int initial = Math.min(maxInFlight, requests.size());
+        for (int i = 0; i < initial; i++) {
+            startNext();
+        }
+
+        return d.getPromise();
+    }
+
+    private void startNext() {
+        int index;
+        synchronized (this) {
+            if (done || next >= requests.size()) {
+                return;
+            }
+            index = next++;
+        }
+
+        Promise<HttpClientResponseAndBody> p;
+        try {
+            p = executor.apply(requests.get(index));
+        } catch (RuntimeException e) {
+            p = when.reject(e);
+        }
+
+        p.then(
+                value -> {
+                    onSettled(index, new State<>(HandlerState.FULFILLED, value));
+                    return null;
+                },
+                t -> {
+                    onSettled(index, new State<>(HandlerState.REJECTED, t));
+                    return null;
+                });
+    }
+
+    private void onSettled(int index, State<HttpClientResponseAndBody> state) {
+        boolean rejectNow = false;
+        boolean complete;
+
+        synchronized (this) {
+            if (done) {
+                return;
+            }
+            results.set(index, state);
+            settled++;
+
+            if (state.getState() == HandlerState.REJECTED && firstFailure == null) {
+                firstFailure = state.getReason();
+                rejectNow = failFast;
+            }
+            complete = rejectNow || settled == requests.size();
+            done = complete;
+        }
+
+        if (rejectNow) {
+            d.reject(firstFailure);
+        } else if (complete) {
+            finish();
+        } else {
+            startNext();
+        }
+    }
+
+    private void finish() {
+        if (firstFailure != null) {
+            d.reject(new BatchRequestException(new ArrayList<>(results), firstFailure));
+            return;
+        }
+
+        List<HttpClientResponseAndBody> values = new ArrayList<>(results.size());
+        for (State<HttpClientResponseAndBody> state : results) {
+            values.add(state.getValue());
+        }
+        d.resolve(values);
+    }
+
+}
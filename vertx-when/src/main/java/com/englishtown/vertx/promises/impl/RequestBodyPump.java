@@ -0,0 +1,95 @@
+package com.englishtown.vertx.promises.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.streams.ReadStream;
+
+/**
+ * Pumps a {@link ReadStream} into an {@link HttpClientRequest} body and ends the request once the stream ends.  The
+ * stream is paused while the request write queue is full and resumed from the request drain handler, and paused and
+ * detached if the request is aborted before the stream ends.
+ */
+class RequestBodyPump {
+
+    private final ReadStream<Buffer> source;
+    private final HttpClientRequest request;
+    private final Handler<Throwable> onFailure;
+    private final Handler<Long> onEnd;
+    private long bytes;
+    private boolean done;
+
+    /**
+     * @param source    the body source
+     * @param request   the request to write to
+     * @param onFailure called if the source fails, the request is not ended
+     * @param onEnd     called with the number of bytes written once the request has been ended
+     */
+    RequestBodyPump(ReadStream<Buffer> source, HttpClientRequest request, Handler<Throwable> onFailure, Handler<Long> onEnd) {
+        this.source = source;
+        this.request = request;
+        this.onFailure = onFailure;
+        this.onEnd = onEnd;
+    }
+
+    /**
+     * Uses chunked encoding unless the request already has a content length
+     *
+     * @param request the request the body will be written to
+     */
+    static void setChunkedIfNoLength(HttpClientRequest request) {
+        if (!request.isChunked() && request.headers().get(HttpHeaders.CONTENT_LENGTH) == null) {
+            request.setChunked(true);
+        }
+    }
+
+    void start() {
+        setChunkedIfNoLength(request);
+
+        request.drainHandler(aVoid -> {
+            if (!done) {
+                source.resume();
+            }
+        });
+
+        source.handler(chunk -> {
+            if (done) {
+                return;
+            }
+            bytes += chunk.length();
+            request.write(chunk);
+            if (request.writeQueueFull()) {
+                source.pause();
+            }
+        }).exceptionHandler(t -> {
+            if (!done) {
+                done = true;
+                onFailure.handle(t);
+            }
+        }).endHandler(aVoid -> {
+            if (!done) {
+                done = true;
+                request.end();
+                onEnd.handle(bytes);
+            }
+        });
+
+        source.resume();
+    }
+
+    /**
+     * Stops reading the source when the request fails or is reset before the body is written, so the source is not
+     * read to the end for nothing.  Has no effect once the stream has ended or failed.
+     */
+    void abort() {
+        if (done) {
+            return;
+        }
+        done = true;
+        source.pause();
+        source.handler(null);
+        source.endHandler(null);
+    }
+
+}
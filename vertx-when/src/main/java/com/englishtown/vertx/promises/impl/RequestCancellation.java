@@ -0,0 +1,110 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.promises.Deferred;
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.When;
+import com.englishtown.vertx.promises.CancellationToken;
+import com.englishtown.vertx.promises.RequestCancelledException;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Cancellation of one logical request, registered with its {@link CancellationToken} once for every attempt and the
+ * waits between them.  When the token is cancelled the steps in progress, such as an in flight attempt or a retry
+ * backoff or rate limit timer, are cancelled and the request is rejected with a {@link RequestCancelledException}
+ * straight away.  The cancellation runs on the context that started the request.
+ */
+class RequestCancellation {
+
+    private final When when;
+    private final CancellationToken token;
+    private final Context context;
+    private List<Runnable> steps = new ArrayList<>();
+
+    RequestCancellation(When when, CancellationToken token) {
+        this.when = when;
+        this.token = token;
+        this.context = Vertx.currentContext();
+    }
+
+    boolean isCancelled() {
+        return token.isCancelled();
+    }
+
+    /**
+     * Runs the request, rejecting its promise as soon as the token is cancelled
+     *
+     * @param request starts the request
+     * @return a promise for the request result
+     */
+    <T> Promise<T> run(Supplier<Promise<T>> request) {
+        if (token.isCancelled()) {
+            return when.reject(new RequestCancelledException());
+        }
+
+        Deferred<T> d = when.defer();
+        Runnable unregister = token.register(() -> {
+            if (context == null || context == Vertx.currentContext()) {
+                cancel(d);
+            } else {
+                context.runOnContext(aVoid -> cancel(d));
+            }
+        });
+
+        Promise<T> p;
+        try {
+            p = request.get();
+        } catch (RuntimeException e) {
+            p = when.reject(e);
+        }
+
+        p.then(
+                result -> {
+                    unregister.run();
+                    d.resolve(result);
+                    return null;
+                },
+                t -> {
+                    unregister.run();
+                    d.reject(t);
+                    return null;
+                });
+
+        return d.getPromise();
+    }
+
+    /**
+     * Adds a step to cancel with the request.  The step is cancelled immediately if the request already has been.
+     *
+     * @param onCancel cancels the step
+     * @return a runnable that removes the step once it is complete
+     */
+    Runnable add(Runnable onCancel) {
+        if (steps == null) {
+            onCancel.run();
+            return () -> {
+            };
+        }
+        steps.add(onCancel);
+        return () -> {
+            if (steps != null) {
+                steps.remove(onCancel);
+            }
+        };
+    }
+
+    private void cancel(Deferred<?> d) {
+        if (steps == null) {
+            return;
+        }
+        List<Runnable> toRun = steps;
+        steps = null;
+        d.reject(new RequestCancelledException());
+        toRun.forEach(Runnable::run);
+    }
+
+}
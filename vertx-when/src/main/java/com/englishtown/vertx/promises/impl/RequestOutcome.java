@@ -0,0 +1,30 @@
+package com.englishtown.vertx.promises.impl;
+
+/**
+ * Records the outcome of a request attempt once its response headers arrive or it fails
+ */
+interface RequestOutcome {
+
+    /**
+     * @param failed        true if the request failed or the response status code is 5xx
+     * @param durationNanos the time until the response headers arrived or the request failed
+     */
+    void complete(boolean failed, long durationNanos);
+
+    /**
+     * @return an outcome that records to this outcome and then the other, either may be null
+     */
+    static RequestOutcome both(RequestOutcome first, RequestOutcome second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        return (failed, durationNanos) -> {
+            first.complete(failed, durationNanos);
+            second.complete(failed, durationNanos);
+        };
+    }
+
+}
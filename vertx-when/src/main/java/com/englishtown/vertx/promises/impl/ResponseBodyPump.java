@@ -0,0 +1,116 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.promises.Deferred;
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.When;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClientResponse;
+
+import java.util.function.Function;
+
+/**
+ * Pumps the chunks of an {@link HttpClientResponse} body to a promise returning chunk handler.  The response is paused
+ * while a chunk promise is pending so only one chunk is held in memory at a time.
+ */
+class ResponseBodyPump {
+
+    private final When when;
+    private final HttpClientResponse response;
+    private final Function<Buffer, Promise<Void>> chunkHandler;
+    private final Runnable onComplete;
+    private final Runnable onAbort;
+    private final Deferred<Long> d;
+
+    private Promise<Void> pending;
+    private long bytes;
+    private boolean done;
+
+    /**
+     * @param when         the when instance
+     * @param response     the response to read
+     * @param chunkHandler called for each chunk, the response is resumed when the returned promise resolves
+     * @param onComplete   called once the body has been fully handled
+     * @param onAbort      called when the body cannot be fully handled, should reset or drain the response
+     */
+    ResponseBodyPump(
+            When when,
+            HttpClientResponse response,
+            Function<Buffer, Promise<Void>> chunkHandler,
+            Runnable onComplete,
+            Runnable onAbort) {
+        this.when = when;
+        this.response = response;
+        this.chunkHandler = chunkHandler;
+        this.onComplete = onComplete;
+        this.onAbort = onAbort;
+        this.d = when.defer();
+    }
+
+    /**
+     * Sets the response handlers and resumes the response
+     *
+     * @return a promise for the total number of body bytes
+     */
+    Promise<Long> start() {
+        response.handler(this::handleChunk)
+                .endHandler(aVoid -> handleEnd())
+                .exceptionHandler(this::fail)
+                .resume();
+
+        return d.getPromise();
+    }
+
+    private void handleChunk(Buffer chunk) {
+        if (done) {
+            return;
+        }
+
+        bytes += chunk.length();
+
+        Promise<Void> p;
+        try {
+            p = chunkHandler.apply(chunk);
+        } catch (RuntimeException e) {
+            fail(e);
+            return;
+        }
+
+        if (p == null) {
+            return;
+        }
+
+        response.pause();
+        pending = p.then(
+                aVoid -> {
+                    if (!done) {
+                        response.resume();
+                    }
+                    return null;
+                },
+                t -> {
+                    fail(t);
+                    return null;
+                });
+    }
+
+    private void handleEnd() {
+        Promise<Void> last = (pending == null ? when.resolve((Void) null) : pending);
+        last.then(aVoid -> {
+            if (!done) {
+                done = true;
+                onComplete.run();
+                d.resolve(bytes);
+            }
+            return null;
+        });
+    }
+
+    void fail(Throwable t) {
+        if (!done) {
+            done = true;
+            onAbort.run();
+            d.reject(t);
+        }
+    }
+
+}
@@ -0,0 +1,394 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.vertx.promises.HttpClientResponseAndBody;
+import com.englishtown.vertx.promises.ResponseCacheOptions;
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.CaseInsensitiveHeaders;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpHeaders;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory cache of GET responses and bodies, bounded by total bytes and evicting the least recently used URIs first.
+ * Each URI may have several entries when responses Vary on request headers.  Shared across event loops, so all state
+ * is guarded by the instance monitor.
+ * <p>
+ * The cache is shared by every caller of the client, so it follows the rules for a shared cache: private responses
+ * and responses to authorized requests are not stored, and Set-Cookie headers are never stored.
+ */
+public class ResponseCache {
+
+    private static final String VARY = "Vary";
+    private static final String AGE = "Age";
+
+    private final long maxBytes;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<String, List<Entry>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    public ResponseCache(ResponseCacheOptions options) {
+        this(options, System::nanoTime);
+    }
+
+    ResponseCache(ResponseCacheOptions options, LongSupplier nanoClock) {
+        this.maxBytes = options.getMaxBytes();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @param key            the request URI
+     * @param requestHeaders the request headers, may be null
+     * @return the entry matching the request, fresh or stale, or null
+     */
+    public synchronized Entry get(String key, MultiMap requestHeaders) {
+        List<Entry> variants = entries.get(key);
+        if (variants == null) {
+            return null;
+        }
+        for (Entry entry : variants) {
+            if (entry.matches(requestHeaders)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param entry a cached entry
+     * @return true if the entry can be returned without revalidation
+     */
+    public boolean isFresh(Entry entry) {
+        return entry.isFresh(nanoClock.getAsLong());
+    }
+
+    /**
+     * Stores a response if it is cacheable, replacing any entry for the same variant.  A no-store response removes the
+     * variant.
+     *
+     * @param key            the request URI
+     * @param requestHeaders the request headers, may be null
+     * @param response       the response
+     * @param body           the response body, copied so later changes by the caller don't affect the entry
+     * @return the new entry or null if the response was not stored
+     */
+    public Entry put(String key, MultiMap requestHeaders, HttpClientResponse response, Buffer body) {
+        if (response.statusCode() != 200) {
+            return null;
+        }
+
+        MultiMap headers = response.headers();
+        CacheControl cacheControl = CacheControl.parse(headers.getAll(HttpHeaders.CACHE_CONTROL));
+        List<String> vary = getVary(headers);
+
+        if (cacheControl.noStore || cacheControl.isPrivate || vary == null) {
+            remove(key, requestHeaders);
+            return null;
+        }
+
+        // A response to an authorized request may only be shared if the server explicitly allows it
+        if (requestHeaders != null && requestHeaders.contains(HttpHeaders.AUTHORIZATION)
+                && !cacheControl.isPublic && cacheControl.sMaxAge < 0 && !cacheControl.mustRevalidate) {
+            return null;
+        }
+
+        String etag = headers.get(HttpHeaders.ETAG);
+        String lastModified = headers.get(HttpHeaders.LAST_MODIFIED);
+        if (cacheControl.getSharedMaxAge() <= 0 && etag == null && lastModified == null) {
+            return null;
+        }
+
+        Map<String, String> varyValues = new LinkedHashMap<>();
+        for (String name : vary) {
+            varyValues.put(name, getHeader(requestHeaders, name));
+        }
+
+        Entry entry = new Entry(
+                key,
+                response.statusMessage(),
+                new CaseInsensitiveHeaders().addAll(headers).remove(HttpHeaders.SET_COOKIE),
+                body.copy(),
+                varyValues,
+                nanoClock.getAsLong());
+
+        if (entry.size > maxBytes) {
+            remove(key, requestHeaders);
+            return null;
+        }
+
+        synchronized (this) {
+            List<Entry> variants = entries.computeIfAbsent(key, k -> new ArrayList<>(1));
+            removeVariant(variants, requestHeaders);
+            variants.add(entry);
+            bytes += entry.size;
+            evict();
+        }
+        return entry;
+    }
+
+    /**
+     * Refreshes an entry from the headers of a 304 Not Modified response
+     *
+     * @param entry    the revalidated entry
+     * @param response the 304 response
+     * @return the entry
+     */
+    public Entry revalidated(Entry entry, HttpClientResponse response) {
+        MultiMap headers = new CaseInsensitiveHeaders().addAll(entry.headers);
+        MultiMap updated = response.headers();
+        for (String name : updated.names()) {
+            if (!HttpHeaders.CONTENT_LENGTH.toString().equalsIgnoreCase(name)
+                    && !HttpHeaders.SET_COOKIE.toString().equalsIgnoreCase(name)) {
+                headers.set(name, updated.getAll(name));
+            }
+        }
+
+        Entry refreshed = new Entry(entry.key, entry.statusMessage, headers, entry.body, entry.varyValues, nanoClock.getAsLong());
+
+        synchronized (this) {
+            List<Entry> variants = entries.get(entry.key);
+            int index = (variants == null ? -1 : variants.indexOf(entry));
+            if (index >= 0) {
+                variants.set(index, refreshed);
+                bytes += refreshed.size - entry.size;
+                evict();
+            }
+        }
+        return refreshed;
+    }
+
+    public synchronized void remove(String key, MultiMap requestHeaders) {
+        List<Entry> variants = entries.get(key);
+        if (variants != null) {
+            removeVariant(variants, requestHeaders);
+            if (variants.isEmpty()) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    /**
+     * @return the number of cached entries
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (List<Entry> variants : entries.values()) {
+            size += variants.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return the total size of the cached entries
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    private void removeVariant(List<Entry> variants, MultiMap requestHeaders) {
+        Iterator<Entry> iterator = variants.iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.matches(requestHeaders)) {
+                iterator.remove();
+                bytes -= entry.size;
+            }
+        }
+    }
+
+    private void evict() {
+        Iterator<List<Entry>> iterator = entries.values().iterator();
+        while (bytes > maxBytes && iterator.hasNext()) {
+            for (Entry entry : iterator.next()) {
+                bytes -= entry.size;
+            }
+            iterator.remove();
+        }
+    }
+
+    /**
+     * @return the Vary header names, or null if the response varies on *
+     */
+    private static List<String> getVary(MultiMap headers) {
+        List<String> names = new ArrayList<>();
+        for (String value : headers.getAll(VARY)) {
+            for (String name : value.split(",")) {
+                name = name.trim();
+                if ("*".equals(name)) {
+                    return null;
+                }
+                if (!name.isEmpty()) {
+                    names.add(name);
+                }
+            }
+        }
+        return names;
+    }
+
+    private static String getHeader(MultiMap headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        List<String> values = headers.getAll(name);
+        return values.isEmpty() ? null : String.join(",", values);
+    }
+
+    /**
+     * @param requestHeaders the request headers, may be null
+     * @return true if the request Cache-Control has no-store
+     */
+    static boolean isNoStore(MultiMap requestHeaders) {
+        return requestHeaders != null && CacheControl.parse(requestHeaders.getAll(HttpHeaders.CACHE_CONTROL)).noStore;
+    }
+
+    /**
+     * @param requestHeaders the request headers, may be null
+     * @return true if the request Cache-Control has no-cache, so a cached response must be revalidated
+     */
+    static boolean isNoCache(MultiMap requestHeaders) {
+        return requestHeaders != null && CacheControl.parse(requestHeaders.getAll(HttpHeaders.CACHE_CONTROL)).noCache;
+    }
+
+    /**
+     * A cached response
+     */
+    public static class Entry {
+
+        private final String key;
+        private final String statusMessage;
+        private final MultiMap headers;
+        private final Buffer body;
+        private final Map<String, String> varyValues;
+        private final long size;
+        private final long expiresAt;
+
+        private Entry(String key, String statusMessage, MultiMap headers, Buffer body, Map<String, String> varyValues, long now) {
+            this.key = key;
+            this.statusMessage = statusMessage;
+            this.headers = headers;
+            this.body = body;
+            this.varyValues = varyValues;
+
+            long size = key.length() + body.length();
+            for (Map.Entry<String, String> header : headers) {
+                size += header.getKey().length() + header.getValue().length();
+            }
+            this.size = size;
+
+            CacheControl cacheControl = CacheControl.parse(headers.getAll(HttpHeaders.CACHE_CONTROL));
+            long maxAge = cacheControl.noCache ? 0 : cacheControl.getSharedMaxAge();
+            long age = 0;
+            String ageHeader = headers.get(AGE);
+            if (ageHeader != null) {
+                try {
+                    age = Long.parseLong(ageHeader.trim());
+                } catch (NumberFormatException e) {
+                    // Ignore an invalid Age
+                }
+            }
+            this.expiresAt = now + TimeUnit.SECONDS.toNanos(Math.max(0, maxAge - age));
+        }
+
+        private boolean isFresh(long now) {
+            return now - expiresAt < 0;
+        }
+
+        private boolean matches(MultiMap requestHeaders) {
+            for (Map.Entry<String, String> vary : varyValues.entrySet()) {
+                if (!Objects.equals(vary.getValue(), getHeader(requestHeaders, vary.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public String getETag() {
+            return headers.get(HttpHeaders.ETAG);
+        }
+
+        public String getLastModified() {
+            return headers.get(HttpHeaders.LAST_MODIFIED);
+        }
+
+        /**
+         * @return a response and body for the entry, the body is a read only view of the cached body
+         */
+        public HttpClientResponseAndBody toResponseAndBody() {
+            // Each hit gets its own view so one caller can't change the body seen by the next
+            Buffer body = ReadOnlyBuffers.view(this.body);
+            HttpClientResponse response = new CachedHttpClientResponse(200, statusMessage, headers, body);
+            return new HttpClientResponseAndBody() {
+                @Override
+                public HttpClientResponse getResponse() {
+                    return response;
+                }
+
+                @Override
+                public Buffer getBody() {
+                    return body;
+                }
+            };
+        }
+
+    }
+
+    private static class CacheControl {
+
+        private boolean noStore;
+        private boolean noCache;
+        private boolean isPrivate;
+        private boolean isPublic;
+        private boolean mustRevalidate;
+        private long maxAge = -1;
+        private long sMaxAge = -1;
+
+        private static CacheControl parse(List<String> values) {
+            CacheControl cacheControl = new CacheControl();
+            for (String value : values) {
+                for (String directive : value.split(",")) {
+                    directive = directive.trim().toLowerCase();
+                    if ("no-store".equals(directive)) {
+                        cacheControl.noStore = true;
+                    } else if (directive.startsWith("no-cache")) {
+                        cacheControl.noCache = true;
+                    } else if (directive.startsWith("private")) {
+                        cacheControl.isPrivate = true;
+                    } else if ("public".equals(directive)) {
+                        cacheControl.isPublic = true;
+                    } else if ("must-revalidate".equals(directive)) {
+                        cacheControl.mustRevalidate = true;
+                    } else if (directive.startsWith("s-maxage=")) {
+                        try {
+                            cacheControl.sMaxAge = Long.parseLong(directive.substring(9).replace("\"", ""));
+                        } catch (NumberFormatException e) {
+                            cacheControl.sMaxAge = 0;
+                        }
+                    } else if (directive.startsWith("max-age=")) {
+                        try {
+                            cacheControl.maxAge = Long.parseLong(directive.substring(8).replace("\"", ""));
+                        } catch (NumberFormatException e) {
+                            // An invalid max-age makes the response stale
+                            cacheControl.maxAge = 0;
+                        }
+                    }
+                }
+            }
+            return cacheControl;
+        }
+
+        // s-maxage overrides max-age in a shared cache
+        private long getSharedMaxAge() {
+            return sMaxAge >= 0 ? sMaxAge : maxAge;
+        }
+
+    }
+
+}
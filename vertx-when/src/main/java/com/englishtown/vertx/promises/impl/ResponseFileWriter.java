@@ -0,0 +1,193 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.promises.Deferred;
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.When;
+import com.englishtown.vertx.promises.FileDownload;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Vertx;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.http.HttpClientResponse;
+
+/**
+ * Writes an {@link HttpClientResponse} body to a file.  The response is paused while the file write queue is full and
+ * resumed from the file drain handler.  The file is only flushed and closed once every write has completed, an
+ * {@link AsyncFile} flush does not wait for outstanding writes.
+ */
+class ResponseFileWriter {
+
+    private final Vertx vertx;
+    private final HttpClientResponse response;
+    private final String path;
+    private final OpenOptions openOptions;
+    private final boolean fsync;
+    private final Runnable onComplete;
+    private final Runnable onAbort;
+    private final Deferred<FileDownload> d;
+
+    private AsyncFile file;
+    private long bytes;
+    private int pendingWrites;
+    private boolean ended;
+    private boolean done;
+
+    /**
+     * @param vertx       the vertx instance
+     * @param when        the when instance
+     * @param response    the paused response
+     * @param path        the file path
+     * @param openOptions the options used to open the file
+     * @param fsync       if true the file is flushed to storage before it is closed
+     * @param onComplete  called once the body has been fully read
+     * @param onAbort     called when the body cannot be fully written, should reset or drain the response
+     */
+    ResponseFileWriter(
+            Vertx vertx,
+            When when,
+            HttpClientResponse response,
+            String path,
+            OpenOptions openOptions,
+            boolean fsync,
+            Runnable onComplete,
+            Runnable onAbort) {
+        this.vertx = vertx;
+        this.response = response;
+        this.path = path;
+        this.openOptions = openOptions;
+        this.fsync = fsync;
+        this.onComplete = onComplete;
+        this.onAbort = onAbort;
+        this.d = when.defer();
+    }
+
+    /**
+     * Opens the file and resumes the response
+     *
+     * @return a promise for the download result
+     */
+    Promise<FileDownload> start() {
+        vertx.fileSystem().open(path, openOptions, result -> {
+            if (result.failed()) {
+                done = true;
+                onAbort.run();
+                d.reject(result.cause());
+                return;
+            }
+
+            file = result.result();
+            file.exceptionHandler(this::fail);
+            response.handler(chunk -> {
+                if (done) {
+                    return;
+                }
+                long position = bytes;
+                bytes += chunk.length();
+                pendingWrites++;
+                file.write(chunk, position, this::written);
+                if (file.writeQueueFull()) {
+                    response.pause();
+                    file.drainHandler(aVoid -> {
+                        if (!done) {
+                            response.resume();
+                        }
+                    });
+                }
+            }).exceptionHandler(this::fail).endHandler(aVoid -> ended()).resume();
+        });
+
+        return d.getPromise();
+    }
+
+    private void written(AsyncResult<Void> result) {
+        pendingWrites--;
+        if (result.failed()) {
+            fail(result.cause());
+        } else if (ended && pendingWrites == 0) {
+            finish();
+        }
+    }
+
+    private void ended() {
+        if (done) {
+            return;
+        }
+        ended = true;
+        onComplete.run();
+        if (pendingWrites == 0) {
+            finish();
+        }
+    }
+
+    private void finish() {
+        if (done) {
+            return;
+        }
+        done = true;
+
+        if (fsync) {
+            file.flush(result -> {
+                if (result.failed()) {
+                    close(result.cause());
+                } else {
+                    close(null);
+                }
+            });
+        } else {
+            close(null);
+        }
+    }
+
+    private void fail(Throwable t) {
+        if (done) {
+            return;
+        }
+        done = true;
+        if (!ended) {
+            onAbort.run();
+        }
+        close(t);
+    }
+
+    private void close(Throwable failure) {
+        file.close(result -> {
+            if (failure != null) {
+                d.reject(failure);
+            } else if (result.failed()) {
+                d.reject(result.cause());
+            } else {
+                d.resolve(new DefaultFileDownload(response, path, bytes));
+            }
+        });
+    }
+
+    private static class DefaultFileDownload implements FileDownload {
+
+        private final HttpClientResponse response;
+        private final String path;
+        private final long bytesWritten;
+
+        private DefaultFileDownload(HttpClientResponse response, String path, long bytesWritten) {
+            this.response = response;
+            this.path = path;
+            this.bytesWritten = bytesWritten;
+        }
+
+        @Override
+        public HttpClientResponse getResponse() {
+            return response;
+        }
+
+        @Override
+        public String getPath() {
+            return path;
+        }
+
+        @Override
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+    }
+
+}
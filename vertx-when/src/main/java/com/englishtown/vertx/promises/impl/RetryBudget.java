@@ -0,0 +1,64 @@
+package com.englishtown.vertx.promises.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock free retry budget.  Every request deposits {@code ratio} tokens and every retry withdraws one, so over time
+ * retries can't exceed the ratio of requests.  The balance is capped so a quiet period can't build up a burst of retries.
+ */
+public class RetryBudget {
+
+    public static final int DEFAULT_MAX_BALANCE = 10;
+
+    // Tokens are stored in thousandths so fractional deposits stay exact
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long maxBalance;
+    private final AtomicLong balance;
+
+    public RetryBudget(double ratio) {
+        this(ratio, DEFAULT_MAX_BALANCE);
+    }
+
+    /**
+     * @param ratio      the number of retries allowed per request
+     * @param maxBalance the maximum number of retries that can be saved up, also the initial balance
+     */
+    public RetryBudget(double ratio, int maxBalance) {
+        this.deposit = (long) (ratio * SCALE);
+        this.maxBalance = maxBalance * SCALE;
+        this.balance = new AtomicLong(this.maxBalance);
+    }
+
+    /**
+     * Records a request, adding to the budget
+     */
+    public void recordRequest() {
+        for (; ; ) {
+            long current = balance.get();
+            long next = Math.min(maxBalance, current + deposit);
+            if (current == next || balance.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Withdraws a retry from the budget
+     *
+     * @return true if the retry is allowed
+     */
+    public boolean tryRetry() {
+        for (; ; ) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+}
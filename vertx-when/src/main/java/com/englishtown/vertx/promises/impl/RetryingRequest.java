@@ -0,0 +1,137 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.promises.Deferred;
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.When;
+import com.englishtown.vertx.promises.DeadlineExceededException;
+import com.englishtown.vertx.promises.RetryPolicy;
+import io.vertx.core.Vertx;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Runs request attempts according to a {@link RetryPolicy}, waiting between attempts with vert.x timers
+ *
+ * @param <T> the request result type
+ */
+class RetryingRequest<T> {
+
+    private final Vertx vertx;
+    private final When when;
+    private final RetryPolicy policy;
+    private final RetryBudget budget;
+    private final long deadline;
+    private final RequestCancellation cancellation;
+    private final Supplier<Promise<T>> attempt;
+    private final ToIntFunction<T> statusCode;
+    private final Consumer<T> discard;
+
+    /**
+     * @param vertx        the vertx instance used for backoff timers
+     * @param when         the when instance
+     * @param policy       the retry policy
+     * @param budget       the retry budget for the host, or null for no budget
+     * @param deadline     the request deadline in epoch milliseconds, or -1 for none
+     * @param cancellation cancels the backoff timer when the request is cancelled, or null if it can't be
+     * @param attempt      starts a new attempt
+     * @param statusCode   returns the response status code of a result
+     * @param discard      disposes of a result with a retryable status code before the next attempt
+     */
+    RetryingRequest(
+            Vertx vertx,
+            When when,
+            RetryPolicy policy,
+            RetryBudget budget,
+            long deadline,
+            RequestCancellation cancellation,
+            Supplier<Promise<T>> attempt,
+            ToIntFunction<T> statusCode,
+            Consumer<T> discard) {
+        this.vertx = vertx;
+        this.when = when;
+        this.policy = policy;
+        this.budget = budget;
+        this.deadline = deadline;
+        this.cancellation = cancellation;
+        this.attempt = attempt;
+        this.statusCode = statusCode;
+        this.discard = discard;
+    }
+
+    Promise<T> run() {
+        if (budget != null) {
+            budget.recordRequest();
+        }
+        return run(1);
+    }
+
+    private Promise<T> run(int attemptNumber) {
+        Promise<T> p;
+        try {
+            p = attempt.get();
+        } catch (RuntimeException e) {
+            p = when.reject(e);
+        }
+
+        return p.then(
+                result -> {
+                    if (policy.isRetryable(statusCode.applyAsInt(result)) && shouldRetry(attemptNumber)) {
+                        discard.accept(result);
+                        return retry(attemptNumber);
+                    }
+                    return when.resolve(result);
+                },
+                t -> {
+                    if (policy.isRetryable(t) && shouldRetry(attemptNumber)) {
+                        return retry(attemptNumber);
+                    }
+                    return when.reject(t);
+                });
+    }
+
+    private boolean shouldRetry(int attemptNumber) {
+        return attemptNumber < policy.getMaxAttempts() && (budget == null || budget.tryRetry());
+    }
+
+    private Promise<T> retry(int attemptNumber) {
+        long delay = getBackoff(attemptNumber);
+        if (deadline >= 0 && delay >= deadline - System.currentTimeMillis()) {
+            // The next attempt could not start before the deadline
+            return when.reject(new DeadlineExceededException(deadline));
+        }
+        if (delay <= 0) {
+            return run(attemptNumber + 1);
+        }
+
+        Deferred<Void> d = when.defer();
+        long timerId = vertx.setTimer(delay, id -> d.resolve((Void) null));
+        if (cancellation != null) {
+            d.getPromise().ensure(cancellation.add(() -> vertx.cancelTimer(timerId)));
+        }
+        return d.getPromise().then(aVoid -> run(attemptNumber + 1));
+    }
+
+    /**
+     * Returns the delay before the next attempt: the base backoff doubled for each earlier retry, capped at the maximum
+     * backoff, and with full jitter a random delay up to that value.
+     */
+    long getBackoff(int attemptNumber) {
+        long base = policy.getBackoffBase();
+        long max = policy.getBackoffMax();
+        if (base <= 0 || max <= 0) {
+            return 0;
+        }
+
+        int shift = Math.min(attemptNumber - 1, 62);
+        long backoff = (base > (max >> shift)) ? max : Math.min(max, base << shift);
+
+        if (policy.getJitter()) {
+            return ThreadLocalRandom.current().nextLong(backoff + 1);
+        }
+        return backoff;
+    }
+
+}
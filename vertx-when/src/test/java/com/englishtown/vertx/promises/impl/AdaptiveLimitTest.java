@@ -0,0 +1,83 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.vertx.promises.AdaptiveLimitOptions;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link AdaptiveLimit}
+ */
+public class AdaptiveLimitTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testGrowsWhileLatencyIsSteady() throws Exception {
+
+        AdaptiveLimit limit = new AdaptiveLimit(10, new AdaptiveLimitOptions());
+
+        for (int i = 0; i < 20; i++) {
+            limit.update(false, 10 * MS, limit.getLimit());
+        }
+        assertTrue(limit.getLimit() > 10);
+        assertEquals(10 * MS, limit.getBaselineNanos());
+        assertEquals(10 * MS, limit.getRecentNanos());
+
+    }
+
+    @Test
+    public void testShrinksWhenLatencyRises() throws Exception {
+
+        AdaptiveLimit limit = new AdaptiveLimit(100, new AdaptiveLimitOptions());
+        limit.update(false, 10 * MS, 100);
+
+        int previous = limit.getLimit();
+        for (int i = 0; i < 20; i++) {
+            limit.update(false, 100 * MS, limit.getLimit());
+        }
+        assertTrue(limit.getLimit() < previous);
+        assertTrue(limit.getRecentNanos() > limit.getBaselineNanos());
+
+    }
+
+    @Test
+    public void testBacksOffOnFailure() throws Exception {
+
+        AdaptiveLimit limit = new AdaptiveLimit(100, new AdaptiveLimitOptions().setMinLimit(85));
+
+        assertEquals(90, limit.update(true, 10 * MS, 100));
+        assertEquals(85, limit.update(true, 10 * MS, 100));
+        // Failures do not count as latency samples
+        assertEquals(-1, limit.getBaselineNanos());
+
+    }
+
+    @Test
+    public void testDoesNotGrowWhenUnderused() throws Exception {
+
+        AdaptiveLimit limit = new AdaptiveLimit(100, new AdaptiveLimitOptions());
+
+        for (int i = 0; i < 20; i++) {
+            limit.update(false, 10 * MS, 10);
+        }
+        assertEquals(100, limit.getLimit());
+
+    }
+
+    @Test
+    public void testMaxLimit() throws Exception {
+
+        AdaptiveLimit limit = new AdaptiveLimit(10, new AdaptiveLimitOptions().setMaxLimit(12));
+
+        for (int i = 0; i < 100; i++) {
+            limit.update(false, 10 * MS, limit.getLimit());
+        }
+        assertEquals(12, limit.getLimit());
+
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.englishtown.vertx.promises.impl;
+
+import io.vertx.core.buffer.Buffer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of {@link BodyAggregator} against appending every chunk to a growing {@link Buffer}, as
+ * {@link io.vertx.core.http.HttpClientResponse#bodyHandler} does.  Each operation aggregates a 1MB body from 8KB
+ * chunks, so the gc.alloc.rate.norm reported by the GC profiler is the bytes allocated per MB received.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.englishtown.vertx.promises.impl.BodyAggregationBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BodyAggregationBenchmark {
+
+    private static final int BODY_SIZE = 1024 * 1024;
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private Buffer[] chunks;
+    private String contentLength;
+
+    @Setup
+    public void setUp() {
+        chunks = new Buffer[BODY_SIZE / CHUNK_SIZE];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = Buffer.buffer(new byte[CHUNK_SIZE]);
+        }
+        contentLength = String.valueOf(BODY_SIZE);
+    }
+
+    @Benchmark
+    public Buffer growingBuffer() {
+        Buffer body = Buffer.buffer();
+        for (Buffer chunk : chunks) {
+            body.appendBuffer(chunk);
+        }
+        return body;
+    }
+
+    @Benchmark
+    public Buffer aggregatorContentLength() {
+        BodyAggregator aggregator = new BodyAggregator(contentLength, -1);
+        for (Buffer chunk : chunks) {
+            aggregator.append(chunk);
+        }
+        return aggregator.toBuffer();
+    }
+
+    @Benchmark
+    public Buffer aggregatorContentLengthLimited() {
+        BodyAggregator aggregator = new BodyAggregator(contentLength, BODY_SIZE);
+        for (Buffer chunk : chunks) {
+            aggregator.append(chunk);
+        }
+        return aggregator.toBuffer();
+    }
+
+    @Benchmark
+    public Buffer aggregatorChunked() {
+        BodyAggregator aggregator = new BodyAggregator(null, -1);
+        for (Buffer chunk : chunks) {
+            aggregator.append(chunk);
+        }
+        return aggregator.toBuffer();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(BodyAggregationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.englishtown.vertx.promises.impl;
+
+import io.vertx.core.buffer.Buffer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for {@link BodyAggregator}
+ */
+public class BodyAggregatorTest {
+
+    @Test
+    public void testContentLength() throws Exception {
+
+        BodyAggregator aggregator = new BodyAggregator("10", -1);
+        aggregator.append(Buffer.buffer("12345"));
+        aggregator.append(Buffer.buffer("67890"));
+
+        assertEquals(10, aggregator.length());
+        assertEquals("1234567890", aggregator.toBuffer().toString());
+
+    }
+
+    @Test
+    public void testUnknownLength() throws Exception {
+
+        BodyAggregator aggregator = new BodyAggregator(null, -1);
+        aggregator.append(Buffer.buffer("123"));
+        aggregator.append(Buffer.buffer("456"));
+        aggregator.append(Buffer.buffer("7890"));
+
+        assertEquals(10, aggregator.length());
+        assertEquals("1234567890", aggregator.toBuffer().toString());
+
+    }
+
+    @Test
+    public void testSingleChunk() throws Exception {
+
+        Buffer chunk = Buffer.buffer("12345");
+        BodyAggregator aggregator = new BodyAggregator("invalid", -1);
+        aggregator.append(chunk);
+
+        assertSame(chunk, aggregator.toBuffer());
+
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+
+        assertEquals(0, new BodyAggregator(null, -1).toBuffer().length());
+        assertEquals(0, new BodyAggregator("0", -1).toBuffer().length());
+        // A declared length too large to trust is not preallocated
+        assertEquals(0, new BodyAggregator(String.valueOf(Long.MAX_VALUE), -1).toBuffer().length());
+        assertEquals(0, new BodyAggregator(String.valueOf(Long.MAX_VALUE), 1024).toBuffer().length());
+
+    }
+
+    @Test
+    public void testPresizeCapped() throws Exception {
+
+        BodyAggregator aggregator = new BodyAggregator(String.valueOf(BodyAggregator.MAX_PRESIZE), -1);
+        assertEquals(BodyAggregator.MAX_PRESIZE, aggregator.toBuffer().getByteBuf().capacity());
+
+        // Longer bodies are held as chunks and copied once into a buffer of the exact size
+        aggregator = new BodyAggregator(String.valueOf(BodyAggregator.MAX_PRESIZE + 1), -1);
+        assertEquals(0, aggregator.toBuffer().getByteBuf().capacity());
+        Buffer chunk = Buffer.buffer(new byte[BodyAggregator.MAX_PRESIZE]);
+        aggregator.append(chunk);
+        aggregator.append(chunk);
+
+        assertEquals(2 * BodyAggregator.MAX_PRESIZE, aggregator.length());
+        Buffer body = aggregator.toBuffer();
+        assertEquals(2 * BodyAggregator.MAX_PRESIZE, body.length());
+        assertEquals(2 * BodyAggregator.MAX_PRESIZE, body.getByteBuf().capacity());
+
+    }
+
+    @Test
+    public void testPresizeMaxBodyBytes() throws Exception {
+
+        BodyAggregator aggregator = new BodyAggregator("10", 10);
+        assertEquals(10, aggregator.toBuffer().getByteBuf().capacity());
+        aggregator.append(Buffer.buffer("12345"));
+        aggregator.append(Buffer.buffer("67890"));
+
+        assertEquals("1234567890", aggregator.toBuffer().toString());
+
+        // A declared length over the limit is not presized
+        assertEquals(0, new BodyAggregator("1000000", 10).toBuffer().getByteBuf().capacity());
+
+    }
+
+}
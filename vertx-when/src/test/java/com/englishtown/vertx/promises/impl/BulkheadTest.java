@@ -0,0 +1,170 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.promises.HandlerState;
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.WhenFactory;
+import com.englishtown.vertx.promises.AdaptiveLimitOptions;
+import com.englishtown.vertx.promises.BulkheadOptions;
+import com.englishtown.vertx.promises.BulkheadRejectedException;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link Bulkhead}
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class BulkheadTest {
+
+    private Bulkhead bulkhead;
+
+    @Mock
+    private Vertx vertx;
+    @Captor
+    private ArgumentCaptor<Handler<Long>> timerCaptor;
+
+    @Before
+    public void setUp() throws Exception {
+        when(vertx.setTimer(anyLong(), any())).thenReturn(5L);
+        BulkheadOptions options = new BulkheadOptions()
+                .setMaxConcurrent(1)
+                .setMaxQueued(1)
+                .setQueueTimeout(100);
+        bulkhead = new Bulkhead(vertx, WhenFactory.createSync(), "test.org:80", options);
+    }
+
+    @Test
+    public void testAcquire_Queued() throws Exception {
+
+        assertNull(bulkhead.acquire());
+        Promise<Void> queued = bulkhead.acquire();
+
+        assertEquals(HandlerState.PENDING, queued.inspect().getState());
+        assertEquals(1, bulkhead.getInFlight());
+        assertEquals(1, bulkhead.getQueueDepth());
+
+        bulkhead.release();
+        assertEquals(HandlerState.FULFILLED, queued.inspect().getState());
+        assertEquals(1, bulkhead.getInFlight());
+        assertEquals(0, bulkhead.getQueueDepth());
+        verify(vertx).cancelTimer(eq(5L));
+
+        bulkhead.release();
+        assertEquals(0, bulkhead.getInFlight());
+
+    }
+
+    @Test
+    public void testAcquire_QueueFull() throws Exception {
+
+        bulkhead.acquire();
+        bulkhead.acquire();
+        Promise<Void> rejected = bulkhead.acquire();
+
+        assertEquals(HandlerState.REJECTED, rejected.inspect().getState());
+        BulkheadRejectedException e = (BulkheadRejectedException) rejected.inspect().getReason();
+        assertFalse(e.isTimedOut());
+        assertEquals("test.org:80", e.getHost());
+        assertEquals(1, bulkhead.getRejectedCount());
+
+    }
+
+    @Test
+    public void testAcquire_Timeout() throws Exception {
+
+        bulkhead.acquire();
+        Promise<Void> queued = bulkhead.acquire();
+        verify(vertx).setTimer(eq(100L), timerCaptor.capture());
+
+        timerCaptor.getValue().handle(5L);
+
+        assertEquals(HandlerState.REJECTED, queued.inspect().getState());
+        assertTrue(((BulkheadRejectedException) queued.inspect().getReason()).isTimedOut());
+        assertEquals(0, bulkhead.getQueueDepth());
+        assertEquals(1, bulkhead.getTimedOutCount());
+
+        // The timed out waiter does not take the released slot
+        bulkhead.release();
+        assertEquals(0, bulkhead.getInFlight());
+
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+
+        bulkhead.acquire();
+        Promise<Void> queued = bulkhead.acquire();
+
+        bulkhead.cancel(queued);
+        assertEquals(HandlerState.REJECTED, queued.inspect().getState());
+        assertEquals(0, bulkhead.getQueueDepth());
+        verify(vertx).cancelTimer(eq(5L));
+
+        // The queue has room again and the cancelled waiter does not take the released slot
+        Promise<Void> next = bulkhead.acquire();
+        assertEquals(HandlerState.PENDING, next.inspect().getState());
+        bulkhead.cancel(next);
+        bulkhead.release();
+        assertEquals(0, bulkhead.getInFlight());
+        assertEquals(0, bulkhead.getTimedOutCount());
+
+    }
+
+    @Test
+    public void testAdaptiveLimit() throws Exception {
+
+        BulkheadOptions options = new BulkheadOptions()
+                .setMaxConcurrent(1)
+                .setMaxQueued(1)
+                .setQueueTimeout(0)
+                .setAdaptiveLimit(new AdaptiveLimitOptions().setBackoffRatio(0.5));
+        bulkhead = new Bulkhead(vertx, WhenFactory.createSync(), "test.org:80", options);
+        assertEquals(-1, bulkhead.getBaselineLatency());
+
+        assertNull(bulkhead.acquire());
+        Promise<Void> queued = bulkhead.acquire();
+
+        // Steady latency at the limit raises it, admitting the waiter
+        for (int i = 0; i < 10 && queued.inspect().getState() == HandlerState.PENDING; i++) {
+            bulkhead.startOutcome().complete(false, 1000000);
+        }
+        assertEquals(HandlerState.FULFILLED, queued.inspect().getState());
+        assertEquals(2, bulkhead.getMaxConcurrent());
+        assertEquals(2, bulkhead.getInFlight());
+        assertEquals(1000000, bulkhead.getBaselineLatency());
+        assertEquals(1000000, bulkhead.getRecentLatency());
+
+        // A failure lowers it again, so the next release retires the slot instead of handing it over
+        bulkhead.startOutcome().complete(true, 1000000);
+        assertEquals(1, bulkhead.getMaxConcurrent());
+        queued = bulkhead.acquire();
+        bulkhead.release();
+        assertEquals(1, bulkhead.getInFlight());
+        assertEquals(HandlerState.PENDING, queued.inspect().getState());
+
+        bulkhead.release();
+        assertEquals(HandlerState.FULFILLED, queued.inspect().getState());
+        assertEquals(1, bulkhead.getInFlight());
+
+    }
+
+    @Test
+    public void testFixedLimit_NoOutcome() throws Exception {
+        assertNull(bulkhead.startOutcome());
+        assertEquals(-1, bulkhead.getRecentLatency());
+    }
+
+}
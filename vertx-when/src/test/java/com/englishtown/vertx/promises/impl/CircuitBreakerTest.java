@@ -0,0 +1,170 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.vertx.promises.CircuitBreakerMetrics;
+import com.englishtown.vertx.promises.CircuitBreakerOptions;
+import com.englishtown.vertx.promises.CircuitBreakerState;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for {@link CircuitBreaker}
+ */
+public class CircuitBreakerTest {
+
+    private long now;
+    private List<CircuitBreakerState> transitions = new ArrayList<>();
+    private CircuitBreaker circuitBreaker;
+
+    @Before
+    public void setUp() throws Exception {
+        CircuitBreakerOptions options = new CircuitBreakerOptions()
+                .setWindowSize(10)
+                .setMinimumCalls(4)
+                .setFailureRateThreshold(50)
+                .setSlowCallRateThreshold(50)
+                .setSlowCallDuration(100)
+                .setOpenDuration(1000)
+                .setHalfOpenProbes(2)
+                .setStateHandler(metrics -> transitions.add(metrics.getState()));
+        circuitBreaker = new CircuitBreaker("test.org:80", options, () -> now);
+    }
+
+    private void complete(boolean failed, long durationMs) {
+        CircuitBreaker.Call call = circuitBreaker.tryAcquire();
+        assertNotNull(call);
+        call.complete(failed, TimeUnit.MILLISECONDS.toNanos(durationMs));
+    }
+
+    private void open() {
+        complete(false, 10);
+        complete(false, 10);
+        complete(true, 10);
+        complete(true, 10);
+        assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void testFailureRate() throws Exception {
+
+        complete(true, 10);
+        complete(true, 10);
+        complete(true, 10);
+        // Fewer than the minimum calls
+        assertEquals(CircuitBreakerState.CLOSED, circuitBreaker.getState());
+        assertEquals(-1, circuitBreaker.getFailureRate(), 0);
+
+        complete(false, 10);
+        assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState());
+        assertEquals(75, circuitBreaker.getFailureRate(), 0);
+
+        assertNull(circuitBreaker.tryAcquire());
+        assertEquals(1, circuitBreaker.getRejectedCount());
+
+    }
+
+    @Test
+    public void testSlowCallRate() throws Exception {
+
+        complete(false, 10);
+        complete(false, 10);
+        complete(false, 200);
+        complete(false, 200);
+
+        assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState());
+        assertEquals(50, circuitBreaker.getSlowCallRate(), 0);
+
+    }
+
+    @Test
+    public void testSlidingWindow() throws Exception {
+
+        for (int i = 0; i < 10; i++) {
+            complete(false, 10);
+        }
+        complete(true, 10);
+        complete(true, 10);
+        complete(true, 10);
+        complete(true, 10);
+
+        assertEquals(10, circuitBreaker.getBufferedCalls());
+        assertEquals(40, circuitBreaker.getFailureRate(), 0);
+        assertEquals(CircuitBreakerState.CLOSED, circuitBreaker.getState());
+
+    }
+
+    @Test
+    public void testHalfOpen_Close() throws Exception {
+
+        open();
+        now = TimeUnit.MILLISECONDS.toNanos(1000);
+
+        CircuitBreaker.Call probe1 = circuitBreaker.tryAcquire();
+        CircuitBreaker.Call probe2 = circuitBreaker.tryAcquire();
+        assertNotNull(probe1);
+        assertNotNull(probe2);
+        assertEquals(CircuitBreakerState.HALF_OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquire());
+
+        probe1.complete(false, 0);
+        assertEquals(CircuitBreakerState.HALF_OPEN, circuitBreaker.getState());
+        probe2.complete(false, 0);
+        assertEquals(CircuitBreakerState.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getBufferedCalls());
+
+        assertEquals(3, transitions.size());
+        assertEquals(CircuitBreakerState.CLOSED, transitions.get(2));
+
+    }
+
+    @Test
+    public void testHalfOpen_Reopen() throws Exception {
+
+        open();
+        now = TimeUnit.MILLISECONDS.toNanos(1000);
+
+        CircuitBreaker.Call probe = circuitBreaker.tryAcquire();
+        probe.complete(true, 0);
+
+        assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquire());
+
+    }
+
+    @Test
+    public void testHalfOpen_Cancel() throws Exception {
+
+        open();
+        now = TimeUnit.MILLISECONDS.toNanos(1000);
+
+        CircuitBreaker.Call probe1 = circuitBreaker.tryAcquire();
+        circuitBreaker.tryAcquire();
+        probe1.cancel();
+        // Completing after cancel has no effect
+        probe1.complete(true, 0);
+
+        assertEquals(CircuitBreakerState.HALF_OPEN, circuitBreaker.getState());
+        assertNotNull(circuitBreaker.tryAcquire());
+
+    }
+
+    @Test
+    public void testStaleCallIgnored() throws Exception {
+
+        CircuitBreaker.Call stale = circuitBreaker.tryAcquire();
+        open();
+
+        stale.complete(false, 0);
+        CircuitBreakerMetrics metrics = circuitBreaker;
+        assertEquals(4, metrics.getBufferedCalls());
+
+    }
+
+}
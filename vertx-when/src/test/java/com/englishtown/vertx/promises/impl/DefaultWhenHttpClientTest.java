@@ -1,13 +1,44 @@
 package com.englishtown.vertx.promises.impl;
 
 import com.englishtown.promises.*;
+import com.englishtown.vertx.promises.BodyTooLargeException;
+import com.englishtown.vertx.promises.BulkheadMetrics;
+import com.englishtown.vertx.promises.BulkheadOptions;
+import com.englishtown.vertx.promises.CancellationToken;
+import com.englishtown.vertx.promises.CircuitBreakerMetrics;
+import com.englishtown.vertx.promises.CircuitBreakerOpenException;
+import com.englishtown.vertx.promises.CircuitBreakerOptions;
+import com.englishtown.vertx.promises.CircuitBreakerState;
+import com.englishtown.vertx.promises.DeadlineExceededException;
+import com.englishtown.vertx.promises.EndpointGroupOptions;
+import com.englishtown.vertx.promises.FileDownload;
+import com.englishtown.vertx.promises.HedgePolicy;
+import com.englishtown.vertx.promises.Http2Options;
 import com.englishtown.vertx.promises.HttpClientResponseAndBody;
+import com.englishtown.vertx.promises.HttpClientResponseAndJson;
+import com.englishtown.vertx.promises.LoadBalancingStrategy;
+import com.englishtown.vertx.promises.MultipartBody;
+import com.englishtown.vertx.promises.RateLimitOptions;
+import com.englishtown.vertx.promises.RateLimitedException;
+import com.englishtown.vertx.promises.RequestCancelledException;
+import com.englishtown.vertx.promises.RequestDescriptor;
+import com.englishtown.vertx.promises.RequestListener;
 import com.englishtown.vertx.promises.RequestOptions;
+import com.englishtown.vertx.promises.RequestTimings;
+import com.englishtown.vertx.promises.ResponseCacheOptions;
+import com.englishtown.vertx.promises.RetryPolicy;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.MultiMap;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.FileSystem;
+import io.vertx.core.file.OpenOptions;
 import io.vertx.core.http.*;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -15,12 +46,25 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.verification.VerificationMode;
 
+import java.nio.ReadOnlyBufferException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
@@ -93,7 +137,7 @@ public class DefaultWhenHttpClientTest {
 
         verify(response).endHandler(endHandlerCaptor.capture());
         endHandlerCaptor.getValue().handle(null);
-        verify(client).close();
+        verify(client, never()).close();
 
     }
 
@@ -149,7 +193,7 @@ public class DefaultWhenHttpClientTest {
     @Test
     public void testRequestAbs_ClientOptions() throws Exception {
 
-        HttpClientOptions clientOptions = mock(HttpClientOptions.class);
+        HttpClientOptions clientOptions = new HttpClientOptions().setKeepAlive(false);
         RequestOptions options = new RequestOptions().setClientOptions(clientOptions);
 
         whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
@@ -158,6 +202,445 @@ public class DefaultWhenHttpClientTest {
 
     }
 
+    @Test
+    public void testRequestAbs_SharedClient() throws Exception {
+
+        whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI);
+        whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI);
+
+        verify(vertx, times(1)).createHttpClient();
+        verify(client, times(2)).requestAbs(any(), anyString());
+
+    }
+
+    @Test
+    public void testRequestAbs_Http2() throws Exception {
+
+        RequestOptions options = new RequestOptions()
+                .setClientOptions(new HttpClientOptions().setDefaultHost("test.org"))
+                .setHttp2(new Http2Options().setMaxConcurrentStreams(50).setMaxConnections(2));
+
+        whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+        whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI, options);
+
+        ArgumentCaptor<HttpClientOptions> optionsCaptor = ArgumentCaptor.forClass(HttpClientOptions.class);
+        verify(vertx, times(1)).createHttpClient(optionsCaptor.capture());
+        verify(client, times(2)).requestAbs(any(), anyString());
+
+        HttpClientOptions clientOptions = optionsCaptor.getValue();
+        assertEquals(HttpVersion.HTTP_2, clientOptions.getProtocolVersion());
+        assertEquals(50, clientOptions.getHttp2MultiplexingLimit());
+        assertEquals(2, clientOptions.getHttp2MaxPoolSize());
+        assertEquals(false, clientOptions.isHttp2ClearTextUpgrade());
+        assertEquals("test.org", clientOptions.getDefaultHost());
+        // The caller's options are not modified
+        assertEquals(HttpVersion.HTTP_1_1, options.getClientOptions().getProtocolVersion());
+        // The HTTP/2 options are built once, whichever setter is called last
+        assertSame(options.getEffectiveClientOptions(), options.getEffectiveClientOptions());
+        RequestOptions reordered = new RequestOptions()
+                .setHttp2(new Http2Options())
+                .setClientOptions(new HttpClientOptions().setDefaultHost("test.org"));
+        assertEquals(HttpVersion.HTTP_2, reordered.getEffectiveClientOptions().getProtocolVersion());
+        assertEquals("test.org", reordered.getEffectiveClientOptions().getDefaultHost());
+
+    }
+
+    @Test
+    public void testRequestAbs_ExceptionReleasesClient() throws Exception {
+
+        ArgumentCaptor<Handler<Throwable>> exceptionCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        HttpClientRegistry registry = new HttpClientRegistry(vertx, 1);
+        whenHttpClient = new DefaultWhenHttpClient(vertx, WhenFactory.createSync(), registry);
+
+        Promise<HttpClientResponse> p = whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI);
+        verify(request).exceptionHandler(exceptionCaptor.capture());
+        exceptionCaptor.getValue().handle(new RuntimeException());
+
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+
+        Thread.sleep(2);
+        registry.evictIdle();
+        verify(client).close();
+
+    }
+
+    @Test
+    public void testClose() throws Exception {
+
+        whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI);
+        whenHttpClient.close();
+        verify(client).close();
+
+    }
+
+    @Test
+    public void testRequestAbs_Bulkhead() throws Exception {
+
+        RequestOptions options = new RequestOptions()
+                .setBulkhead(new BulkheadOptions().setMaxConcurrent(1).setQueueTimeout(0));
+
+        Promise<HttpClientResponse> p1 = whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+        Promise<HttpClientResponse> p2 = whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+
+        verify(client, times(1)).requestAbs(any(), anyString());
+        BulkheadMetrics metrics = whenHttpClient.getBulkheadMetrics().get("test.org:80");
+        assertEquals(1, metrics.getInFlight());
+        assertEquals(1, metrics.getQueueDepth());
+
+        verify(request).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+        assertEquals(HandlerState.FULFILLED, p1.inspect().getState());
+
+        // A handler set by the caller still releases the slot at the end of the response
+        p1.inspect().getValue().endHandler(aVoid -> {
+        });
+        verify(response, times(2)).endHandler(endHandlerCaptor.capture());
+        endHandlerCaptor.getValue().handle(null);
+
+        verify(client, times(2)).requestAbs(any(), anyString());
+        assertEquals(1, metrics.getInFlight());
+        assertEquals(0, metrics.getQueueDepth());
+        assertEquals(HandlerState.PENDING, p2.inspect().getState());
+
+    }
+
+    @Test
+    public void testRequestAbs_BulkheadCancelled() throws Exception {
+
+        CancellationToken token = new CancellationToken();
+        BulkheadOptions bulkheadOptions = new BulkheadOptions().setMaxConcurrent(1).setMaxQueued(1).setQueueTimeout(0);
+
+        whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, new RequestOptions().setBulkhead(bulkheadOptions));
+        Promise<HttpClientResponse> p = whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI,
+                new RequestOptions().setBulkhead(bulkheadOptions).setCancellationToken(token));
+        BulkheadMetrics metrics = whenHttpClient.getBulkheadMetrics().get("test.org:80");
+        assertEquals(1, metrics.getQueueDepth());
+
+        // The queued request fails and leaves the queue without waiting for a slot
+        token.cancel();
+        assertTrue(p.inspect().getReason() instanceof RequestCancelledException);
+        assertEquals(0, metrics.getQueueDepth());
+        assertEquals(1, metrics.getInFlight());
+        verify(client, times(1)).requestAbs(any(), anyString());
+
+    }
+
+    @Test
+    public void testRequestAbs_RateLimit() throws Exception {
+
+        RequestOptions options = new RequestOptions()
+                .setRateLimit(new RateLimitOptions(1));
+
+        whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+        Promise<HttpClientResponse> p = whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+
+        // Rejected without creating a request
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+        RateLimitedException e = (RateLimitedException) p.inspect().getReason();
+        assertEquals("test.org:80", e.getHost());
+        assertTrue(e.getRetryAfterMs() > 0);
+        verify(client, times(1)).requestAbs(any(), anyString());
+
+    }
+
+    @Test
+    public void testRequestAbs_RateLimit_Queued() throws Exception {
+
+        RequestOptions options = new RequestOptions()
+                .setRateLimit(new RateLimitOptions(1).setMaxWait(5000));
+
+        whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+        Promise<HttpClientResponse> p = whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+
+        ArgumentCaptor<Handler<Long>> timerCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        verify(vertx).setTimer(anyLong(), timerCaptor.capture());
+        verify(client, times(1)).requestAbs(any(), anyString());
+        assertEquals(HandlerState.PENDING, p.inspect().getState());
+
+        timerCaptor.getValue().handle(0L);
+        verify(client, times(2)).requestAbs(any(), anyString());
+        verify(request, times(2)).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+        assertEquals(HandlerState.FULFILLED, p.inspect().getState());
+
+    }
+
+    @Test
+    public void testRequestAbs_RateLimit_CircuitBreakerOpen() throws Exception {
+
+        ArgumentCaptor<Handler<Throwable>> exceptionCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        CircuitBreakerOptions circuitBreaker = new CircuitBreakerOptions().setMinimumCalls(1).setWindowSize(1);
+
+        whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, new RequestOptions().setCircuitBreaker(circuitBreaker));
+        verify(request).exceptionHandler(exceptionCaptor.capture());
+        exceptionCaptor.getValue().handle(new java.io.IOException());
+
+        // Requests rejected by the open circuit breaker don't use up the rate limit
+        RequestOptions options = new RequestOptions()
+                .setCircuitBreaker(circuitBreaker)
+                .setRateLimit(new RateLimitOptions(1));
+        for (int i = 0; i < 2; i++) {
+            Promise<HttpClientResponse> p = whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+            assertTrue(p.inspect().getReason() instanceof CircuitBreakerOpenException);
+        }
+        verify(client, times(1)).requestAbs(any(), anyString());
+
+    }
+
+    @Test
+    public void testRequestAbs_RateLimit_PastDeadline() throws Exception {
+
+        RequestOptions options = new RequestOptions()
+                .setRateLimit(new RateLimitOptions(1).setMaxWait(5000));
+
+        whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+        Promise<HttpClientResponse> p = whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI,
+                new RequestOptions(options).setDeadlineIn(100));
+
+        // Fails without waiting for a permit it could not use in time
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+        assertTrue(p.inspect().getReason() instanceof DeadlineExceededException);
+        verify(vertx, never()).setTimer(anyLong(), any());
+        verify(client, times(1)).requestAbs(any(), anyString());
+
+    }
+
+    @Test
+    public void testRequestAbs_CircuitBreaker() throws Exception {
+
+        ArgumentCaptor<Handler<Throwable>> exceptionCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        RequestOptions options = new RequestOptions()
+                .setCircuitBreaker(new CircuitBreakerOptions().setMinimumCalls(2).setWindowSize(2));
+
+        whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+        verify(request).handler(responseHandlerCaptor.capture());
+        when(response.statusCode()).thenReturn(503);
+        responseHandlerCaptor.getValue().handle(response);
+
+        whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+        verify(request, times(2)).exceptionHandler(exceptionCaptor.capture());
+        exceptionCaptor.getValue().handle(new java.io.IOException());
+
+        CircuitBreakerMetrics metrics = whenHttpClient.getCircuitBreakerMetrics().get("test.org:80");
+        assertEquals(CircuitBreakerState.OPEN, metrics.getState());
+
+        // Rejected without creating a request
+        Promise<HttpClientResponse> p = whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+        assertTrue(p.inspect().getReason() instanceof CircuitBreakerOpenException);
+        verify(client, times(2)).requestAbs(any(), anyString());
+        assertEquals(1, metrics.getRejectedCount());
+
+    }
+
+    @Test
+    public void testRequestAbsAndReadBody_RetryStatus() throws Exception {
+
+        when(response.statusCode()).thenReturn(503, 200);
+        RequestOptions options = new RequestOptions()
+                .setRetryPolicy(new RetryPolicy().setBackoffBase(10).setJitter(false));
+
+        Promise<HttpClientResponseAndBody> p = whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI, options);
+        verify(request).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+        readBody(body);
+
+        ArgumentCaptor<Handler<Long>> timerCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        verify(vertx).setTimer(eq(10L), timerCaptor.capture());
+        assertEquals(HandlerState.PENDING, p.inspect().getState());
+        timerCaptor.getValue().handle(0L);
+
+        verify(client, times(2)).requestAbs(any(), anyString());
+        verify(request, times(2)).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+        readBody(times(2), body);
+
+        assertEquals(HandlerState.FULFILLED, p.inspect().getState());
+        assertEquals(200, p.inspect().getValue().getResponse().statusCode());
+
+    }
+
+    @Test
+    public void testRequestAbsAndReadBody_RetryBackoffPastDeadline() throws Exception {
+
+        when(response.statusCode()).thenReturn(503);
+        when(vertx.setTimer(anyLong(), any())).thenReturn(7L);
+        RequestOptions options = new RequestOptions()
+                .setDeadlineIn(100)
+                .setRetryPolicy(new RetryPolicy().setBackoffBase(1000).setJitter(false));
+
+        Promise<HttpClientResponseAndBody> p = whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI, options);
+        verify(request).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+        readBody(body);
+
+        // Fails straight away rather than waiting out a backoff that ends past the deadline
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+        assertTrue(p.inspect().getReason() instanceof DeadlineExceededException);
+        verify(vertx, never()).setTimer(eq(1000L), any());
+        verify(client, times(1)).requestAbs(any(), anyString());
+
+    }
+
+    @Test
+    public void testRequestAbs_RetryException() throws Exception {
+
+        ArgumentCaptor<Handler<Throwable>> exceptionCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        RequestOptions options = new RequestOptions()
+                .setRetryPolicy(new RetryPolicy().setMaxAttempts(2).setBackoffBase(0));
+
+        Promise<HttpClientResponse> p = whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+        verify(request).exceptionHandler(exceptionCaptor.capture());
+        exceptionCaptor.getValue().handle(new java.io.IOException());
+
+        verify(client, times(2)).requestAbs(any(), anyString());
+        verify(request, times(2)).exceptionHandler(exceptionCaptor.capture());
+        exceptionCaptor.getValue().handle(new java.io.IOException());
+
+        // Max attempts reached
+        verify(client, times(2)).requestAbs(any(), anyString());
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+
+    }
+
+    @Test
+    public void testRequestAbs_RetryNonIdempotent() throws Exception {
+
+        ArgumentCaptor<Handler<Throwable>> exceptionCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        RequestOptions options = new RequestOptions()
+                .setRetryPolicy(new RetryPolicy().setBackoffBase(0));
+
+        Promise<HttpClientResponse> p = whenHttpClient.requestAbs(HttpMethod.POST, absoluteURI, options);
+        verify(request).exceptionHandler(exceptionCaptor.capture());
+        exceptionCaptor.getValue().handle(new java.io.IOException());
+
+        verify(client, times(1)).requestAbs(any(), anyString());
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+
+    }
+
+    @Test
+    public void testRequestAbs_Hedge() throws Exception {
+
+        HttpClientRequest hedgeRequest = mock(HttpClientRequest.class);
+        when(hedgeRequest.handler(any())).thenReturn(hedgeRequest);
+        when(hedgeRequest.exceptionHandler(any())).thenReturn(hedgeRequest);
+        when(client.requestAbs(any(), anyString())).thenReturn(request, hedgeRequest);
+
+        RequestOptions options = new RequestOptions()
+                .setHedgePolicy(new HedgePolicy().setDelay(20).setPercentile(0));
+
+        Promise<HttpClientResponse> p = whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+
+        ArgumentCaptor<Handler<Long>> timerCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        verify(vertx).setTimer(eq(20L), timerCaptor.capture());
+        timerCaptor.getValue().handle(0L);
+
+        verify(client, times(2)).requestAbs(any(), anyString());
+        verify(hedgeRequest).end();
+        verify(hedgeRequest).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+
+        // The hedge wins and the primary is reset
+        assertEquals(HandlerState.FULFILLED, p.inspect().getState());
+        verify(request).reset();
+        verify(hedgeRequest, never()).reset();
+
+    }
+
+    @Test
+    public void testRequestAbs_HedgeDelayStable() throws Exception {
+
+        RequestOptions options = new RequestOptions().setHedgePolicy(new HedgePolicy().setDelay(20));
+        List<Long> delays = new ArrayList<>();
+        when(vertx.setTimer(anyLong(), any())).thenAnswer(invocation -> {
+            delays.add((Long) invocation.getArguments()[0]);
+            // The primary has been outstanding for at least 2ms when the hedge is sent
+            Thread.sleep(2);
+            ((Handler<Long>) invocation.getArguments()[1]).handle(0L);
+            return 0L;
+        });
+
+        for (int i = 0; i < 2 * LatencyTracker.MIN_SAMPLES; i++) {
+            HttpClientRequest primary = mock(HttpClientRequest.class);
+            HttpClientRequest hedge = mock(HttpClientRequest.class);
+            for (HttpClientRequest r : Arrays.asList(primary, hedge)) {
+                when(r.handler(any())).thenReturn(r);
+                when(r.exceptionHandler(any())).thenReturn(r);
+                when(r.headers()).thenReturn(headers);
+            }
+            when(client.requestAbs(any(), anyString())).thenReturn(primary, hedge);
+
+            Promise<HttpClientResponse> p = whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+            ArgumentCaptor<Handler<HttpClientResponse>> captor = ArgumentCaptor.forClass((Class) Handler.class);
+            verify(hedge).handler(captor.capture());
+            captor.getValue().handle(response);
+
+            assertEquals(HandlerState.FULFILLED, p.inspect().getState());
+            verify(primary).reset();
+        }
+
+        // The hedges win in well under 2ms, the reset primaries keep the delay from collapsing to the winners' latency
+        assertTrue(delays.get(delays.size() - 1) >= 2);
+
+    }
+
+    @Test
+    public void testRequestAbs_HedgeFirstResponseWins() throws Exception {
+
+        RequestOptions options = new RequestOptions()
+                .setHedgePolicy(new HedgePolicy().setDelay(20));
+
+        Promise<HttpClientResponse> p = whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+
+        verify(request).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+
+        assertEquals(HandlerState.FULFILLED, p.inspect().getState());
+        verify(vertx).cancelTimer(anyLong());
+        verify(request, never()).reset();
+
+    }
+
+    @Test
+    public void testRequestAbs_HedgeWaitsForOtherAttempt() throws Exception {
+
+        HttpClientRequest hedgeRequest = mock(HttpClientRequest.class);
+        when(hedgeRequest.handler(any())).thenReturn(hedgeRequest);
+        when(hedgeRequest.exceptionHandler(any())).thenReturn(hedgeRequest);
+        when(client.requestAbs(any(), anyString())).thenReturn(request, hedgeRequest);
+
+        ArgumentCaptor<Handler<Throwable>> exceptionCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        RequestOptions options = new RequestOptions()
+                .setHedgePolicy(new HedgePolicy().setDelay(20));
+
+        Promise<HttpClientResponse> p = whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+
+        ArgumentCaptor<Handler<Long>> timerCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        verify(vertx).setTimer(eq(20L), timerCaptor.capture());
+        timerCaptor.getValue().handle(0L);
+
+        verify(request).exceptionHandler(exceptionCaptor.capture());
+        exceptionCaptor.getValue().handle(new java.io.IOException());
+        assertEquals(HandlerState.PENDING, p.inspect().getState());
+
+        verify(hedgeRequest).exceptionHandler(exceptionCaptor.capture());
+        exceptionCaptor.getValue().handle(new java.io.IOException());
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+
+    }
+
+    @Test
+    public void testRequestAbs_HedgeNotIdempotent() throws Exception {
+
+        RequestOptions options = new RequestOptions()
+                .setHedgePolicy(new HedgePolicy());
+
+        whenHttpClient.requestAbs(HttpMethod.PUT, absoluteURI, options);
+        verify(vertx, never()).setTimer(anyLong(), any());
+
+    }
+
     @Test
     public void testRequestAbs_Data() throws Exception {
 
@@ -181,6 +664,76 @@ public class DefaultWhenHttpClientTest {
 
     }
 
+    @Test
+    public void testRequestAbs_BodyStream() throws Exception {
+
+        ReadStream<Buffer> source = mock(ReadStream.class);
+        when(source.handler(any())).thenReturn(source);
+        when(source.exceptionHandler(any())).thenReturn(source);
+        when(source.endHandler(any())).thenReturn(source);
+        ArgumentCaptor<Handler<Throwable>> exceptionCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+
+        RequestOptions options = new RequestOptions()
+                .setBodyStream(source)
+                .setRetryPolicy(new RetryPolicy().setBackoffBase(0));
+
+        Promise<HttpClientResponse> p = whenHttpClient.requestAbs(HttpMethod.PUT, absoluteURI, options);
+        verify(request).setChunked(true);
+        verify(request, never()).end();
+        verify(source).resume();
+
+        verify(source).exceptionHandler(exceptionCaptor.capture());
+        exceptionCaptor.getValue().handle(new java.io.IOException());
+
+        // Streamed bodies are not retried
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+        verify(request).reset();
+        verify(client, times(1)).requestAbs(any(), anyString());
+
+    }
+
+    @Test
+    public void testRequestAbs_BodyStream_Cancelled() throws Exception {
+
+        ReadStream<Buffer> source = mock(ReadStream.class);
+        when(source.handler(any())).thenReturn(source);
+        when(source.exceptionHandler(any())).thenReturn(source);
+        when(source.endHandler(any())).thenReturn(source);
+        CancellationToken token = new CancellationToken();
+
+        Promise<HttpClientResponse> p = whenHttpClient.requestAbs(HttpMethod.PUT, absoluteURI,
+                new RequestOptions().setBodyStream(source).setCancellationToken(token));
+        verify(source).resume();
+
+        // Resetting the request mid-stream stops reading the source
+        token.cancel();
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+        verify(request).reset();
+        verify(source).pause();
+        verify(source).handler(null);
+        verify(source).endHandler(null);
+
+    }
+
+    @Test
+    public void testRequestAbs_MultipartBody() throws Exception {
+
+        MultipartBody body = new MultipartBody("b").addField("name", "value");
+        RequestOptions options = new RequestOptions().setMultipartBody(body);
+        assertSame(body, options.getMultipartBody());
+        when(headers.get(HttpHeaders.CONTENT_LENGTH)).thenReturn(String.valueOf(body.getLength()));
+
+        whenHttpClient.requestAbs(HttpMethod.POST, absoluteURI, options);
+        verify(headers).set(HttpHeaders.CONTENT_TYPE, "multipart/form-data; boundary=b");
+        verify(headers).set(HttpHeaders.CONTENT_LENGTH, String.valueOf(body.getLength()));
+
+        // Sent with a Content-Length so the request is not chunked
+        verify(request, never()).setChunked(true);
+        verify(request, times(4)).write(any(Buffer.class));
+        verify(request).end();
+
+    }
+
     @Test
     public void testRequestAbs_Header() throws Exception {
 
@@ -284,61 +837,909 @@ public class DefaultWhenHttpClientTest {
 
     }
 
-    private void verifyResponseAndBody(Promise<HttpClientResponseAndBody> p) throws Exception {
-
-        State<HttpClientResponseAndBody> state = p.inspect();
-        assertEquals(HandlerState.PENDING, state.getState());
+    @Test
+    public void testDownload() throws Exception {
+
+        FileSystem fileSystem = mock(FileSystem.class);
+        AsyncFile file = mock(AsyncFile.class);
+        when(vertx.fileSystem()).thenReturn(fileSystem);
+        when(response.handler(any())).thenReturn(response);
+        when(response.endHandler(any())).thenReturn(response);
+        when(response.exceptionHandler(any())).thenReturn(response);
+        ArgumentCaptor<Handler<AsyncResult<AsyncFile>>> openCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        ArgumentCaptor<Handler<AsyncResult<Void>>> flushCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        ArgumentCaptor<Handler<AsyncResult<Void>>> closeCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        ArgumentCaptor<Handler<Void>> drainCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        ArgumentCaptor<Handler<AsyncResult<Void>>> writeCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+
+        Promise<FileDownload> p = whenHttpClient.download(
+                RequestDescriptor.requestAbs(HttpMethod.GET, absoluteURI), "/tmp/download", new OpenOptions(), true);
 
-        verify(request).end();
         verify(request).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+        verify(response).pause();
+
+        verify(fileSystem).open(eq("/tmp/download"), any(), openCaptor.capture());
+        openCaptor.getValue().handle(Future.succeededFuture(file));
+        verify(response).resume();
+
+        verify(response).handler(bodyHandlerCaptor.capture());
+        Buffer chunk = Buffer.buffer("hello");
+        bodyHandlerCaptor.getValue().handle(chunk);
+        verify(file).write(eq(chunk), eq(0L), writeCaptor.capture());
+        writeCaptor.getValue().handle(Future.succeededFuture());
+
+        // File write queue full
+        when(file.writeQueueFull()).thenReturn(true);
+        bodyHandlerCaptor.getValue().handle(chunk);
+        verify(file).write(eq(chunk), eq(5L), writeCaptor.capture());
+        verify(response, times(2)).pause();
+        verify(file).drainHandler(drainCaptor.capture());
+        drainCaptor.getValue().handle(null);
+        verify(response, times(2)).resume();
+
+        // The flush waits for the outstanding write
+        verify(response, atLeastOnce()).endHandler(endHandlerCaptor.capture());
+        endHandlerCaptor.getValue().handle(null);
+        verify(file, never()).flush(any());
+        writeCaptor.getValue().handle(Future.succeededFuture());
+        verify(file).flush(flushCaptor.capture());
+        assertEquals(HandlerState.PENDING, p.inspect().getState());
+        flushCaptor.getValue().handle(Future.succeededFuture());
+        verify(file).close(closeCaptor.capture());
+        closeCaptor.getValue().handle(Future.succeededFuture());
+
+        assertEquals(HandlerState.FULFILLED, p.inspect().getState());
+        assertEquals(10, p.inspect().getValue().getBytesWritten());
+        assertEquals("/tmp/download", p.inspect().getValue().getPath());
+
+    }
 
+    @Test
+    public void testDownload_WriteFailed() throws Exception {
+
+        FileSystem fileSystem = mock(FileSystem.class);
+        AsyncFile file = mock(AsyncFile.class);
+        when(vertx.fileSystem()).thenReturn(fileSystem);
+        when(response.handler(any())).thenReturn(response);
+        when(response.endHandler(any())).thenReturn(response);
+        when(response.exceptionHandler(any())).thenReturn(response);
+        ArgumentCaptor<Handler<AsyncResult<AsyncFile>>> openCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        ArgumentCaptor<Handler<AsyncResult<Void>>> writeCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        ArgumentCaptor<Handler<AsyncResult<Void>>> closeCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+
+        Promise<FileDownload> p = whenHttpClient.download(
+                RequestDescriptor.requestAbs(HttpMethod.GET, absoluteURI), "/tmp/download", new OpenOptions(), false);
+
+        verify(request).handler(responseHandlerCaptor.capture());
         responseHandlerCaptor.getValue().handle(response);
-        verify(response).bodyHandler(bodyHandlerCaptor.capture());
+        verify(fileSystem).open(eq("/tmp/download"), any(), openCaptor.capture());
+        openCaptor.getValue().handle(Future.succeededFuture(file));
 
-        bodyHandlerCaptor.getValue().handle(body);
-        verify(client).close();
+        verify(response).handler(bodyHandlerCaptor.capture());
+        Buffer chunk = Buffer.buffer("hello");
+        bodyHandlerCaptor.getValue().handle(chunk);
+        verify(response, atLeastOnce()).endHandler(endHandlerCaptor.capture());
+        endHandlerCaptor.getValue().handle(null);
+        verify(file, never()).close(any());
 
-        state = p.inspect();
-        assertEquals(HandlerState.FULFILLED, state.getState());
-        HttpClientResponseAndBody responseAndBody = state.getValue();
+        verify(file).write(eq(chunk), eq(0L), writeCaptor.capture());
+        writeCaptor.getValue().handle(Future.failedFuture("Disk full"));
+        verify(file).close(closeCaptor.capture());
+        closeCaptor.getValue().handle(Future.succeededFuture());
 
-        assertEquals(response, responseAndBody.getResponse());
-        assertEquals(body, responseAndBody.getBody());
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+        assertEquals("Disk full", p.inspect().getReason().getMessage());
 
     }
 
     @Test
-    public void testRequestAndReadBody1() throws Exception {
+    public void testDownload_OpenFailed() throws Exception {
 
-        Promise<HttpClientResponseAndBody> p = whenHttpClient.requestAndReadBody(HttpMethod.GET, port, host, requestURI);
-        verify(client).request(any(), eq(port), eq(host), eq(requestURI));
-        verifyResponseAndBody(p);
+        FileSystem fileSystem = mock(FileSystem.class);
+        when(vertx.fileSystem()).thenReturn(fileSystem);
+        ArgumentCaptor<Handler<AsyncResult<AsyncFile>>> openCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+
+        Promise<FileDownload> p = whenHttpClient.download(
+                RequestDescriptor.requestAbs(HttpMethod.GET, absoluteURI), "/tmp/download", new OpenOptions(), false);
+
+        verify(request).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+        verify(fileSystem).open(eq("/tmp/download"), any(), openCaptor.capture());
+        openCaptor.getValue().handle(Future.failedFuture("No such directory"));
+
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+        verify(request).reset();
 
     }
 
     @Test
-    public void testRequestAndReadBody2() throws Exception {
+    public void testStreamBody() throws Exception {
 
-        Promise<HttpClientResponseAndBody> p = whenHttpClient.requestAndReadBody(HttpMethod.GET, host, requestURI);
-        verify(client).request(any(), eq(host), eq(requestURI));
-        verifyResponseAndBody(p);
+        when(response.handler(any())).thenReturn(response);
+        when(response.endHandler(any())).thenReturn(response);
+        when(response.exceptionHandler(any())).thenReturn(response);
+        Deferred<Void> chunkDeferred = WhenFactory.createSync().defer();
+
+        Promise<Long> p = whenHttpClient.streamBody(response, chunk -> chunkDeferred.getPromise());
+        verify(response).resume();
+        verify(response).handler(bodyHandlerCaptor.capture());
+        verify(response).endHandler(endHandlerCaptor.capture());
+
+        bodyHandlerCaptor.getValue().handle(Buffer.buffer("hello"));
+        verify(response).pause();
+
+        // End is not reported until the last chunk has been handled
+        endHandlerCaptor.getValue().handle(null);
+        assertEquals(HandlerState.PENDING, p.inspect().getState());
+
+        chunkDeferred.resolve((Void) null);
+        verify(response, times(2)).resume();
+        assertEquals(HandlerState.FULFILLED, p.inspect().getState());
+        assertEquals(Long.valueOf(5), p.inspect().getValue());
 
     }
 
     @Test
-    public void testRequestAndReadBody3() throws Exception {
+    public void testStreamBody_Reject() throws Exception {
 
-        Promise<HttpClientResponseAndBody> p = whenHttpClient.requestAndReadBody(HttpMethod.GET, requestURI);
-        verify(client).request(any(), eq(requestURI));
-        verifyResponseAndBody(p);
+        Promise<HttpClientResponse> p1 = whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, new RequestOptions().setPauseResponse(true));
+        verify(request).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+
+        Promise<Long> p2 = whenHttpClient.streamBody(p1.inspect().getValue(), chunk -> WhenFactory.createSync().reject(new RuntimeException()));
+        verify(response).handler(bodyHandlerCaptor.capture());
+        bodyHandlerCaptor.getValue().handle(Buffer.buffer("hello"));
+
+        assertEquals(HandlerState.REJECTED, p2.inspect().getState());
+        verify(request).reset();
 
     }
 
-    @Test(expected = IllegalStateException.class)
-    public void testRequestAndReadBody_Pause_Fail() throws Exception {
+    private void readBody(Buffer body) {
+        readBody(times(1), body);
+    }
 
-        RequestOptions options = new RequestOptions().setPauseResponse(true);
-        whenHttpClient.requestAndReadBody(HttpMethod.GET, requestURI, options);
+    /**
+     * Sends the body as a single chunk to the handlers set on the response by the nth body read
+     */
+    private void readBody(VerificationMode mode, Buffer body) {
+        ArgumentCaptor<Handler<Buffer>> chunkCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        ArgumentCaptor<Handler<Void>> endCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        verify(response, mode).handler(chunkCaptor.capture());
+        verify(response, mode).endHandler(endCaptor.capture());
+        chunkCaptor.getValue().handle(body);
+        endCaptor.getValue().handle(null);
+    }
+
+    private void verifyResponseAndBody(Promise<HttpClientResponseAndBody> p) throws Exception {
+
+        State<HttpClientResponseAndBody> state = p.inspect();
+        assertEquals(HandlerState.PENDING, state.getState());
+
+        verify(request).end();
+        verify(request).handler(responseHandlerCaptor.capture());
+
+        responseHandlerCaptor.getValue().handle(response);
+        readBody(body);
+        verify(client, never()).close();
+
+        state = p.inspect();
+        assertEquals(HandlerState.FULFILLED, state.getState());
+        HttpClientResponseAndBody responseAndBody = state.getValue();
+
+        assertEquals(response, responseAndBody.getResponse());
+        assertEquals(body, responseAndBody.getBody());
+
+    }
+
+    @Test
+    public void testRequestAndReadBody1() throws Exception {
+
+        Promise<HttpClientResponseAndBody> p = whenHttpClient.requestAndReadBody(HttpMethod.GET, port, host, requestURI);
+        verify(client).request(any(), eq(port), eq(host), eq(requestURI));
+        verifyResponseAndBody(p);
+
+    }
+
+    @Test
+    public void testRequestAndReadBody2() throws Exception {
+
+        Promise<HttpClientResponseAndBody> p = whenHttpClient.requestAndReadBody(HttpMethod.GET, host, requestURI);
+        verify(client).request(any(), eq(host), eq(requestURI));
+        verifyResponseAndBody(p);
+
+    }
+
+    @Test
+    public void testRequestAndReadBody3() throws Exception {
+
+        Promise<HttpClientResponseAndBody> p = whenHttpClient.requestAndReadBody(HttpMethod.GET, requestURI);
+        verify(client).request(any(), eq(requestURI));
+        verifyResponseAndBody(p);
+
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRequestAndReadBody_Pause_Fail() throws Exception {
+
+        RequestOptions options = new RequestOptions().setPauseResponse(true);
+        whenHttpClient.requestAndReadBody(HttpMethod.GET, requestURI, options);
+
+    }
+
+    @Test
+    public void testRequestAndReadBody_MaxBodyBytes_ContentLength() throws Exception {
+
+        when(response.getHeader(any(CharSequence.class))).thenReturn("11");
+        RequestOptions options = new RequestOptions().setMaxBodyBytes(10);
+
+        Promise<HttpClientResponseAndBody> p = whenHttpClient.requestAndReadBody(HttpMethod.GET, requestURI, options);
+        verify(request).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+
+        State<HttpClientResponseAndBody> state = p.inspect();
+        assertEquals(HandlerState.REJECTED, state.getState());
+        assertTrue(state.getReason() instanceof BodyTooLargeException);
+        assertEquals(11, ((BodyTooLargeException) state.getReason()).getBodyBytes());
+        verify(request).reset();
+        verify(response, never()).handler(any());
+
+    }
+
+    @Test
+    public void testRequestAndReadBody_MaxBodyBytes_Streaming() throws Exception {
+
+        RequestOptions options = new RequestOptions().setMaxBodyBytes(10);
+
+        Promise<HttpClientResponseAndBody> p = whenHttpClient.requestAndReadBody(HttpMethod.GET, requestURI, options);
+        verify(request).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+        verify(response).handler(bodyHandlerCaptor.capture());
+
+        bodyHandlerCaptor.getValue().handle(Buffer.buffer("123456"));
+        assertEquals(HandlerState.PENDING, p.inspect().getState());
+        bodyHandlerCaptor.getValue().handle(Buffer.buffer("123456"));
+
+        State<HttpClientResponseAndBody> state = p.inspect();
+        assertEquals(HandlerState.REJECTED, state.getState());
+        assertTrue(state.getReason() instanceof BodyTooLargeException);
+        verify(request).reset();
+
+    }
+
+    @Test
+    public void testRequestAndReadBody_MaxBodyBytes() throws Exception {
+
+        RequestOptions options = new RequestOptions().setMaxBodyBytes(10);
+
+        Promise<HttpClientResponseAndBody> p = whenHttpClient.requestAndReadBody(HttpMethod.GET, requestURI, options);
+        verify(request).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+        verify(response).handler(bodyHandlerCaptor.capture());
+        verify(response).endHandler(endHandlerCaptor.capture());
+
+        bodyHandlerCaptor.getValue().handle(Buffer.buffer("12345"));
+        bodyHandlerCaptor.getValue().handle(Buffer.buffer("67890"));
+        endHandlerCaptor.getValue().handle(null);
+
+        State<HttpClientResponseAndBody> state = p.inspect();
+        assertEquals(HandlerState.FULFILLED, state.getState());
+        assertEquals("1234567890", state.getValue().getBody().toString());
+        verify(request, never()).reset();
+
+    }
+
+    @Test
+    public void testRequestAndReadBody_RequestListener() throws Exception {
+
+        RequestListener listener = mock(RequestListener.class);
+        whenHttpClient = new DefaultWhenHttpClient(vertx, WhenFactory.createSync(), new HttpClientRegistry(vertx), listener);
+        RequestOptions options = new RequestOptions().setData(Buffer.buffer("abc"));
+
+        Promise<HttpClientResponseAndBody> p = whenHttpClient.requestAbsAndReadBody(HttpMethod.POST, absoluteURI, options);
+
+        // The body is written once a connection is assigned
+        ArgumentCaptor<Handler<HttpVersion>> headCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        verify(headers).set(HttpHeaders.CONTENT_LENGTH, "3");
+        verify(request).sendHead(headCaptor.capture());
+        verify(request, never()).end(any(Buffer.class));
+        headCaptor.getValue().handle(HttpVersion.HTTP_1_1);
+        verify(request).end(any(Buffer.class));
+
+        verify(request).handler(responseHandlerCaptor.capture());
+        when(response.statusCode()).thenReturn(201);
+        responseHandlerCaptor.getValue().handle(response);
+        verify(response).handler(bodyHandlerCaptor.capture());
+        verify(response).endHandler(endHandlerCaptor.capture());
+        verify(listener, never()).onComplete(any());
+
+        bodyHandlerCaptor.getValue().handle(Buffer.buffer("12345"));
+        endHandlerCaptor.getValue().handle(null);
+        assertEquals(HandlerState.FULFILLED, p.inspect().getState());
+
+        ArgumentCaptor<RequestTimings> captor = ArgumentCaptor.forClass(RequestTimings.class);
+        verify(listener).onComplete(captor.capture());
+        RequestTimings timings = captor.getValue();
+        assertEquals("test.org:80", timings.getHost());
+        assertEquals(HttpMethod.POST, timings.getMethod());
+        assertEquals(201, timings.getStatusCode());
+        assertEquals(3, timings.getBytesWritten());
+        assertEquals(5, timings.getBytesRead());
+        assertNull(timings.getFailure());
+        assertFalse(timings.isReset());
+        assertTrue(timings.getQueuedTime() <= timings.getCreatedTime());
+        assertTrue(timings.getCreatedTime() <= timings.getConnectedTime());
+        assertTrue(timings.getConnectedTime() <= timings.getWrittenTime());
+        assertTrue(timings.getWrittenTime() <= timings.getHeadersTime());
+        assertTrue(timings.getFirstByteTime() <= timings.getCompleteTime());
+
+    }
+
+    @Test
+    public void testRequestAbs_RequestListenerRateLimitQueued() throws Exception {
+
+        RequestListener listener = mock(RequestListener.class);
+        whenHttpClient = new DefaultWhenHttpClient(vertx, WhenFactory.createSync(), new HttpClientRegistry(vertx), listener);
+        RequestOptions options = new RequestOptions().setRateLimit(new RateLimitOptions(1).setMaxWait(5000));
+
+        whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+        whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+
+        ArgumentCaptor<Handler<Long>> timerCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        verify(vertx).setTimer(anyLong(), timerCaptor.capture());
+        Thread.sleep(2);
+        timerCaptor.getValue().handle(0L);
+
+        ArgumentCaptor<Handler<Throwable>> exceptionCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        verify(request, times(2)).exceptionHandler(exceptionCaptor.capture());
+        exceptionCaptor.getValue().handle(new RuntimeException());
+
+        // The rate limit wait is part of the queued phase
+        ArgumentCaptor<RequestTimings> captor = ArgumentCaptor.forClass(RequestTimings.class);
+        verify(listener).onComplete(captor.capture());
+        RequestTimings timings = captor.getValue();
+        assertTrue(timings.getCreatedTime() - timings.getQueuedTime() >= TimeUnit.MILLISECONDS.toNanos(2));
+        assertEquals(-1, timings.getConnectedTime());
+
+    }
+
+    @Test
+    public void testRequestAbs_RequestListenerFailure() throws Exception {
+
+        RequestListener listener = mock(RequestListener.class);
+        whenHttpClient = new DefaultWhenHttpClient(vertx, WhenFactory.createSync(), new HttpClientRegistry(vertx), listener);
+        ArgumentCaptor<Handler<Throwable>> exceptionCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+
+        whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI);
+        verify(request).exceptionHandler(exceptionCaptor.capture());
+        Throwable t = new RuntimeException();
+        exceptionCaptor.getValue().handle(t);
+
+        ArgumentCaptor<RequestTimings> captor = ArgumentCaptor.forClass(RequestTimings.class);
+        verify(listener).onComplete(captor.capture());
+        assertEquals(t, captor.getValue().getFailure());
+        assertEquals(-1, captor.getValue().getStatusCode());
+        assertEquals(-1, captor.getValue().getHeadersTime());
+
+    }
+
+    @Test
+    public void testRequestAndReadBody_Deadline() throws Exception {
+
+        when(vertx.setTimer(anyLong(), any())).thenReturn(7L);
+        RequestOptions options = new RequestOptions()
+                .setDeadlineIn(60000)
+                .setDeadlineHeader("X-Request-Timeout");
+
+        Promise<HttpClientResponseAndBody> p = whenHttpClient.requestAndReadBody(HttpMethod.GET, requestURI, options);
+        verify(headers).set(eq("X-Request-Timeout"), anyString());
+
+        ArgumentCaptor<Handler<Long>> timerCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        verify(vertx).setTimer(anyLong(), timerCaptor.capture());
+        verify(request).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+        verify(response).handler(any());
+
+        // Slow drip body
+        assertEquals(HandlerState.PENDING, p.inspect().getState());
+        timerCaptor.getValue().handle(7L);
+
+        State<HttpClientResponseAndBody> state = p.inspect();
+        assertEquals(HandlerState.REJECTED, state.getState());
+        assertTrue(state.getReason() instanceof DeadlineExceededException);
+        verify(request).reset();
+
+    }
+
+    @Test
+    public void testRequestAndReadBody_DeadlineCancelled() throws Exception {
+
+        when(vertx.setTimer(anyLong(), any())).thenReturn(7L);
+        RequestOptions options = new RequestOptions().setDeadlineIn(60000);
+
+        Promise<HttpClientResponseAndBody> p = whenHttpClient.requestAndReadBody(HttpMethod.GET, requestURI, options);
+        verify(request).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+        readBody(body);
+
+        assertEquals(HandlerState.FULFILLED, p.inspect().getState());
+        verify(vertx).cancelTimer(7L);
+        verify(request, never()).reset();
+
+    }
+
+    @Test
+    public void testRequest_DeadlinePassed() throws Exception {
+
+        RequestOptions options = new RequestOptions().setDeadline(System.currentTimeMillis() - 1);
+
+        Promise<HttpClientResponse> p = whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+
+        State<HttpClientResponse> state = p.inspect();
+        assertEquals(HandlerState.REJECTED, state.getState());
+        assertTrue(state.getReason() instanceof DeadlineExceededException);
+        verify(client, never()).requestAbs(any(), anyString());
+        assertEquals(0, options.getRemainingTime());
+
+    }
+
+    @Test
+    public void testRequestAndReadBody_Cancel() throws Exception {
+
+        CancellationToken token = new CancellationToken();
+        RequestOptions options = new RequestOptions().setCancellationToken(token);
+
+        Promise<HttpClientResponseAndBody> p = whenHttpClient.requestAndReadBody(HttpMethod.GET, requestURI, options);
+        verify(request).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+        assertEquals(HandlerState.PENDING, p.inspect().getState());
+
+        token.cancel();
+
+        State<HttpClientResponseAndBody> state = p.inspect();
+        assertEquals(HandlerState.REJECTED, state.getState());
+        assertTrue(state.getReason() instanceof RequestCancelledException);
+        verify(request).reset();
+
+        // Requests started after cancellation are never sent
+        Promise<HttpClientResponse> p2 = whenHttpClient.request(HttpMethod.GET, requestURI, options);
+        assertTrue(p2.inspect().getReason() instanceof RequestCancelledException);
+        verify(client, times(1)).request(any(), anyString());
+
+    }
+
+    @Test
+    public void testRequestAndReadBody_CancelAfterComplete() throws Exception {
+
+        CancellationToken token = new CancellationToken();
+        RequestOptions options = new RequestOptions().setCancellationToken(token);
+
+        Promise<HttpClientResponseAndBody> p = whenHttpClient.requestAndReadBody(HttpMethod.GET, requestURI, options);
+        verify(request).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+        readBody(body);
+
+        token.cancel();
+
+        assertEquals(HandlerState.FULFILLED, p.inspect().getState());
+        verify(request, never()).reset();
+
+    }
+
+    @Test
+    public void testRequestAndReadBody_CancelDuringBackoff() throws Exception {
+
+        when(response.statusCode()).thenReturn(503);
+        when(vertx.setTimer(anyLong(), any())).thenReturn(7L);
+        CancellationToken token = new CancellationToken();
+        RequestOptions options = new RequestOptions()
+                .setCancellationToken(token)
+                .setRetryPolicy(new RetryPolicy().setBackoffBase(1000).setJitter(false));
+
+        Promise<HttpClientResponseAndBody> p = whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI, options);
+        verify(request).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+        readBody(body);
+
+        ArgumentCaptor<Handler<Long>> timerCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        verify(vertx).setTimer(eq(1000L), timerCaptor.capture());
+        assertEquals(HandlerState.PENDING, p.inspect().getState());
+
+        // Rejected straight away rather than after the backoff
+        token.cancel();
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+        assertTrue(p.inspect().getReason() instanceof RequestCancelledException);
+        verify(vertx).cancelTimer(7L);
+
+        timerCaptor.getValue().handle(7L);
+        verify(client, times(1)).requestAbs(any(), anyString());
+
+    }
+
+    @Test
+    public void testRequestAbs_CancelDuringRateLimitWait() throws Exception {
+
+        when(vertx.setTimer(anyLong(), any())).thenReturn(7L);
+        when(vertx.cancelTimer(7L)).thenReturn(true);
+        CancellationToken token = new CancellationToken();
+        RequestOptions options = new RequestOptions()
+                .setRateLimit(new RateLimitOptions(1).setMaxWait(5000));
+
+        whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+        Promise<HttpClientResponse> p = whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI,
+                new RequestOptions(options).setCancellationToken(token));
+        assertEquals(HandlerState.PENDING, p.inspect().getState());
+
+        token.cancel();
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+        assertTrue(p.inspect().getReason() instanceof RequestCancelledException);
+        verify(vertx).cancelTimer(7L);
+
+        // The reserved permit is returned, so the next request waits no longer than the cancelled one would have
+        whenHttpClient.requestAbs(HttpMethod.GET, absoluteURI, options);
+        ArgumentCaptor<Long> delayCaptor = ArgumentCaptor.forClass(Long.class);
+        verify(vertx, times(2)).setTimer(delayCaptor.capture(), any());
+        assertTrue(delayCaptor.getAllValues().get(1) <= delayCaptor.getAllValues().get(0));
+        verify(client, times(1)).requestAbs(any(), anyString());
+
+    }
+
+    @Test
+    public void testRequest_FrozenTemplate() throws Exception {
+
+        MultiMap requestHeaders = new CaseInsensitiveHeaders();
+        when(request.headers()).thenReturn(requestHeaders);
+
+        RequestOptions template = new RequestOptions()
+                .addHeader("Accept", "application/json")
+                .addHeader("X-Client", "a")
+                .setTimeout(1000)
+                .freeze();
+
+        whenHttpClient.request(HttpMethod.GET, requestURI, new RequestOptions(template).addHeader("x-client", "b"));
+
+        assertEquals("application/json", requestHeaders.get("Accept"));
+        assertEquals(Arrays.asList("b"), requestHeaders.getAll("X-Client"));
+        verify(request).setTimeout(1000);
+
+        // The template itself is unchanged and cannot be modified
+        assertEquals("a", template.getMultiMapHeaders().get("X-Client"));
+        assertTrue(template.isFrozen());
+        assertSame(template, template.freeze());
+        try {
+            template.addHeader("X-Other", "c");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+
+    }
+
+    @Test
+    public void testRequestGroup() throws Exception {
+
+        whenHttpClient.addEndpointGroup("users", new EndpointGroupOptions()
+                .setStrategy(LoadBalancingStrategy.ROUND_ROBIN)
+                .setConsecutiveFailures(1)
+                .addEndpoint("host-a", 8081)
+                .addEndpoint("host-b", 8082));
+
+        RequestDescriptor descriptor = RequestDescriptor.requestGroup(HttpMethod.GET, "users", requestURI);
+
+        whenHttpClient.request(descriptor);
+        verify(client).request(eq(HttpMethod.GET), eq(8081), eq("host-a"), eq(requestURI));
+        verify(request).exceptionHandler(any());
+        verify(request).handler(responseHandlerCaptor.capture());
+        when(response.statusCode()).thenReturn(503);
+        responseHandlerCaptor.getValue().handle(response);
+
+        whenHttpClient.request(descriptor);
+        verify(client).request(eq(HttpMethod.GET), eq(8082), eq("host-b"), eq(requestURI));
+
+        // host-a was ejected after the 503
+        whenHttpClient.request(descriptor);
+        verify(client, times(2)).request(eq(HttpMethod.GET), eq(8082), eq("host-b"), eq(requestURI));
+
+        whenHttpClient.removeEndpointGroup("users");
+        Promise<HttpClientResponse> p = whenHttpClient.request(descriptor);
+        assertTrue(p.inspect().getReason() instanceof IllegalArgumentException);
+
+    }
+
+    @Test
+    public void testWarmUp() throws Exception {
+
+        ArgumentCaptor<Handler<HttpConnection>> connectionCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+
+        Promise<Integer> p = whenHttpClient.warmUp(host, port, 2);
+        verify(client, times(2)).request(eq(HttpMethod.OPTIONS), eq(port), eq(host), eq("*"));
+        verify(request, times(2)).connectionHandler(connectionCaptor.capture());
+        verify(request, times(2)).end();
+
+        // Only one new connection was needed
+        connectionCaptor.getValue().handle(mock(HttpConnection.class));
+
+        verify(request, times(2)).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getAllValues().forEach(handler -> handler.handle(response));
+        assertEquals(HandlerState.PENDING, p.inspect().getState());
+
+        // The end handlers set when each response is returned and then by each body read
+        verify(response, times(4)).endHandler(endHandlerCaptor.capture());
+        endHandlerCaptor.getAllValues().forEach(handler -> handler.handle(null));
+
+        State<Integer> state = p.inspect();
+        assertEquals(HandlerState.FULFILLED, state.getState());
+        assertEquals(1, state.getValue().intValue());
+
+    }
+
+    @Test
+    public void testWarmUp_Failed() throws Exception {
+
+        ArgumentCaptor<Handler<Throwable>> exceptionCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+
+        Promise<Integer> p = whenHttpClient.warmUp(host, port, 2);
+        verify(request, times(2)).exceptionHandler(exceptionCaptor.capture());
+        Throwable t = new RuntimeException();
+        exceptionCaptor.getAllValues().forEach(handler -> handler.handle(t));
+
+        State<Integer> state = p.inspect();
+        assertEquals(HandlerState.REJECTED, state.getState());
+        assertSame(t, state.getReason());
+
+    }
+
+    @Test
+    public void testWarmUp_PartlyFailed() throws Exception {
+
+        ArgumentCaptor<Handler<Throwable>> exceptionCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+
+        Promise<Integer> p = whenHttpClient.warmUp(host, port, 2);
+        verify(request, times(2)).handler(responseHandlerCaptor.capture());
+        verify(request, times(2)).exceptionHandler(exceptionCaptor.capture());
+
+        // One request completes and the other fails
+        responseHandlerCaptor.getAllValues().get(0).handle(response);
+        verify(response, times(2)).endHandler(endHandlerCaptor.capture());
+        endHandlerCaptor.getAllValues().forEach(handler -> handler.handle(null));
+        assertEquals(HandlerState.PENDING, p.inspect().getState());
+
+        Throwable t = new RuntimeException();
+        exceptionCaptor.getAllValues().get(1).handle(t);
+
+        State<Integer> state = p.inspect();
+        assertEquals(HandlerState.REJECTED, state.getState());
+        assertSame(t, state.getReason());
+
+    }
+
+    @Test
+    public void testWarmUp_PoliciesNotApplied() throws Exception {
+
+        ArgumentCaptor<Handler<Throwable>> exceptionCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        RequestOptions options = new RequestOptions()
+                .setBulkhead(new BulkheadOptions().setMaxConcurrent(1).setQueueTimeout(0))
+                .setRetryPolicy(new RetryPolicy().setMaxAttempts(2).setBackoffBase(0));
+
+        // Both requests are sent although the bulkhead only allows one
+        Promise<Integer> p = whenHttpClient.warmUp(RequestDescriptor.requestAbs(HttpMethod.HEAD, absoluteURI, options), 2);
+        verify(client, times(2)).requestAbs(any(), anyString());
+
+        // Failed requests are not retried
+        verify(request, times(2)).exceptionHandler(exceptionCaptor.capture());
+        exceptionCaptor.getAllValues().forEach(handler -> handler.handle(new java.io.IOException()));
+        verify(client, times(2)).requestAbs(any(), anyString());
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+        assertTrue(whenHttpClient.getBulkheadMetrics().isEmpty());
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWarmUp_MoreThanPoolSize() throws Exception {
+
+        RequestOptions options = new RequestOptions().setClientOptions(new HttpClientOptions().setMaxPoolSize(2));
+        whenHttpClient.warmUp(RequestDescriptor.request(HttpMethod.HEAD, port, host, "/", options), 3);
+
+    }
+
+    @Test
+    public void testRequestAllAndReadBody() throws Exception {
+
+        List<RequestDescriptor> requests = Arrays.asList(
+                RequestDescriptor.request(HttpMethod.GET, port, host, requestURI),
+                RequestDescriptor.requestAbs(HttpMethod.GET, absoluteURI));
+
+        Promise<List<HttpClientResponseAndBody>> p = whenHttpClient.requestAllAndReadBody(requests, 1, true);
+        verify(client).request(eq(HttpMethod.GET), eq(port), eq(host), eq(requestURI));
+        verify(client, never()).requestAbs(any(), anyString());
+
+        verify(request).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+        readBody(body);
+
+        verify(client).requestAbs(eq(HttpMethod.GET), eq(absoluteURI));
+        assertEquals(HandlerState.PENDING, p.inspect().getState());
+
+    }
+
+    @Test
+    public void testRequestAbsAndReadBody_ResponseCache() throws Exception {
+
+        MultiMap responseHeaders = new CaseInsensitiveHeaders().add("Cache-Control", "max-age=60");
+        when(response.statusCode()).thenReturn(200);
+        when(response.headers()).thenReturn(responseHeaders);
+        RequestOptions options = new RequestOptions().setResponseCache(new ResponseCacheOptions());
+
+        Promise<HttpClientResponseAndBody> p = whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI, options);
+        verifyResponseAndBody(p);
+
+        // Served from the cache without a request
+        p = whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI, options);
+        assertEquals(HandlerState.FULFILLED, p.inspect().getState());
+        assertEquals(body, p.inspect().getValue().getBody());
+        assertEquals(200, p.inspect().getValue().getResponse().statusCode());
+        verify(client, times(1)).requestAbs(any(), anyString());
+
+    }
+
+    @Test
+    public void testRequestAbsAndReadBody_ResponseCacheRevalidate() throws Exception {
+
+        MultiMap responseHeaders = new CaseInsensitiveHeaders().add("ETag", "\"v1\"");
+        MultiMap requestHeaders = new CaseInsensitiveHeaders();
+        when(request.headers()).thenReturn(requestHeaders);
+        when(response.statusCode()).thenReturn(200, 304);
+        when(response.headers()).thenReturn(responseHeaders);
+        RequestOptions options = new RequestOptions().setResponseCache(new ResponseCacheOptions());
+
+        Buffer cachedBody = Buffer.buffer("cached");
+        whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI, options);
+        verify(request).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+        readBody(cachedBody);
+
+        // The entry has no max-age so it is revalidated
+        Promise<HttpClientResponseAndBody> p = whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI, options);
+        assertEquals("\"v1\"", requestHeaders.get("If-None-Match"));
+        assertEquals(null, options.getMultiMapHeaders());
+
+        verify(request, times(2)).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+        readBody(times(2), Buffer.buffer());
+
+        assertEquals(HandlerState.FULFILLED, p.inspect().getState());
+        assertEquals(200, p.inspect().getValue().getResponse().statusCode());
+        assertEquals("cached", p.inspect().getValue().getBody().toString());
+
+    }
+
+    @Test
+    public void testRequestAbsAndReadBody_Coalesce() throws Exception {
+
+        RequestOptions options = new RequestOptions().setCoalesce(true).addHeader("Accept", "application/json");
+        RequestOptions sameHeaders = new RequestOptions().setCoalesce(true).addHeader("accept", "application/json");
+
+        Promise<HttpClientResponseAndBody> p1 = whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI, options);
+        Promise<HttpClientResponseAndBody> p2 = whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI, sameHeaders);
+        verify(client, times(1)).requestAbs(any(), anyString());
+
+        verifyResponseAndBody(p1);
+        assertEquals(HandlerState.FULFILLED, p2.inspect().getState());
+        assertEquals(body, p2.inspect().getValue().getBody());
+
+        // Each caller gets its own read only view of the body
+        assertNotSame(p1.inspect().getValue().getBody(), p2.inspect().getValue().getBody());
+        try {
+            p1.inspect().getValue().getBody().setByte(0, (byte) 'x');
+            fail();
+        } catch (ReadOnlyBufferException e) {
+            // Expected
+        }
+        assertEquals(body, p2.inspect().getValue().getBody());
+
+        // Completed requests are not shared
+        whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI, options);
+        verify(client, times(2)).requestAbs(any(), anyString());
+
+    }
+
+    @Test
+    public void testRequestAbsAndReadBody_CoalesceDifferentHeaders() throws Exception {
+
+        whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI,
+                new RequestOptions().setCoalesce(true).addHeader("Accept", "application/json"));
+        whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI,
+                new RequestOptions().setCoalesce(true).addHeader("Accept", "text/html"));
+        whenHttpClient.requestAbsAndReadBody(HttpMethod.POST, absoluteURI, new RequestOptions().setCoalesce(true));
+        whenHttpClient.requestAbsAndReadBody(HttpMethod.POST, absoluteURI, new RequestOptions().setCoalesce(true));
+
+        verify(client, times(4)).requestAbs(any(), anyString());
+
+    }
+
+    @Test
+    public void testRequestAbsAndReadBody_CoalesceDeadline() throws Exception {
+
+        // Neither caller may be failed by the other's deadline
+        whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI,
+                new RequestOptions().setCoalesce(true).setDeadlineIn(10));
+        whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI,
+                new RequestOptions().setCoalesce(true).setDeadlineIn(60000));
+        whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI, new RequestOptions().setCoalesce(true));
+
+        verify(client, times(3)).requestAbs(any(), anyString());
+
+    }
+
+    @Test
+    public void testRequestAbsAndReadBody_CoalesceDifferentOptions() throws Exception {
+
+        RetryPolicy retryPolicy = new RetryPolicy();
+        whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI,
+                new RequestOptions().setCoalesce(true).setMaxBodyBytes(10));
+        whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI,
+                new RequestOptions().setCoalesce(true).setRetryPolicy(retryPolicy));
+        whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI,
+                new RequestOptions().setCoalesce(true).setTimeout(100));
+        verify(client, times(3)).requestAbs(any(), anyString());
+
+        // The same policy instance is shared
+        whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI,
+                new RequestOptions().setCoalesce(true).setRetryPolicy(retryPolicy));
+        verify(client, times(3)).requestAbs(any(), anyString());
+
+    }
+
+    @Test
+    public void testRequestAbsAndReadBody_CoalesceEqualClientOptions() throws Exception {
+
+        // Client options are compared by value
+        whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI,
+                new RequestOptions().setCoalesce(true).setClientOptions(new HttpClientOptions().setKeepAlive(false)));
+        whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI,
+                new RequestOptions().setCoalesce(true).setClientOptions(new HttpClientOptions().setKeepAlive(false)));
+        verify(client, times(1)).requestAbs(any(), anyString());
+
+        whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI,
+                new RequestOptions().setCoalesce(true).setClientOptions(new HttpClientOptions().setKeepAlive(true)));
+        verify(client, times(2)).requestAbs(any(), anyString());
+
+    }
+
+    @Test
+    public void testRequestAbsAndReadBody_CoalesceDifferentContexts() throws Exception {
+
+        Vertx realVertx = Vertx.vertx();
+        try {
+            // Callers on different contexts don't share a request, each is resolved on its own context
+            RequestOptions options = new RequestOptions().setCoalesce(true);
+            CountDownLatch latch = new CountDownLatch(2);
+            for (int i = 0; i < 2; i++) {
+                realVertx.getOrCreateContext().runOnContext(aVoid -> {
+                    whenHttpClient.requestAbsAndReadBody(HttpMethod.GET, absoluteURI, options);
+                    latch.countDown();
+                });
+            }
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            verify(client, times(2)).requestAbs(any(), anyString());
+        } finally {
+            realVertx.close();
+        }
+
+    }
+
+    @Test
+    public void testRequestAbsAndReadJson() throws Exception {
+
+        Promise<HttpClientResponseAndJson<JsonObject>> p = whenHttpClient.requestAbsAndReadJson(HttpMethod.GET, absoluteURI, JsonObject.class);
+        verify(request).handler(responseHandlerCaptor.capture());
+        responseHandlerCaptor.getValue().handle(response);
+        readBody(Buffer.buffer("{\"a\":1}"));
+
+        assertEquals(HandlerState.FULFILLED, p.inspect().getState());
+        assertEquals(Integer.valueOf(1), p.inspect().getValue().getJson().getInteger("a"));
+        assertEquals(response, p.inspect().getValue().getResponse());
 
     }
 
@@ -0,0 +1,141 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.vertx.promises.EndpointGroupOptions;
+import com.englishtown.vertx.promises.LoadBalancingStrategy;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link EndpointGroup}
+ */
+public class EndpointGroupTest {
+
+    private long now;
+
+    private EndpointGroup createGroup(EndpointGroupOptions options) {
+        return new EndpointGroup("test", options
+                .addEndpoint("a", 8080)
+                .addEndpoint("b", 8080)
+                .addEndpoint("c", 8080)
+                .addEndpoint("d", 8080), () -> now);
+    }
+
+    /**
+     * Starts and cancels calls, returning the hosts they were routed to
+     */
+    private Set<String> route(EndpointGroup group, int calls) {
+        Set<String> hosts = new HashSet<>();
+        for (int i = 0; i < calls; i++) {
+            EndpointGroup.Call call = group.start();
+            hosts.add(call.getHost());
+            call.cancel();
+        }
+        return hosts;
+    }
+
+    @Test
+    public void testRoundRobin() throws Exception {
+
+        EndpointGroup group = createGroup(new EndpointGroupOptions().setStrategy(LoadBalancingStrategy.ROUND_ROBIN));
+
+        StringBuilder hosts = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            hosts.append(group.start().getHost());
+        }
+        assertEquals("abcdab", hosts.toString());
+
+    }
+
+    @Test
+    public void testLeastOutstanding() throws Exception {
+
+        EndpointGroup group = createGroup(new EndpointGroupOptions().setStrategy(LoadBalancingStrategy.LEAST_OUTSTANDING));
+
+        Set<String> hosts = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            hosts.add(group.start().getHost());
+        }
+        // Every endpoint has one outstanding call
+        assertEquals(4, hosts.size());
+
+    }
+
+    @Test
+    public void testPowerOfTwoChoices() throws Exception {
+
+        EndpointGroup group = createGroup(new EndpointGroupOptions().setStrategy(LoadBalancingStrategy.POWER_OF_TWO_CHOICES));
+
+        // Make every endpoint except d slow
+        for (int i = 0; i < 20; i++) {
+            EndpointGroup.Call call = group.start();
+            call.complete(false, "d".equals(call.getHost()) ? TimeUnit.MILLISECONDS.toNanos(1) : TimeUnit.SECONDS.toNanos(1));
+        }
+
+        // d is picked whenever it is one of the two choices, so at least half the time
+        int d = 0;
+        for (int i = 0; i < 1000; i++) {
+            EndpointGroup.Call call = group.start();
+            if ("d".equals(call.getHost())) {
+                d++;
+            }
+            call.cancel();
+        }
+        assertTrue(d >= 400);
+
+    }
+
+    @Test
+    public void testEjection() throws Exception {
+
+        EndpointGroup group = createGroup(new EndpointGroupOptions()
+                .setStrategy(LoadBalancingStrategy.ROUND_ROBIN)
+                .setConsecutiveFailures(2)
+                .setEjectionDuration(1000));
+
+        // a fails twice
+        for (int i = 0; i < 8; i++) {
+            EndpointGroup.Call call = group.start();
+            call.complete("a".equals(call.getHost()), 0);
+        }
+        assertFalse(route(group, 8).contains("a"));
+
+        // a is not routed to until the ejection duration has passed
+        now += TimeUnit.MILLISECONDS.toNanos(999);
+        assertFalse(route(group, 8).contains("a"));
+
+        now += TimeUnit.MILLISECONDS.toNanos(1);
+        assertTrue(route(group, 8).contains("a"));
+
+    }
+
+    @Test
+    public void testMaxEjectionPercent() throws Exception {
+
+        EndpointGroup group = createGroup(new EndpointGroupOptions()
+                .setStrategy(LoadBalancingStrategy.ROUND_ROBIN)
+                .setConsecutiveFailures(1)
+                .setMaxEjectionPercent(50));
+
+        for (int i = 0; i < 4; i++) {
+            group.start().complete(true, 0);
+        }
+
+        // Only a and b are ejected, c and d keep taking requests
+        assertEquals(new HashSet<>(Arrays.asList("c", "d")), route(group, 8));
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoEndpoints() throws Exception {
+        new EndpointGroup("test", new EndpointGroupOptions());
+    }
+
+}
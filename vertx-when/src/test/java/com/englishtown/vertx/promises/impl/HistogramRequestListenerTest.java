@@ -0,0 +1,60 @@
+package com.englishtown.vertx.promises.impl;
+
+import io.vertx.core.http.HttpMethod;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for {@link HistogramRequestListener}
+ */
+public class HistogramRequestListenerTest {
+
+    @Test
+    public void testOnComplete() throws Exception {
+
+        HistogramRequestListener listener = new HistogramRequestListener();
+        assertNull(listener.getHistograms("test.org:80"));
+
+        DefaultRequestTimings timings = new DefaultRequestTimings("test.org:80", HttpMethod.GET, System.nanoTime());
+        timings.created();
+        timings.written(0);
+        timings.headers(200);
+        timings.read(10);
+        timings.complete(false);
+        listener.onComplete(timings);
+
+        Map<HistogramRequestListener.Phase, LatencyHistogram> histograms = listener.getHistograms("test.org:80");
+        assertEquals(1, histograms.get(HistogramRequestListener.Phase.QUEUE).getCount());
+        // No new connection was reported
+        assertEquals(0, histograms.get(HistogramRequestListener.Phase.CONNECT).getCount());
+        assertEquals(1, histograms.get(HistogramRequestListener.Phase.WRITE).getCount());
+        assertEquals(1, histograms.get(HistogramRequestListener.Phase.WAIT).getCount());
+        assertEquals(1, histograms.get(HistogramRequestListener.Phase.BODY).getCount());
+        assertEquals(1, histograms.get(HistogramRequestListener.Phase.TOTAL).getCount());
+
+    }
+
+    @Test
+    public void testOnComplete_Failed() throws Exception {
+
+        HistogramRequestListener listener = new HistogramRequestListener();
+
+        DefaultRequestTimings timings = new DefaultRequestTimings("test.org:80", HttpMethod.GET, System.nanoTime());
+        timings.created();
+        timings.connected();
+        timings.failed(new RuntimeException());
+        timings.complete(false);
+        listener.onComplete(timings);
+
+        Map<HistogramRequestListener.Phase, LatencyHistogram> histograms = listener.getHistograms("test.org:80");
+        assertEquals(1, histograms.get(HistogramRequestListener.Phase.CONNECT).getCount());
+        assertEquals(0, histograms.get(HistogramRequestListener.Phase.WAIT).getCount());
+        assertEquals(0, histograms.get(HistogramRequestListener.Phase.TOTAL).getCount());
+
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.englishtown.vertx.promises.impl;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link HttpClientRegistry}
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class HttpClientRegistryTest {
+
+    private HttpClientRegistry registry;
+
+    @Mock
+    private Vertx vertx;
+    @Mock
+    private HttpClient client1;
+    @Mock
+    private HttpClient client2;
+
+    @Before
+    public void setUp() throws Exception {
+        when(vertx.createHttpClient()).thenReturn(client1, client2);
+        when(vertx.createHttpClient(any())).thenReturn(client2);
+        when(vertx.setPeriodic(anyLong(), any())).thenReturn(10L);
+        registry = new HttpClientRegistry(vertx, 1);
+    }
+
+    @Test
+    public void testAcquire_Reuses() throws Exception {
+
+        HttpClientRegistry.Lease lease1 = registry.acquire(null);
+        HttpClientRegistry.Lease lease2 = registry.acquire(null);
+
+        assertSame(client1, lease1.getClient());
+        assertSame(client1, lease2.getClient());
+        assertEquals(1, registry.size());
+        verify(vertx, times(1)).createHttpClient();
+        verify(vertx, times(1)).setPeriodic(eq(1L), any());
+
+    }
+
+    @Test
+    public void testAcquire_KeyedByOptions() throws Exception {
+
+        HttpClientRegistry.Lease lease1 = registry.acquire(null);
+        HttpClientRegistry.Lease lease2 = registry.acquire(new HttpClientOptions().setKeepAlive(false));
+        HttpClientRegistry.Lease lease3 = registry.acquire(new HttpClientOptions().setKeepAlive(false));
+
+        assertNotSame(lease1.getClient(), lease2.getClient());
+        assertSame(lease2.getClient(), lease3.getClient());
+        assertEquals(2, registry.size());
+
+    }
+
+    @Test
+    public void testAcquire_OptionsChangedAfterwards() throws Exception {
+
+        HttpClientOptions options = new HttpClientOptions().setKeepAlive(false);
+        HttpClientRegistry.Lease lease1 = registry.acquire(options);
+
+        // Changing the caller's instance does not affect the registered client
+        options.setMaxPoolSize(99);
+        HttpClientRegistry.Lease lease2 = registry.acquire(new HttpClientOptions().setKeepAlive(false));
+
+        assertSame(lease1.getClient(), lease2.getClient());
+        assertEquals(1, registry.size());
+        verify(vertx, times(1)).createHttpClient(any());
+
+    }
+
+    @Test
+    public void testEvictIdle_InFlight() throws Exception {
+
+        registry.acquire(null);
+        Thread.sleep(2);
+        registry.evictIdle();
+
+        verify(client1, never()).close();
+        assertEquals(1, registry.size());
+
+    }
+
+    @Test
+    public void testEvictIdle() throws Exception {
+
+        HttpClientRegistry.Lease lease = registry.acquire(null);
+        lease.release();
+        lease.release();
+        Thread.sleep(2);
+        registry.evictIdle();
+
+        verify(client1).close();
+        verify(vertx).cancelTimer(eq(10L));
+        assertEquals(0, registry.size());
+
+        // A new client is created after eviction
+        assertSame(client2, registry.acquire(null).getClient());
+
+    }
+
+    @Test
+    public void testClose() throws Exception {
+
+        registry.acquire(null);
+        registry.close();
+
+        verify(client1).close();
+        verify(vertx).cancelTimer(eq(10L));
+        assertEquals(0, registry.size());
+
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.englishtown.vertx.promises.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClientResponse;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of {@link HttpClientResponseDelegate} against the reflection {@link Proxy} it replaced.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.englishtown.vertx.promises.impl.HttpClientResponseDelegateBenchmark}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HttpClientResponseDelegateBenchmark {
+
+    private interface ResponseContext {
+        Object getContext();
+    }
+
+    private final Object context = new Object();
+    private final Handler<Buffer> handler = buffer -> {
+    };
+
+    private HttpClientResponse response;
+    private HttpClientResponse proxy;
+    private HttpClientResponse delegate;
+
+    @Setup
+    public void setUp() {
+        // Only the methods exercised below are implemented
+        response = new HttpClientResponseDelegate(null) {
+            @Override
+            public int statusCode() {
+                return 200;
+            }
+
+            @Override
+            public String getHeader(String headerName) {
+                return "application/json";
+            }
+
+            @Override
+            public HttpClientResponse handler(Handler<Buffer> handler) {
+                return this;
+            }
+        };
+
+        proxy = newProxy(response, context);
+        delegate = new HttpClientResponseDelegate(response);
+    }
+
+    private static HttpClientResponse newProxy(HttpClientResponse response, Object context) {
+        InvocationHandler invocationHandler = (p, m, args) -> {
+            try {
+                if (m.getDeclaringClass() == ResponseContext.class) {
+                    return context;
+                } else {
+                    return m.invoke(response, args);
+                }
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        };
+
+        return (HttpClientResponse) Proxy.newProxyInstance(
+                HttpClientResponse.class.getClassLoader(),
+                new Class[]{HttpClientResponse.class, ResponseContext.class},
+                invocationHandler);
+    }
+
+    @Benchmark
+    public HttpClientResponse wrapProxy() {
+        return newProxy(response, context);
+    }
+
+    @Benchmark
+    public HttpClientResponse wrapDelegate() {
+        return new HttpClientResponseDelegate(response);
+    }
+
+    @Benchmark
+    public void callsProxy(Blackhole bh) {
+        bh.consume(proxy.statusCode());
+        bh.consume(proxy.getHeader("Content-Type"));
+        bh.consume(proxy.handler(handler));
+    }
+
+    @Benchmark
+    public void callsDelegate(Blackhole bh) {
+        bh.consume(delegate.statusCode());
+        bh.consume(delegate.getHeader("Content-Type"));
+        bh.consume(delegate.handler(handler));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(HttpClientResponseDelegateBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.promises.HandlerState;
+import com.englishtown.promises.Promise;
+import com.englishtown.promises.When;
+import com.englishtown.promises.WhenFactory;
+import com.englishtown.vertx.promises.HttpClientResponseAndBody;
+import com.englishtown.vertx.promises.HttpClientResponseAndJson;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link JsonBodyDecoder}
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class JsonBodyDecoderTest {
+
+    private JsonBodyDecoder decoder;
+
+    @Mock
+    private Vertx vertx;
+    @Mock
+    private HttpClientResponseAndBody responseAndBody;
+    @Mock
+    private HttpClientResponse response;
+
+    public static class Pojo {
+        public String name;
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        When when = WhenFactory.createSync();
+        decoder = new JsonBodyDecoder(vertx, when);
+        when(responseAndBody.getResponse()).thenReturn(response);
+    }
+
+    @Test
+    public void testDecode() throws Exception {
+
+        assertEquals("b", JsonBodyDecoder.decode(Buffer.buffer("{\"a\":\"b\"}"), JsonObject.class).getString("a"));
+        assertEquals(2, JsonBodyDecoder.decode(Buffer.buffer("[1,2]"), JsonArray.class).size());
+        assertEquals("test", JsonBodyDecoder.decode(Buffer.buffer("{\"name\":\"test\"}"), Pojo.class).name);
+        assertNull(JsonBodyDecoder.decode(Buffer.buffer(), JsonObject.class));
+
+    }
+
+    @Test
+    public void testDecode_Inline() throws Exception {
+
+        when(responseAndBody.getBody()).thenReturn(Buffer.buffer("{\"a\":\"b\"}"));
+
+        Promise<HttpClientResponseAndJson<JsonObject>> p = decoder.decode(responseAndBody, JsonObject.class, 1024);
+
+        assertEquals(HandlerState.FULFILLED, p.inspect().getState());
+        assertEquals("b", p.inspect().getValue().getJson().getString("a"));
+        verify(vertx, never()).executeBlocking(any(), anyBoolean(), any());
+
+        // The result holds the response, not the response and body
+        verify(responseAndBody).getResponse();
+        verify(responseAndBody).getBody();
+        assertEquals(response, p.inspect().getValue().getResponse());
+        verifyNoMoreInteractions(responseAndBody);
+
+    }
+
+    @Test
+    public void testDecode_Invalid() throws Exception {
+
+        when(responseAndBody.getBody()).thenReturn(Buffer.buffer("<html>"));
+
+        Promise<HttpClientResponseAndJson<JsonObject>> p = decoder.decode(responseAndBody, JsonObject.class, -1);
+
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+        assertTrue(p.inspect().getReason() instanceof DecodeException);
+
+    }
+
+    @Test
+    public void testDecode_Worker() throws Exception {
+
+        when(responseAndBody.getBody()).thenReturn(Buffer.buffer("{\"a\":\"b\"}"));
+        ArgumentCaptor<Handler<Future<JsonObject>>> blockingCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+        ArgumentCaptor<Handler<AsyncResult<JsonObject>>> resultCaptor = ArgumentCaptor.forClass((Class) Handler.class);
+
+        Promise<HttpClientResponseAndJson<JsonObject>> p = decoder.decode(responseAndBody, JsonObject.class, 4);
+
+        verify(vertx).executeBlocking(blockingCaptor.capture(), eq(false), resultCaptor.capture());
+        assertEquals(HandlerState.PENDING, p.inspect().getState());
+
+        Future<JsonObject> future = Future.future();
+        blockingCaptor.getValue().handle(future);
+        resultCaptor.getValue().handle(future);
+
+        assertEquals(HandlerState.FULFILLED, p.inspect().getState());
+        assertEquals("b", p.inspect().getValue().getJson().getString("a"));
+        assertEquals(response, p.inspect().getValue().getResponse());
+
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.englishtown.vertx.promises.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link LatencyHistogram}
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBuckets() throws Exception {
+
+        assertEquals(7, LatencyHistogram.index(7));
+        assertEquals(8, LatencyHistogram.index(8));
+        assertEquals(36, LatencyHistogram.index(100));
+        assertEquals(103, LatencyHistogram.upperBound(36));
+
+        // Every value falls in a bucket whose upper bound is within 12.5%
+        for (long value = 0; value < 100000; value += 7) {
+            long upper = LatencyHistogram.upperBound(LatencyHistogram.index(value));
+            assertTrue(upper >= value);
+            assertTrue(upper - value <= value / 8);
+        }
+
+        assertTrue(LatencyHistogram.upperBound(LatencyHistogram.index(Long.MAX_VALUE)) == Long.MAX_VALUE);
+
+    }
+
+    @Test
+    public void testPercentile() throws Exception {
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(50));
+
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean(), 0.001);
+        assertEquals(51, histogram.getPercentile(50));
+        assertEquals(100, histogram.getPercentile(99));
+        assertEquals(100, histogram.getPercentile(100));
+
+    }
+
+    @Test
+    public void testNegative() throws Exception {
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50));
+
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.englishtown.vertx.promises.impl;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link LatencyTracker}
+ */
+public class LatencyTrackerTest {
+
+    @Test
+    public void testPercentile() throws Exception {
+
+        LatencyTracker tracker = new LatencyTracker();
+        for (int i = 1; i <= 100; i++) {
+            tracker.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        assertEquals(95, tracker.getPercentile(95));
+        assertEquals(50, tracker.getPercentile(50));
+        assertEquals(100, tracker.getPercentile(99.9));
+
+    }
+
+    @Test
+    public void testTooFewSamples() throws Exception {
+
+        LatencyTracker tracker = new LatencyTracker();
+        for (int i = 1; i < LatencyTracker.MIN_SAMPLES; i++) {
+            tracker.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        assertEquals(-1, tracker.getPercentile(95));
+
+    }
+
+    @Test
+    public void testRingBufferKeepsRecentSamples() throws Exception {
+
+        LatencyTracker tracker = new LatencyTracker(32);
+        for (int i = 0; i < 32; i++) {
+            tracker.record(TimeUnit.MILLISECONDS.toNanos(1000));
+        }
+        assertEquals(1000, tracker.getPercentile(50));
+
+        for (int i = 0; i < 32; i++) {
+            tracker.record(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        assertEquals(10, tracker.getPercentile(99));
+
+    }
+
+}
@@ -0,0 +1,202 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.vertx.promises.MultipartBody;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link MultipartBody}
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class MultipartBodyTest {
+
+    private Buffer written;
+    private boolean ended;
+
+    @Mock
+    private ReadStream<Buffer> file;
+    @Mock
+    private Handler<Throwable> exceptionHandler;
+    @Captor
+    private ArgumentCaptor<Handler<Buffer>> chunkCaptor;
+    @Captor
+    private ArgumentCaptor<Handler<Void>> endCaptor;
+    @Captor
+    private ArgumentCaptor<Handler<Throwable>> exceptionCaptor;
+
+    @Before
+    public void setUp() throws Exception {
+        written = Buffer.buffer();
+        when(file.handler(any())).thenReturn(file);
+        when(file.exceptionHandler(any())).thenReturn(file);
+        when(file.endHandler(any())).thenReturn(file);
+    }
+
+    private MultipartBody start(MultipartBody body) {
+        body.handler(written::appendBuffer)
+                .endHandler(aVoid -> ended = true)
+                .exceptionHandler(exceptionHandler)
+                .resume();
+        return body;
+    }
+
+    @Test
+    public void testFields() throws Exception {
+
+        MultipartBody body = new MultipartBody("b")
+                .addField("name", "value")
+                .addPart("data", "a \"b\".txt", "text/plain", Buffer.buffer("hello"));
+
+        assertEquals("multipart/form-data; boundary=b", body.getContentType());
+        start(body);
+
+        String expected = "--b\r\n"
+                + "Content-Disposition: form-data; name=\"name\"\r\n"
+                + "\r\n"
+                + "value\r\n"
+                + "--b\r\n"
+                + "Content-Disposition: form-data; name=\"data\"; filename=\"a %22b%22.txt\"\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "\r\n"
+                + "hello\r\n"
+                + "--b--\r\n";
+        assertEquals(expected, written.toString());
+        assertEquals(written.length(), body.getLength());
+        assertTrue(ended);
+
+    }
+
+    @Test
+    public void testFile() throws Exception {
+
+        MultipartBody body = new MultipartBody("b")
+                .addFile("upload", "a.bin", "application/octet-stream", file, 6)
+                .addField("name", "value");
+        long length = body.getLength();
+        start(body);
+
+        // The file part is paused before its handler is set
+        InOrder inOrder = inOrder(file);
+        inOrder.verify(file).pause();
+        inOrder.verify(file).handler(chunkCaptor.capture());
+        inOrder.verify(file).resume();
+        verify(file).endHandler(endCaptor.capture());
+
+        // Pausing the body pauses the file part
+        body.pause();
+        verify(file, times(2)).pause();
+        body.resume();
+        verify(file, times(2)).resume();
+
+        chunkCaptor.getValue().handle(Buffer.buffer("abc"));
+        chunkCaptor.getValue().handle(Buffer.buffer("def"));
+        assertFalse(ended);
+        endCaptor.getValue().handle(null);
+
+        String expected = "--b\r\n"
+                + "Content-Disposition: form-data; name=\"upload\"; filename=\"a.bin\"\r\n"
+                + "Content-Type: application/octet-stream\r\n"
+                + "\r\n"
+                + "abcdef\r\n"
+                + "--b\r\n"
+                + "Content-Disposition: form-data; name=\"name\"\r\n"
+                + "\r\n"
+                + "value\r\n"
+                + "--b--\r\n";
+        assertEquals(expected, written.toString());
+        assertEquals(written.length(), length);
+        assertTrue(ended);
+
+    }
+
+    @Test
+    public void testFile_UnknownLength() throws Exception {
+
+        MultipartBody body = new MultipartBody().addFile("upload", "a.bin", null, file);
+        assertEquals(-1, body.getLength());
+        assertTrue(body.getContentType().startsWith("multipart/form-data; boundary=----vertx-when-"));
+
+    }
+
+    @Test
+    public void testFile_Failed() throws Exception {
+
+        start(new MultipartBody("b").addFile("upload", "a.bin", null, file));
+
+        verify(file).exceptionHandler(exceptionCaptor.capture());
+        Throwable t = new java.io.IOException();
+        exceptionCaptor.getValue().handle(t);
+
+        verify(exceptionHandler).handle(t);
+        assertFalse(ended);
+
+    }
+
+    @Test
+    public void testPause() throws Exception {
+
+        MultipartBody body = new MultipartBody("b").addField("name", "value");
+        // Pause after every write, as a full request write queue would
+        body.handler(buffer -> {
+            written.appendBuffer(buffer);
+            body.pause();
+        }).endHandler(aVoid -> ended = true);
+
+        body.resume();
+        assertEquals("--b\r\nContent-Disposition: form-data; name=\"name\"\r\n\r\n", written.toString());
+        int count = 1;
+        while (!ended) {
+            body.resume();
+            count++;
+        }
+        assertEquals(4, count);
+
+    }
+
+    @Test
+    public void testHeaderInjection() throws Exception {
+
+        MultipartBody body = new MultipartBody("b");
+        String injected = "text/plain\r\nX-Injected: true";
+
+        try {
+            body.addPart("data", null, injected, Buffer.buffer("hello"));
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            body.addFile("upload", "a.bin\n", null, file);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            body.addField("name\r", "value");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        assertEquals(0, body.getLength() - "--b--\r\n".length());
+
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testAddAfterStart() throws Exception {
+        start(new MultipartBody("b").addFile("upload", "a.bin", null, file)).addField("name", "value");
+    }
+
+}
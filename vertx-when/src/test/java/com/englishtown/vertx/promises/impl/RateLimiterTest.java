@@ -0,0 +1,98 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.vertx.promises.RateLimitOptions;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link RateLimiter}
+ */
+public class RateLimiterTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private long now;
+
+    private RateLimiter createLimiter(RateLimitOptions options) {
+        return new RateLimiter("test", options, () -> now);
+    }
+
+    @Test
+    public void testFailFast() throws Exception {
+
+        RateLimiter limiter = createLimiter(new RateLimitOptions(10));
+
+        assertEquals(0, limiter.acquire());
+        assertEquals(-100 * MS, limiter.acquire());
+
+        now += 40 * MS;
+        assertEquals(-60 * MS, limiter.acquire());
+
+        now += 60 * MS;
+        assertEquals(0, limiter.acquire());
+
+    }
+
+    @Test
+    public void testBurst() throws Exception {
+
+        RateLimiter limiter = createLimiter(new RateLimitOptions(10).setBurst(3));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.acquire());
+        }
+        assertTrue(limiter.acquire() < 0);
+
+        // The bucket refills at the permit rate up to the burst size
+        now += 1000 * MS;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.acquire());
+        }
+        assertTrue(limiter.acquire() < 0);
+
+    }
+
+    @Test
+    public void testQueue() throws Exception {
+
+        RateLimiter limiter = createLimiter(new RateLimitOptions(10).setMaxWait(250));
+
+        assertEquals(0, limiter.acquire());
+        // Each queued request reserves the next permit
+        assertEquals(100 * MS, limiter.acquire());
+        assertEquals(200 * MS, limiter.acquire());
+        assertEquals(-300 * MS, limiter.acquire());
+
+        now += 100 * MS;
+        assertEquals(200 * MS, limiter.acquire());
+
+    }
+
+    @Test
+    public void testRelease() throws Exception {
+
+        RateLimiter limiter = createLimiter(new RateLimitOptions(10).setMaxWait(250));
+
+        assertEquals(0, limiter.acquire());
+        assertEquals(100 * MS, limiter.acquire());
+
+        // A released permit goes to the next request
+        limiter.release();
+        assertEquals(100 * MS, limiter.acquire());
+
+        limiter.release();
+        limiter.release();
+        assertEquals(0, limiter.acquire());
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRate() throws Exception {
+        new RateLimitOptions(0);
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.promises.*;
+import com.englishtown.vertx.promises.BatchRequestException;
+import com.englishtown.vertx.promises.HttpClientResponseAndBody;
+import com.englishtown.vertx.promises.RequestDescriptor;
+import io.vertx.core.http.HttpMethod;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for {@link RequestBatch}
+ */
+public class RequestBatchTest {
+
+    private When when;
+    private List<RequestDescriptor> requests;
+    private List<RequestDescriptor> started;
+    private List<Deferred<HttpClientResponseAndBody>> deferreds;
+
+    @Before
+    public void setUp() throws Exception {
+        when = WhenFactory.createSync();
+        requests = Arrays.asList(
+                RequestDescriptor.request(HttpMethod.GET, "/1"),
+                RequestDescriptor.request(HttpMethod.GET, "/2"),
+                RequestDescriptor.request(HttpMethod.GET, "/3"));
+        started = new ArrayList<>();
+        deferreds = new ArrayList<>();
+    }
+
+    private Promise<List<HttpClientResponseAndBody>> run(int maxInFlight, boolean failFast) {
+        return new RequestBatch(when, requests, maxInFlight, failFast, request -> {
+            Deferred<HttpClientResponseAndBody> d = when.defer();
+            started.add(request);
+            deferreds.add(d);
+            return d.getPromise();
+        }).run();
+    }
+
+    @Test
+    public void testRun_InOrder() throws Exception {
+
+        HttpClientResponseAndBody r1 = mock(HttpClientResponseAndBody.class);
+        HttpClientResponseAndBody r2 = mock(HttpClientResponseAndBody.class);
+        HttpClientResponseAndBody r3 = mock(HttpClientResponseAndBody.class);
+
+        Promise<List<HttpClientResponseAndBody>> p = run(2, true);
+        assertEquals(2, started.size());
+
+        deferreds.get(1).resolve(r2);
+        assertEquals(3, started.size());
+        assertSame(requests.get(2), started.get(2));
+
+        deferreds.get(2).resolve(r3);
+        assertEquals(HandlerState.PENDING, p.inspect().getState());
+        deferreds.get(0).resolve(r1);
+
+        assertEquals(HandlerState.FULFILLED, p.inspect().getState());
+        assertEquals(Arrays.asList(r1, r2, r3), p.inspect().getValue());
+
+    }
+
+    @Test
+    public void testRun_Empty() throws Exception {
+
+        requests = new ArrayList<>();
+        Promise<List<HttpClientResponseAndBody>> p = run(2, true);
+        assertEquals(HandlerState.FULFILLED, p.inspect().getState());
+        assertTrue(p.inspect().getValue().isEmpty());
+
+    }
+
+    @Test
+    public void testRun_FailFast() throws Exception {
+
+        RuntimeException e = new RuntimeException();
+
+        Promise<List<HttpClientResponseAndBody>> p = run(1, true);
+        deferreds.get(0).reject(e);
+
+        assertEquals(HandlerState.REJECTED, p.inspect().getState());
+        assertSame(e, p.inspect().getReason());
+        assertEquals(1, started.size());
+
+    }
+
+    @Test
+    public void testRun_SettleAll() throws Exception {
+
+        RuntimeException e = new RuntimeException();
+        HttpClientResponseAndBody r2 = mock(HttpClientResponseAndBody.class);
+
+        Promise<List<HttpClientResponseAndBody>> p = run(1, false);
+        deferreds.get(0).reject(e);
+        deferreds.get(1).resolve(r2);
+        assertEquals(HandlerState.PENDING, p.inspect().getState());
+        deferreds.get(2).resolve((HttpClientResponseAndBody) null);
+
+        State<List<HttpClientResponseAndBody>> state = p.inspect();
+        assertEquals(HandlerState.REJECTED, state.getState());
+        assertTrue(state.getReason() instanceof BatchRequestException);
+
+        BatchRequestException reason = (BatchRequestException) state.getReason();
+        assertSame(e, reason.getCause());
+        assertEquals(HandlerState.REJECTED, reason.getResults().get(0).getState());
+        assertSame(r2, reason.getResults().get(1).getValue());
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRun_InvalidMaxInFlight() throws Exception {
+        run(0, true);
+    }
+
+}
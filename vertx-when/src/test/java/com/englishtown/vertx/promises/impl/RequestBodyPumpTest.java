@@ -0,0 +1,147 @@
+package com.englishtown.vertx.promises.impl;
+
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.streams.ReadStream;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link RequestBodyPump}
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class RequestBodyPumpTest {
+
+    @Mock
+    private ReadStream<Buffer> source;
+    @Mock
+    private HttpClientRequest request;
+    @Mock
+    private MultiMap headers;
+    @Mock
+    private Handler<Throwable> onFailure;
+    @Mock
+    private Handler<Long> onEnd;
+    @Captor
+    private ArgumentCaptor<Handler<Buffer>> chunkCaptor;
+    @Captor
+    private ArgumentCaptor<Handler<Void>> endCaptor;
+    @Captor
+    private ArgumentCaptor<Handler<Void>> drainCaptor;
+    @Captor
+    private ArgumentCaptor<Handler<Throwable>> exceptionCaptor;
+
+    @Before
+    public void setUp() throws Exception {
+        when(request.headers()).thenReturn(headers);
+        when(source.handler(any())).thenReturn(source);
+        when(source.exceptionHandler(any())).thenReturn(source);
+        when(source.endHandler(any())).thenReturn(source);
+    }
+
+    @Test
+    public void testPump() throws Exception {
+
+        new RequestBodyPump(source, request, onFailure, onEnd).start();
+
+        verify(request).setChunked(true);
+        verify(request).drainHandler(drainCaptor.capture());
+        verify(source).handler(chunkCaptor.capture());
+        verify(source).endHandler(endCaptor.capture());
+        verify(source).resume();
+
+        Buffer chunk = Buffer.buffer("chunk");
+        chunkCaptor.getValue().handle(chunk);
+        verify(request).write(chunk);
+        verify(source, never()).pause();
+
+        // Write queue full
+        when(request.writeQueueFull()).thenReturn(true);
+        chunkCaptor.getValue().handle(chunk);
+        verify(source).pause();
+
+        drainCaptor.getValue().handle(null);
+        verify(source, times(2)).resume();
+
+        endCaptor.getValue().handle(null);
+        verify(request).end();
+        verify(onEnd).handle(10L);
+
+    }
+
+    @Test
+    public void testContentLength() throws Exception {
+
+        when(headers.get(any(CharSequence.class))).thenReturn("100");
+        new RequestBodyPump(source, request, onFailure, onEnd).start();
+        verify(request, never()).setChunked(anyBoolean());
+
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+
+        new RequestBodyPump(source, request, onFailure, onEnd).start();
+        verify(source).exceptionHandler(exceptionCaptor.capture());
+
+        Throwable t = new RuntimeException();
+        exceptionCaptor.getValue().handle(t);
+        verify(onFailure).handle(t);
+        verify(request, never()).end();
+        verify(onEnd, never()).handle(anyLong());
+
+    }
+
+    @Test
+    public void testAbort() throws Exception {
+
+        RequestBodyPump pump = new RequestBodyPump(source, request, onFailure, onEnd);
+        pump.start();
+        verify(request).drainHandler(drainCaptor.capture());
+        verify(source).handler(chunkCaptor.capture());
+        verify(source).endHandler(endCaptor.capture());
+
+        Buffer chunk = Buffer.buffer("chunk");
+        chunkCaptor.getValue().handle(chunk);
+
+        // Reset mid-stream
+        pump.abort();
+        verify(source).pause();
+        verify(source).handler(null);
+        verify(source).endHandler(null);
+
+        // Late events from the source or request are ignored
+        chunkCaptor.getValue().handle(chunk);
+        drainCaptor.getValue().handle(null);
+        endCaptor.getValue().handle(null);
+        verify(request, times(1)).write(chunk);
+        verify(source, times(1)).resume();
+        verify(request, never()).end();
+        verify(onEnd, never()).handle(anyLong());
+
+    }
+
+    @Test
+    public void testAbort_AfterEnd() throws Exception {
+
+        RequestBodyPump pump = new RequestBodyPump(source, request, onFailure, onEnd);
+        pump.start();
+        verify(source).endHandler(endCaptor.capture());
+        endCaptor.getValue().handle(null);
+
+        pump.abort();
+        verify(source, never()).pause();
+
+    }
+
+}
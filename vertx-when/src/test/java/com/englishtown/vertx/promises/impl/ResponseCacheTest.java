@@ -0,0 +1,271 @@
+package com.englishtown.vertx.promises.impl;
+
+import com.englishtown.vertx.promises.HttpClientResponseAndBody;
+import com.englishtown.vertx.promises.ResponseCacheOptions;
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.CaseInsensitiveHeaders;
+import io.vertx.core.http.HttpClientResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.nio.ReadOnlyBufferException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ResponseCache}
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ResponseCacheTest {
+
+    private static final String KEY = "http://test.org/path";
+
+    private long now;
+    private ResponseCache cache;
+    private MultiMap headers = new CaseInsensitiveHeaders();
+
+    @Mock
+    private HttpClientResponse response;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new ResponseCache(new ResponseCacheOptions().setMaxBytes(1024), () -> now);
+        when(response.statusCode()).thenReturn(200);
+        when(response.headers()).thenReturn(headers);
+    }
+
+    @Test
+    public void testMaxAge() throws Exception {
+
+        headers.add("Cache-Control", "public, max-age=10");
+        assertNotNull(cache.put(KEY, null, response, Buffer.buffer("body")));
+
+        ResponseCache.Entry entry = cache.get(KEY, null);
+        assertNotNull(entry);
+        assertTrue(cache.isFresh(entry));
+
+        HttpClientResponseAndBody responseAndBody = entry.toResponseAndBody();
+        assertEquals(200, responseAndBody.getResponse().statusCode());
+        assertEquals("body", responseAndBody.getBody().toString());
+
+        now = TimeUnit.SECONDS.toNanos(10);
+        assertFalse(cache.isFresh(entry));
+
+    }
+
+    @Test
+    public void testAge() throws Exception {
+
+        headers.add("Cache-Control", "max-age=10").add("Age", "10");
+        assertNotNull(cache.put(KEY, null, response, Buffer.buffer("body")));
+        assertFalse(cache.isFresh(cache.get(KEY, null)));
+
+    }
+
+    @Test
+    public void testNoStore() throws Exception {
+
+        headers.add("Cache-Control", "max-age=10");
+        cache.put(KEY, null, response, Buffer.buffer("body"));
+
+        headers.set("Cache-Control", "no-store");
+        assertNull(cache.put(KEY, null, response, Buffer.buffer("body")));
+        assertNull(cache.get(KEY, null));
+        assertEquals(0, cache.getBytes());
+
+    }
+
+    @Test
+    public void testNotCacheable() throws Exception {
+
+        assertNull(cache.put(KEY, null, response, Buffer.buffer("body")));
+
+        headers.add("Cache-Control", "max-age=10").add("Vary", "*");
+        assertNull(cache.put(KEY, null, response, Buffer.buffer("body")));
+
+        when(response.statusCode()).thenReturn(404);
+        headers.remove("Vary");
+        assertNull(cache.put(KEY, null, response, Buffer.buffer("body")));
+
+    }
+
+    @Test
+    public void testPrivate() throws Exception {
+
+        headers.add("Cache-Control", "private, max-age=10");
+        assertNull(cache.put(KEY, null, response, Buffer.buffer("body")));
+
+        headers.set("Cache-Control", "public, private=\"Set-Cookie\", max-age=10");
+        assertNull(cache.put(KEY, null, response, Buffer.buffer("body")));
+        assertEquals(0, cache.size());
+
+    }
+
+    @Test
+    public void testAuthorization() throws Exception {
+
+        MultiMap requestHeaders = new CaseInsensitiveHeaders().add("Authorization", "Bearer token");
+
+        headers.add("Cache-Control", "max-age=10");
+        assertNull(cache.put(KEY, requestHeaders, response, Buffer.buffer("body")));
+        assertEquals(0, cache.size());
+
+        // Stored when the response explicitly allows a shared cache to keep it
+        headers.set("Cache-Control", "public, max-age=10");
+        assertNotNull(cache.put(KEY, requestHeaders, response, Buffer.buffer("body")));
+        headers.set("Cache-Control", "s-maxage=10");
+        assertNotNull(cache.put(KEY, requestHeaders, response, Buffer.buffer("body")));
+        headers.set("Cache-Control", "max-age=10, must-revalidate");
+        assertNotNull(cache.put(KEY, requestHeaders, response, Buffer.buffer("body")));
+
+    }
+
+    @Test
+    public void testSetCookieNotStored() throws Exception {
+
+        headers.add("Cache-Control", "max-age=10").add("ETag", "\"v1\"").add("Set-Cookie", "session=1");
+        ResponseCache.Entry entry = cache.put(KEY, null, response, Buffer.buffer("body"));
+
+        HttpClientResponse cached = entry.toResponseAndBody().getResponse();
+        assertNull(cached.getHeader("Set-Cookie"));
+        assertTrue(cached.cookies().isEmpty());
+        assertEquals("session=1", headers.get("Set-Cookie"));
+
+        // Nor from the 304 that revalidates it
+        HttpClientResponse notModified = mock(HttpClientResponse.class);
+        when(notModified.headers()).thenReturn(new CaseInsensitiveHeaders().add("Set-Cookie", "session=2"));
+        entry = cache.revalidated(entry, notModified);
+        assertTrue(entry.toResponseAndBody().getResponse().cookies().isEmpty());
+
+    }
+
+    @Test
+    public void testBodyReadOnly() throws Exception {
+
+        headers.add("Cache-Control", "max-age=10");
+        Buffer body = Buffer.buffer("body");
+        cache.put(KEY, null, response, body);
+
+        // Neither the caller that stored the body nor a hit can change the cached body
+        body.setString(0, "BODY");
+        Buffer hit = cache.get(KEY, null).toResponseAndBody().getBody();
+        assertEquals("body", hit.toString());
+        try {
+            hit.appendString("more");
+            fail();
+        } catch (ReadOnlyBufferException e) {
+            // Expected
+        }
+        try {
+            hit.setString(0, "BODY");
+            fail();
+        } catch (ReadOnlyBufferException e) {
+            // Expected
+        }
+
+        HttpClientResponseAndBody next = cache.get(KEY, null).toResponseAndBody();
+        assertEquals("body", next.getBody().toString());
+        assertEquals(4, next.getBody().length());
+
+    }
+
+    @Test
+    public void testHeadersReadOnly() throws Exception {
+
+        headers.add("Cache-Control", "max-age=10").add("X-Test", "1");
+        cache.put(KEY, null, response, Buffer.buffer("body"));
+
+        MultiMap cached = cache.get(KEY, null).toResponseAndBody().getResponse().headers();
+        try {
+            cached.set("X-Test", "2");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+        try {
+            cached.entries().get(0).setValue("2");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // Expected
+        }
+        assertEquals("1", cache.get(KEY, null).toResponseAndBody().getResponse().headers().get("X-Test"));
+
+    }
+
+    @Test
+    public void testValidatorsOnly() throws Exception {
+
+        headers.add("ETag", "\"v1\"").add("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT");
+        ResponseCache.Entry entry = cache.put(KEY, null, response, Buffer.buffer("body"));
+
+        assertNotNull(entry);
+        assertFalse(cache.isFresh(entry));
+        assertEquals("\"v1\"", entry.getETag());
+        assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", entry.getLastModified());
+
+    }
+
+    @Test
+    public void testVary() throws Exception {
+
+        headers.add("Cache-Control", "max-age=10").add("Vary", "Accept-Language");
+        MultiMap en = new CaseInsensitiveHeaders().add("Accept-Language", "en");
+        MultiMap fr = new CaseInsensitiveHeaders().add("Accept-Language", "fr");
+
+        cache.put(KEY, en, response, Buffer.buffer("hello"));
+        cache.put(KEY, fr, response, Buffer.buffer("bonjour"));
+
+        assertEquals(2, cache.size());
+        assertEquals("hello", cache.get(KEY, en).toResponseAndBody().getBody().toString());
+        assertEquals("bonjour", cache.get(KEY, fr).toResponseAndBody().getBody().toString());
+        assertNull(cache.get(KEY, null));
+
+    }
+
+    @Test
+    public void testRevalidated() throws Exception {
+
+        headers.add("Cache-Control", "max-age=0").add("ETag", "\"v1\"");
+        ResponseCache.Entry entry = cache.put(KEY, null, response, Buffer.buffer("body"));
+        assertFalse(cache.isFresh(entry));
+
+        HttpClientResponse notModified = org.mockito.Mockito.mock(HttpClientResponse.class);
+        when(notModified.headers()).thenReturn(new CaseInsensitiveHeaders().add("Cache-Control", "max-age=10"));
+
+        ResponseCache.Entry refreshed = cache.revalidated(entry, notModified);
+        assertTrue(cache.isFresh(refreshed));
+        assertSame(refreshed, cache.get(KEY, null));
+        assertEquals("\"v1\"", refreshed.getETag());
+        assertEquals("body", refreshed.toResponseAndBody().getBody().toString());
+
+    }
+
+    @Test
+    public void testEvictByBytes() throws Exception {
+
+        headers.add("Cache-Control", "max-age=10");
+        cache.put(KEY + "/1", null, response, Buffer.buffer(new byte[400]));
+        cache.put(KEY + "/2", null, response, Buffer.buffer(new byte[400]));
+
+        // Touch the first entry so the second is least recently used
+        cache.get(KEY + "/1", null);
+        cache.put(KEY + "/3", null, response, Buffer.buffer(new byte[400]));
+
+        assertNotNull(cache.get(KEY + "/1", null));
+        assertNull(cache.get(KEY + "/2", null));
+        assertNotNull(cache.get(KEY + "/3", null));
+        assertTrue(cache.getBytes() <= 1024);
+
+        // Larger than the whole cache
+        assertNull(cache.put(KEY + "/4", null, response, Buffer.buffer(new byte[2048])));
+
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.englishtown.vertx.promises.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link RetryBudget}
+ */
+public class RetryBudgetTest {
+
+    @Test
+    public void testTryRetry() throws Exception {
+
+        RetryBudget budget = new RetryBudget(0.5, 1);
+
+        assertTrue(budget.tryRetry());
+        assertFalse(budget.tryRetry());
+
+        budget.recordRequest();
+        assertFalse(budget.tryRetry());
+        budget.recordRequest();
+        assertTrue(budget.tryRetry());
+
+    }
+
+    @Test
+    public void testRecordRequest_Capped() throws Exception {
+
+        RetryBudget budget = new RetryBudget(1, 2);
+
+        for (int i = 0; i < 10; i++) {
+            budget.recordRequest();
+        }
+
+        assertTrue(budget.tryRetry());
+        assertTrue(budget.tryRetry());
+        assertFalse(budget.tryRetry());
+
+    }
+
+}